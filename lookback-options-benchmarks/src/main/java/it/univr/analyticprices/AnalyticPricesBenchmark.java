@@ -0,0 +1,223 @@
+package it.univr.analyticprices;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of every method of AnalyticPrices, scalar and batch, in prices per microsecond, over a fixed set of
+ * random market data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticPricesBenchmark {
+
+	private static final int NUMBER_OF_SCENARIOS = 1024;
+	private static final int NUMBER_OF_FIXINGS = 100;
+
+	private double[] spotPrice;
+	private double[] riskFreeRate;
+	private double[] volatility;
+	private double[] maturity;
+	private double[] strike;
+	private int[] numberOfFixings;
+	private double[] normalArgument;
+	private double[] values;
+	private double[] otherValues;
+	private AnalyticPricesCache cache;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(1897);
+		spotPrice = new double[NUMBER_OF_SCENARIOS];
+		riskFreeRate = new double[NUMBER_OF_SCENARIOS];
+		volatility = new double[NUMBER_OF_SCENARIOS];
+		maturity = new double[NUMBER_OF_SCENARIOS];
+		strike = new double[NUMBER_OF_SCENARIOS];
+		numberOfFixings = new int[NUMBER_OF_SCENARIOS];
+		normalArgument = new double[NUMBER_OF_SCENARIOS];
+		values = new double[NUMBER_OF_SCENARIOS];
+		otherValues = new double[NUMBER_OF_SCENARIOS];
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			spotPrice[i] = 80.0 + 40.0 * random.nextDouble();
+			riskFreeRate[i] = 0.1 * random.nextDouble();
+			volatility[i] = 0.1 + 0.4 * random.nextDouble();
+			maturity[i] = 0.25 + 2.0 * random.nextDouble();
+			strike[i] = 100.0;
+			numberOfFixings[i] = NUMBER_OF_FIXINGS;
+			// over the body and both tails of the distribution, as in FastNormalDistributionBenchmark
+			normalArgument[i] = -8.0 + 16.0 * random.nextDouble();
+		}
+		cache = new AnalyticPricesCache(4 * NUMBER_OF_SCENARIOS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void continuouslyMonitoredLookbackCallFloatingStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void continuouslyMonitoredLookbackPutFloatingStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void continuouslyMonitoredLookbackCallFixedStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void continuouslyMonitoredLookbackPutFixedStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void discretelyMonitoredLookbackCallFloatingStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.discretelyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void discretelyMonitoredLookbackPutFloatingStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.discretelyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void discretelyMonitoredLookbackCallFixedStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.discretelyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void discretelyMonitoredLookbackPutFixedStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(AnalyticPrices.discretelyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings[i]));
+		}
+	}
+
+	/*
+	 * The same quotes at every invocation, so that after the first one every price is a hit of the cache.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void cachedContinuouslyMonitoredLookbackCallFloatingStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(cache.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public void cachedContinuouslyMonitoredLookbackCallFixedStrike(Blackhole blackhole) {
+		for(int i = 0; i < NUMBER_OF_SCENARIOS; i++) {
+			blackhole.consume(cache.continuouslyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchCallFloatingStrike() {
+		AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchPutFloatingStrike() {
+		AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(2 * NUMBER_OF_SCENARIOS)
+	public double[] batchCallAndPutFloatingStrike() {
+		AnalyticPrices.continuouslyMonitoredLookbackFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, values, otherValues);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchCallFixedStrike() {
+		AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchPutFixedStrike() {
+		AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchDiscretelyMonitoredCallFloatingStrike() {
+		AnalyticPrices.discretelyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchDiscretelyMonitoredPutFloatingStrike() {
+		AnalyticPrices.discretelyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchDiscretelyMonitoredCallFixedStrike() {
+		AnalyticPrices.discretelyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] batchDiscretelyMonitoredPutFixedStrike() {
+		AnalyticPrices.discretelyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings, values);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SCENARIOS)
+	public double[] normalCumulativeDistribution() {
+		FastNormalDistribution.cumulativeDistribution(normalArgument, values);
+		return values;
+	}
+}
@@ -0,0 +1,30 @@
+package it.univr.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * It runs the benchmarks whose name matches the first argument (all of them by default) with the GC profiler,
+ * which adds the allocation rate (gc.alloc.rate.norm, bytes per operation) to every result, and writes the
+ * results as JSON to the second argument (jmh-result.json by default), to be compared across revisions.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : "it\\.univr\\..*";
+		String resultFile = args.length > 1 ? args[1] : "jmh-result.json";
+
+		Options options = new OptionsBuilder()
+				.include(include)
+				.addProfiler(GCProfiler.class)
+				.result(resultFile)
+				.resultFormat(ResultFormatType.JSON)
+				.build();
+
+		new Runner(options).run();
+	}
+}
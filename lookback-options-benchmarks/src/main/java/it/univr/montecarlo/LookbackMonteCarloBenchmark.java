@@ -0,0 +1,119 @@
+package it.univr.montecarlo;
+
+import java.util.concurrent.TimeUnit;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Valuation of the four lookbacks and of the building blocks of AbstractBuildMonitoring on a
+ * MonteCarloBlackScholesModel whose paths are generated in the setup, so that only the product side is timed.
+ *
+ * The class lives in the package of the products to reach the protected methods of AbstractBuildMonitoring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookbackMonteCarloBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int numberOfPaths;
+
+	@Param({ "100", "1000" })
+	public int numberOfTimeSteps;
+
+	@Param({ "0", "12", "100" })
+	public int numberOfFixings;
+
+	//model parameters
+	private final double spotPrice = 100.0;
+	private final double riskFreeRate = 0.1;
+	private final double volatility = 0.3;
+
+	//option parameters
+	private final double maturity = 1.0;
+	private final double strike = 100.0;
+
+	private MonteCarloBlackScholesModel blackScholesProcess;
+	private AbstractBuildMonitoring callFixedStrike;
+	private AbstractBuildMonitoring putFixedStrike;
+	private AbstractBuildMonitoring callFloatingStrike;
+	private AbstractBuildMonitoring putFloatingStrike;
+	private double[] discretizedTimes;
+
+	@Setup(Level.Trial)
+	public void setUp() throws CalculationException {
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, 1897);
+		blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+
+		callFixedStrike = new LookbackCallFixedStrike(maturity, 0, numberOfFixings, strike);
+		putFixedStrike = new LookbackPutFixedStrike(maturity, 0, numberOfFixings, strike);
+		callFloatingStrike = new LookbackCallFloatingStrike(maturity, 0, numberOfFixings);
+		putFloatingStrike = new LookbackPutFloatingStrike(maturity, 0, numberOfFixings);
+
+		// generates the paths
+		blackScholesProcess.getAssetValue(numberOfTimeSteps, 0);
+		discretizedTimes = callFixedStrike.buildMonitoringTimes(blackScholesProcess);
+	}
+
+	@Benchmark
+	public double callFixedStrike() throws CalculationException {
+		return callFixedStrike.getValue(blackScholesProcess);
+	}
+
+	@Benchmark
+	public double putFixedStrike() throws CalculationException {
+		return putFixedStrike.getValue(blackScholesProcess);
+	}
+
+	@Benchmark
+	public double callFloatingStrike() throws CalculationException {
+		return callFloatingStrike.getValue(blackScholesProcess);
+	}
+
+	@Benchmark
+	public double putFloatingStrike() throws CalculationException {
+		return putFloatingStrike.getValue(blackScholesProcess);
+	}
+
+	@Benchmark
+	public double[] buildMonitoringTimes() {
+		return callFixedStrike.buildMonitoringTimes(blackScholesProcess);
+	}
+
+	@Benchmark
+	public RandomVariable getMax() throws CalculationException {
+		return callFixedStrike.getMax(discretizedTimes, maturity, 0, blackScholesProcess);
+	}
+
+	@Benchmark
+	public RandomVariable getMin() throws CalculationException {
+		return callFixedStrike.getMin(discretizedTimes, maturity, 0, blackScholesProcess);
+	}
+
+	@Benchmark
+	public PathExtremum getPathExtremum() throws CalculationException {
+		return callFixedStrike.getPathExtremum(discretizedTimes, maturity, 0, blackScholesProcess);
+	}
+}
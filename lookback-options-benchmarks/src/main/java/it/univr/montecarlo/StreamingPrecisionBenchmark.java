@@ -0,0 +1,74 @@
+package it.univr.montecarlo;
+
+import java.util.concurrent.TimeUnit;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Valuation of a continuously and of a discretely monitored lookback with StreamingBlackScholesLookbackPricer,
+ * holding the paths in double and in single precision. With the GC profiler of BenchmarkRunner,
+ * gc.alloc.rate.norm gives the bytes allocated per valuation: the paths take 20 bytes per path in single precision
+ * against 32 in double precision, the 8 bytes per path of the buffer of the double precision increments included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingPrecisionBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int numberOfPaths;
+
+	@Param({ "100" })
+	public int numberOfTimeSteps;
+
+	@Param({ "DOUBLE", "FLOAT" })
+	public LookbackPathPrecision pathPrecision;
+
+	//model parameters
+	private final double spotPrice = 100.0;
+	private final double riskFreeRate = 0.1;
+	private final double volatility = 0.3;
+
+	//option parameters
+	private final double maturity = 1.0;
+	private final double strike = 100.0;
+
+	private StreamingBlackScholesLookbackPricer pricer;
+	private AbstractBuildMonitoring continuouslyMonitored;
+	private AbstractBuildMonitoring discretelyMonitored;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		pricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate, volatility, times, numberOfPaths, 1897,
+				LookbackPathDriverType.PSEUDO_RANDOM, pathPrecision);
+		continuouslyMonitored = new LookbackCallFixedStrike(maturity, strike);
+		discretelyMonitored = new LookbackCallFloatingStrike(maturity, 12);
+	}
+
+	@Benchmark
+	public double continuouslyMonitored() {
+		return pricer.getValue(continuouslyMonitored);
+	}
+
+	@Benchmark
+	public double discretelyMonitored() {
+		return pricer.getValue(discretelyMonitored);
+	}
+}
@@ -0,0 +1,138 @@
+package it.univr.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A {@link LookbackMetricsRegistry} emitting the measurements as JDK Flight Recorder events, which are only written
+ * while a recording has them enabled, e.g., with
+ * <pre>
+ * java -XX:StartFlightRecording=filename=lookback.jfr ...
+ * </pre>
+ * The events are it.univr.LookbackStage, it.univr.LookbackValuation and it.univr.LookbackCacheAccess, the last one
+ * disabled by default since there is one per lookup. The measurements can also be passed on to another registry,
+ * e.g., a {@link SimpleMetricsRegistry}, to have both.
+ */
+public class JfrMetricsRegistry implements LookbackMetricsRegistry {
+
+	private final LookbackMetricsRegistry delegate;
+
+	/**
+	 * @param delegate The registry receiving the measurements as well, null for none.
+	 */
+	public JfrMetricsRegistry(LookbackMetricsRegistry delegate) {
+		this.delegate = delegate;
+	}
+
+	public JfrMetricsRegistry() {
+		this(null);
+	}
+
+	@Override
+	public void recordStage(LookbackStage stage, long durationInNanoseconds) {
+		StageEvent event = new StageEvent();
+		if(event.shouldCommit()) {
+			event.stage = stage.name();
+			event.stageDuration = durationInNanoseconds;
+			event.commit();
+		}
+		if(delegate != null) {
+			delegate.recordStage(stage, durationInNanoseconds);
+		}
+	}
+
+	@Override
+	public void recordValuation(String productName, long numberOfPaths, long durationInNanoseconds, long allocatedBytes) {
+		ValuationEvent event = new ValuationEvent();
+		if(event.shouldCommit()) {
+			event.product = productName;
+			event.numberOfPaths = numberOfPaths;
+			event.valuationDuration = durationInNanoseconds;
+			event.allocatedBytes = allocatedBytes;
+			event.pathsPerSecond = durationInNanoseconds == 0 ? 0.0 : numberOfPaths / (durationInNanoseconds / 1E9);
+			event.commit();
+		}
+		if(delegate != null) {
+			delegate.recordValuation(productName, numberOfPaths, durationInNanoseconds, allocatedBytes);
+		}
+	}
+
+	@Override
+	public void recordCacheAccess(String cacheName, boolean isHit) {
+		CacheAccessEvent event = new CacheAccessEvent();
+		if(event.shouldCommit()) {
+			event.cache = cacheName;
+			event.hit = isHit;
+			event.commit();
+		}
+		if(delegate != null) {
+			delegate.recordCacheAccess(cacheName, isHit);
+		}
+	}
+
+	/*
+	 * The events are committed when the measurement is complete, so the durations are fields rather than the
+	 * duration of the event itself.
+	 */
+	@Name("it.univr.LookbackStage")
+	@Label("Lookback Stage")
+	@Category({ "Lookback Options" })
+	@Description("A stage of a lookback valuation")
+	@StackTrace(false)
+	static final class StageEvent extends Event {
+
+		@Label("Stage")
+		String stage;
+
+		@Label("Stage Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long stageDuration;
+	}
+
+	@Name("it.univr.LookbackValuation")
+	@Label("Lookback Valuation")
+	@Category({ "Lookback Options" })
+	@Description("A complete lookback valuation")
+	@StackTrace(false)
+	static final class ValuationEvent extends Event {
+
+		@Label("Product")
+		String product;
+
+		@Label("Number of Paths")
+		long numberOfPaths;
+
+		@Label("Valuation Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long valuationDuration;
+
+		@Label("Allocated Bytes")
+		@DataAmount(DataAmount.BYTES)
+		long allocatedBytes;
+
+		@Label("Paths per Second")
+		double pathsPerSecond;
+	}
+
+	@Name("it.univr.LookbackCacheAccess")
+	@Label("Lookback Cache Access")
+	@Category({ "Lookback Options" })
+	@Description("A lookup in a cache of the lookback valuations")
+	@StackTrace(false)
+	@Enabled(false)
+	static final class CacheAccessEvent extends Event {
+
+		@Label("Cache")
+		String cache;
+
+		@Label("Hit")
+		boolean hit;
+	}
+}
@@ -0,0 +1,100 @@
+package it.univr.instrumentation;
+
+import it.univr.analyticprices.AnalyticPricesCache;
+import it.univr.montecarlo.AbstractBuildMonitoring;
+import it.univr.montecarlo.LookbackCallFixedStrike;
+import it.univr.montecarlo.LookbackPutFloatingStrike;
+import it.univr.montecarlo.StreamingBlackScholesLookbackPricer;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * It records a few valuations with the finmath model, the streaming pricer and the analytic cache through a
+ * {@link JfrMetricsRegistry} passing the measurements on to a {@link SimpleMetricsRegistry}, and checks that the
+ * recording has as many events of each type as the simple registry has measurements.
+ */
+public class JfrMetricsRegistryTest {
+
+	public static void main(String[] args) throws Exception {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfTimeSteps = 100;
+		int numberOfPaths = 50000;
+		int seed = 1897;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackPutFloatingStrike(maturity)
+		};
+		StreamingBlackScholesLookbackPricer pricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate, volatility,
+				times, numberOfPaths, seed);
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility,
+				new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed));
+		AnalyticPricesCache cache = new AnalyticPricesCache(1000);
+
+		SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+		Path recordingFile = Files.createTempFile("lookback", ".jfr");
+		try(Recording recording = new Recording()) {
+			recording.enable("it.univr.LookbackStage");
+			recording.enable("it.univr.LookbackValuation");
+			recording.enable("it.univr.LookbackCacheAccess");
+			recording.start();
+			LookbackInstrumentation.setRegistry(new JfrMetricsRegistry(registry));
+			for(AbstractBuildMonitoring product : products) {
+				product.getValue(blackScholesProcess);
+				pricer.getValue(product);
+			}
+			cache.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity);
+			cache.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity);
+			LookbackInstrumentation.setRegistry(null);
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+		Map<String, Integer> numberOfEvents = new HashMap<>();
+		for(RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+			numberOfEvents.merge(event.getEventType().getName(), 1, Integer::sum);
+		}
+		Files.delete(recordingFile);
+		System.out.println("JFR events " + numberOfEvents);
+
+		long numberOfStages = 0;
+		for(LookbackStage stage : LookbackStage.values()) {
+			numberOfStages += registry.getStageCount(stage);
+		}
+		long numberOfCacheAccesses = registry.getCacheHitCount("AnalyticPricesCache") + registry.getCacheMissCount("AnalyticPricesCache")
+				+ registry.getCacheHitCount("monitoringTimeIndices") + registry.getCacheMissCount("monitoringTimeIndices");
+		check(numberOfEvents.getOrDefault("it.univr.LookbackStage", 0) == numberOfStages, "stage events", numberOfStages);
+		check(numberOfEvents.getOrDefault("it.univr.LookbackValuation", 0) == registry.getNumberOfValuations(), "valuation events",
+				registry.getNumberOfValuations());
+		check(numberOfEvents.getOrDefault("it.univr.LookbackCacheAccess", 0) == numberOfCacheAccesses, "cache access events",
+				numberOfCacheAccesses);
+		System.out.println("The recording has an event for every measurement");
+	}
+
+	private static void check(boolean condition, String events, long numberOfMeasurements) {
+		if(!condition) {
+			throw new AssertionError("The recording does not have " + numberOfMeasurements + " " + events);
+		}
+	}
+}
@@ -1,7 +1,13 @@
 package it.univr.analyticprices;
 
-import net.finmath.functions.NormalDistribution;
+import it.univr.instrumentation.LookbackInstrumentation;
+import it.univr.instrumentation.LookbackStage;
 
+/*
+ * Every public method is timed as one LookbackStage.ANALYTIC_FORMULA by LookbackInstrumentation, a batch method
+ * once for the whole batch. The public methods compute their prices by the private ones, never by each other, so
+ * that a price is timed once however the formulas are composed.
+ */
 public class AnalyticPrices {
 	
 	private final static double beta = 0.586;
@@ -19,19 +25,36 @@ public class AnalyticPrices {
 	public static double continuouslyMonitoredLookbackCallFloatingStrike(
 	        double spotPrice, double interestRate, double volatility, double maturity) {
 
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    double price = lookbackCallFloatingStrike(spotPrice, interestRate, volatility, maturity);
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	    return price;
+	}
+
+	private static double lookbackCallFloatingStrike(double spotPrice, double interestRate, double volatility, double maturity) {
+
 	    if (maturity <= 0.0 || volatility <= 0.0) {
 	        return 0.0;
 	    }
 
-	    double sqrtMaturity = Math.sqrt(maturity);
-	    double discountFactor = Math.exp(-interestRate * maturity);
+	    return lookbackCallFloatingStrike(spotPrice, interestRate, volatility, maturity,
+	            Math.sqrt(maturity), Math.exp(-interestRate * maturity));
+	}
+
+	/*
+	 * The floating-strike call for given square root of the maturity and discount factor, shared by the scalar
+	 * and the batch methods.
+	 */
+	private static double lookbackCallFloatingStrike(double spotPrice, double interestRate, double volatility,
+	        double maturity, double sqrtMaturity, double discountFactor) {
+
 	    double a = 0.5 * volatility * sqrtMaturity;
 
 	    // Limit case: r ≈ 0 
 	    if (Math.abs(interestRate) < 1e-8) {
-	        double phiA = Math.exp(-0.5 * a * a) / Math.sqrt(2.0 * Math.PI);
-	        double PhiA = NormalDistribution.cumulativeDistribution(a);
-	        double PhiMinusA = NormalDistribution.cumulativeDistribution(-a);
+	        double phiA = FastNormalDistribution.density(a);
+	        double PhiA = FastNormalDistribution.cumulativeDistribution(a);
+	        double PhiMinusA = FastNormalDistribution.cumulativeDistribution(-a);
 
 	        // Limit of the σ²/(2r) term as r → 0
 	        double limitTerm = spotPrice * (
@@ -49,14 +72,14 @@ public class AnalyticPrices {
 	    double d = (interestRate + 0.5 * volatility * volatility)
 	               * maturity / (volatility * sqrtMaturity);
 
-	    double term1 = spotPrice * NormalDistribution.cumulativeDistribution(d);
+	    double term1 = spotPrice * FastNormalDistribution.cumulativeDistribution(d);
 	    double term2 = -discountFactor * spotPrice
-	                   * NormalDistribution.cumulativeDistribution(d - volatility * sqrtMaturity);
+	                   * FastNormalDistribution.cumulativeDistribution(d - volatility * sqrtMaturity);
 
-	    double bracket = NormalDistribution.cumulativeDistribution(
+	    double bracket = FastNormalDistribution.cumulativeDistribution(
 	                            -d + 2.0 * interestRate * sqrtMaturity / volatility)
 	                   - Math.exp(interestRate * maturity)
-	                     * NormalDistribution.cumulativeDistribution(-d);
+	                     * FastNormalDistribution.cumulativeDistribution(-d);
 
 	    double term3 = discountFactor * (volatility * volatility) / (2.0 * interestRate)
 	                   * spotPrice * bracket;
@@ -76,18 +99,34 @@ public class AnalyticPrices {
 	public static double continuouslyMonitoredLookbackPutFloatingStrike(
 	        double spotPrice, double interestRate, double volatility, double maturity) {
 
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    double price = lookbackPutFloatingStrike(spotPrice, interestRate, volatility, maturity);
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	    return price;
+	}
+
+	private static double lookbackPutFloatingStrike(double spotPrice, double interestRate, double volatility, double maturity) {
+
 	    if (maturity <= 0.0 || volatility <= 0.0) {
 	        return 0.0;
 	    }
-	    double sqrtMaturity = Math.sqrt(maturity);
-	    double discountFactor = Math.exp(-interestRate * maturity);
+	    return lookbackPutFloatingStrike(spotPrice, interestRate, volatility, maturity,
+	            Math.sqrt(maturity), Math.exp(-interestRate * maturity));
+	}
+
+	/*
+	 * The floating-strike put for given square root of the maturity and discount factor, shared by the scalar
+	 * and the batch methods.
+	 */
+	private static double lookbackPutFloatingStrike(double spotPrice, double interestRate, double volatility,
+	        double maturity, double sqrtMaturity, double discountFactor) {
 
 	    // Limit case: r ≈ 0 
 	    if (Math.abs(interestRate) < 1e-8) {
 	        double a = 0.5 * volatility * sqrtMaturity; // a = σ√T / 2
-	        double phiA = Math.exp(-0.5 * a * a) / Math.sqrt(2.0 * Math.PI);
-	        double PhiA = NormalDistribution.cumulativeDistribution(a);
-	        double PhiMinusA = NormalDistribution.cumulativeDistribution(-a);
+	        double phiA = FastNormalDistribution.density(a);
+	        double PhiA = FastNormalDistribution.cumulativeDistribution(a);
+	        double PhiMinusA = FastNormalDistribution.cumulativeDistribution(-a);
 
 	        // Limit as r → 0 of the σ²/(2r) term (analytically derived)
 	        double limitTerm = spotPrice * (
@@ -105,13 +144,13 @@ public class AnalyticPrices {
 	    double d = (interestRate + 0.5 * volatility * volatility)
 	               * maturity / (volatility * sqrtMaturity);
 
-	    double term1 = -spotPrice * NormalDistribution.cumulativeDistribution(-d);
+	    double term1 = -spotPrice * FastNormalDistribution.cumulativeDistribution(-d);
 	    double term2 =  discountFactor * spotPrice
-	                   * NormalDistribution.cumulativeDistribution(-d + volatility * sqrtMaturity);
+	                   * FastNormalDistribution.cumulativeDistribution(-d + volatility * sqrtMaturity);
 
 	    double bracket = Math.exp(interestRate * maturity)
-	                   * NormalDistribution.cumulativeDistribution(d)
-	                   - NormalDistribution.cumulativeDistribution(d - 2.0 * interestRate * sqrtMaturity / volatility);
+	                   * FastNormalDistribution.cumulativeDistribution(d)
+	                   - FastNormalDistribution.cumulativeDistribution(d - 2.0 * interestRate * sqrtMaturity / volatility);
 
 	    double term3 = discountFactor * (volatility * volatility) / (2.0 * interestRate)
 	                   * spotPrice * bracket;
@@ -119,6 +158,137 @@ public class AnalyticPrices {
 	    return term1 + term2 + term3;
 	}
 
+
+	/**
+	 * It returns the analytic price of a seasoned floating-strike lookback call with continuous monitoring, i.e.,
+	 * of a contract whose underlying has already reached the running minimum runningMinimum, when the underlying S
+	 * has Black–Scholes dynamics (see Hull, "Options, Futures, and Other Derivatives").
+	 *
+	 * The maturity is the remaining time to maturity. With runningMinimum equal to the spot price it gives the
+	 * price of the method for a contract starting at zero.
+	 */
+	public static double continuouslyMonitoredLookbackCallFloatingStrike(
+	        double spotPrice, double interestRate, double volatility, double maturity, double runningMinimum) {
+
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    double price = lookbackCallFloatingStrike(spotPrice, interestRate, volatility, maturity, runningMinimum);
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	    return price;
+	}
+
+	private static double lookbackCallFloatingStrike(double spotPrice, double interestRate, double volatility, double maturity,
+	        double runningMinimum) {
+
+	    runningMinimum = Math.min(runningMinimum, spotPrice);
+	    if (runningMinimum == spotPrice) {
+	        return lookbackCallFloatingStrike(spotPrice, interestRate, volatility, maturity);
+	    }
+	    if (maturity <= 0.0 || volatility <= 0.0) {
+	        // deterministic path
+	        double terminalValue = spotPrice * Math.exp(interestRate * Math.max(maturity, 0.0));
+	        return Math.exp(-interestRate * Math.max(maturity, 0.0)) * (terminalValue - Math.min(runningMinimum, terminalValue));
+	    }
+	    return lookbackCallFloatingStrike(spotPrice, interestRate, volatility, maturity, runningMinimum,
+	            Math.sqrt(maturity), Math.exp(-interestRate * maturity));
+	}
+
+	/**
+	 * It returns the analytic price of a seasoned floating-strike lookback put with continuous monitoring, i.e.,
+	 * of a contract whose underlying has already reached the running maximum runningMaximum, when the underlying S
+	 * has Black–Scholes dynamics (see Hull, "Options, Futures, and Other Derivatives").
+	 *
+	 * The maturity is the remaining time to maturity. With runningMaximum equal to the spot price it gives the
+	 * price of the method for a contract starting at zero.
+	 */
+	public static double continuouslyMonitoredLookbackPutFloatingStrike(
+	        double spotPrice, double interestRate, double volatility, double maturity, double runningMaximum) {
+
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    double price = lookbackPutFloatingStrike(spotPrice, interestRate, volatility, maturity, runningMaximum);
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	    return price;
+	}
+
+	private static double lookbackPutFloatingStrike(double spotPrice, double interestRate, double volatility, double maturity,
+	        double runningMaximum) {
+
+	    runningMaximum = Math.max(runningMaximum, spotPrice);
+	    if (runningMaximum == spotPrice) {
+	        return lookbackPutFloatingStrike(spotPrice, interestRate, volatility, maturity);
+	    }
+	    if (maturity <= 0.0 || volatility <= 0.0) {
+	        // deterministic path
+	        double terminalValue = spotPrice * Math.exp(interestRate * Math.max(maturity, 0.0));
+	        return Math.exp(-interestRate * Math.max(maturity, 0.0)) * (Math.max(runningMaximum, terminalValue) - terminalValue);
+	    }
+	    return lookbackPutFloatingStrike(spotPrice, interestRate, volatility, maturity, runningMaximum,
+	            Math.sqrt(maturity), Math.exp(-interestRate * maturity));
+	}
+
+	/*
+	 * The seasoned floating-strike call for given square root of the maturity and discount factor. The terms
+	 * with sigma^2/(2r) cancel each other for r → 0, where the symmetric mean of the prices for r = ±1E-5 is used.
+	 */
+	private static double lookbackCallFloatingStrike(double spotPrice, double interestRate, double volatility,
+	        double maturity, double runningMinimum, double sqrtMaturity, double discountFactor) {
+
+	    if (runningMinimum >= spotPrice) {
+	        return lookbackCallFloatingStrike(spotPrice, interestRate, volatility, maturity, sqrtMaturity, discountFactor);
+	    }
+	    if (Math.abs(interestRate) < 1e-8) {
+	        double shift = 1e-5;
+	        return 0.5 * (lookbackCallFloatingStrike(spotPrice, interestRate + shift, volatility, maturity, runningMinimum,
+	                sqrtMaturity, Math.exp(-(interestRate + shift) * maturity))
+	                + lookbackCallFloatingStrike(spotPrice, interestRate - shift, volatility, maturity, runningMinimum,
+	                sqrtMaturity, Math.exp(-(interestRate - shift) * maturity)));
+	    }
+
+	    double volatilityTimesSqrtMaturity = volatility * sqrtMaturity;
+	    double logMoneyness = Math.log(spotPrice / runningMinimum);
+	    double k = volatility * volatility / (2.0 * interestRate);
+
+	    double a1 = (logMoneyness + (interestRate + 0.5 * volatility * volatility) * maturity) / volatilityTimesSqrtMaturity;
+	    double a2 = a1 - volatilityTimesSqrtMaturity;
+	    double a3 = (logMoneyness + (-interestRate + 0.5 * volatility * volatility) * maturity) / volatilityTimesSqrtMaturity;
+	    double y1 = -2.0 * (interestRate - 0.5 * volatility * volatility) * logMoneyness / (volatility * volatility);
+
+	    return spotPrice * FastNormalDistribution.cumulativeDistribution(a1)
+	            - spotPrice * k * FastNormalDistribution.cumulativeDistribution(-a1)
+	            - runningMinimum * discountFactor * (FastNormalDistribution.cumulativeDistribution(a2)
+	                    - k * Math.exp(y1) * FastNormalDistribution.cumulativeDistribution(-a3));
+	}
+
+	/*
+	 * The seasoned floating-strike put for given square root of the maturity and discount factor, see the call.
+	 */
+	private static double lookbackPutFloatingStrike(double spotPrice, double interestRate, double volatility,
+	        double maturity, double runningMaximum, double sqrtMaturity, double discountFactor) {
+
+	    if (runningMaximum <= spotPrice) {
+	        return lookbackPutFloatingStrike(spotPrice, interestRate, volatility, maturity, sqrtMaturity, discountFactor);
+	    }
+	    if (Math.abs(interestRate) < 1e-8) {
+	        double shift = 1e-5;
+	        return 0.5 * (lookbackPutFloatingStrike(spotPrice, interestRate + shift, volatility, maturity, runningMaximum,
+	                sqrtMaturity, Math.exp(-(interestRate + shift) * maturity))
+	                + lookbackPutFloatingStrike(spotPrice, interestRate - shift, volatility, maturity, runningMaximum,
+	                sqrtMaturity, Math.exp(-(interestRate - shift) * maturity)));
+	    }
+
+	    double volatilityTimesSqrtMaturity = volatility * sqrtMaturity;
+	    double logMoneyness = Math.log(runningMaximum / spotPrice);
+	    double k = volatility * volatility / (2.0 * interestRate);
+
+	    double b1 = (logMoneyness + (-interestRate + 0.5 * volatility * volatility) * maturity) / volatilityTimesSqrtMaturity;
+	    double b2 = b1 - volatilityTimesSqrtMaturity;
+	    double b3 = (logMoneyness + (interestRate - 0.5 * volatility * volatility) * maturity) / volatilityTimesSqrtMaturity;
+	    double y2 = 2.0 * (interestRate - 0.5 * volatility * volatility) * logMoneyness / (volatility * volatility);
+
+	    return runningMaximum * discountFactor * (FastNormalDistribution.cumulativeDistribution(b1)
+	                    - k * Math.exp(y2) * FastNormalDistribution.cumulativeDistribution(-b3))
+	            + spotPrice * k * FastNormalDistribution.cumulativeDistribution(-b2)
+	            - spotPrice * FastNormalDistribution.cumulativeDistribution(b2);
+	}
 	
 	/**
 	 * It returns the analytic price of a fixed-strike lookback call with continuous monitoring
@@ -135,8 +305,33 @@ public class AnalyticPrices {
 		 * We compute the price via the put-call parity for lookbacks (see for example the book 
 		 * "Options, Futures, and Other Derivatives" by Hull)
 		 */
-		double sMaxStar = Math.max(spotPrice, strike);
-		double valueFloatingPut = continuouslyMonitoredLookbackPutFloatingStrike(sMaxStar, riskFreeRate,  volatility, maturity);
+		long startTime = LookbackInstrumentation.getStartTime();
+		double price = lookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, spotPrice);
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+		return price;
+	}
+
+	/**
+	 * It returns the analytic price of a seasoned fixed-strike lookback call with continuous monitoring, whose
+	 * underlying has already reached the running maximum runningMaximum, when the underlying S has Black–Scholes
+	 * dynamics. The maturity is the remaining time to maturity.
+	 */
+	public static double continuouslyMonitoredLookbackCallFixedStrike(
+			double spotPrice,double riskFreeRate, double volatility, double maturity, double strike, double runningMaximum) {
+		long startTime = LookbackInstrumentation.getStartTime();
+		double price = lookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, runningMaximum);
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+		return price;
+	}
+
+	private static double lookbackCallFixedStrike(
+			double spotPrice,double riskFreeRate, double volatility, double maturity, double strike, double runningMaximum) {
+		/*
+		 * By the put-call parity for lookbacks, it is the floating-strike put on the same spot price whose running
+		 * maximum is the largest of the running maximum and the strike, plus a forward
+		 */
+		double sMaxStar = Math.max(Math.max(runningMaximum, spotPrice), strike);
+		double valueFloatingPut = lookbackPutFloatingStrike(spotPrice, riskFreeRate,  volatility, maturity, sMaxStar);
 		return valueFloatingPut + spotPrice - strike * Math.exp(-riskFreeRate*maturity);  
 	}
 
@@ -158,9 +353,34 @@ public class AnalyticPrices {
 		 * We compute the price via the put-call parity for lookbacks (see for example the book 
 		 * "Options, Futures, and Other Derivatives" by Hull)
 		 */
-		double sMaxStar = Math.min(spotPrice, strike);
-		double valueFloatingPut = continuouslyMonitoredLookbackCallFloatingStrike(sMaxStar, riskFreeRate,  volatility, maturity);
-		return valueFloatingPut + strike * Math.exp(-riskFreeRate*maturity) - spotPrice;
+		long startTime = LookbackInstrumentation.getStartTime();
+		double price = lookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, spotPrice);
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+		return price;
+	}
+
+	/**
+	 * It returns the analytic price of a seasoned fixed-strike lookback put with continuous monitoring, whose
+	 * underlying has already reached the running minimum runningMinimum, when the underlying S has Black–Scholes
+	 * dynamics. The maturity is the remaining time to maturity.
+	 */
+	public static double continuouslyMonitoredLookbackPutFixedStrike(
+			double spotPrice,double riskFreeRate, double volatility, double maturity, double strike, double runningMinimum) {
+		long startTime = LookbackInstrumentation.getStartTime();
+		double price = lookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, runningMinimum);
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+		return price;
+	}
+
+	private static double lookbackPutFixedStrike(
+			double spotPrice,double riskFreeRate, double volatility, double maturity, double strike, double runningMinimum) {
+		/*
+		 * By the put-call parity for lookbacks, it is the floating-strike call on the same spot price whose running
+		 * minimum is the smallest of the running minimum and the strike, plus a forward
+		 */
+		double sMinStar = Math.min(Math.min(runningMinimum, spotPrice), strike);
+		double valueFloatingCall = lookbackCallFloatingStrike(spotPrice, riskFreeRate,  volatility, maturity, sMinStar);
+		return valueFloatingCall + strike * Math.exp(-riskFreeRate*maturity) - spotPrice;
 	}
 	
 	
@@ -172,12 +392,45 @@ public class AnalyticPrices {
 	
 	public static double discretelyMonitoredLookbackPutFloatingStrike(final double spotPrice, final double riskFreeRate,
 			final double volatility, final double maturity, final int numberOfFixingDate) {
+		long startTime = LookbackInstrumentation.getStartTime();
+		double price = discreteLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixingDate);
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+		return price;
+	}
+
+	private static double discreteLookbackPutFloatingStrike(final double spotPrice, final double riskFreeRate,
+			final double volatility, final double maturity, final int numberOfFixingDate) {
+		return discreteLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixingDate,
+				Math.sqrt(maturity), Math.exp(-riskFreeRate*maturity));
+	}
+
+	/*
+	 * The discretely monitored floating-strike put for given square root of the maturity and discount factor of the
+	 * continuously monitored price it corrects, shared by the scalar and the batch methods. The shift
+	 * beta sigma sqrt(T/m) and its exponential are computed once.
+	 */
+	private static double discreteLookbackPutFloatingStrike(double spotPrice, double riskFreeRate, double volatility,
+			double maturity, int numberOfFixingDate, double sqrtMaturity, double discountFactor) {
 		double teta = beta*volatility*Math.sqrt(maturity/numberOfFixingDate);
-		double V = continuouslyMonitoredLookbackCallFloatingStrike(Math.exp(teta), riskFreeRate, volatility, maturity);
+		double V = maturity <= 0.0 || volatility <= 0.0 ? 0.0
+				: lookbackCallFloatingStrike(Math.exp(teta), riskFreeRate, volatility, maturity, sqrtMaturity, discountFactor);
 		double v_m = Math.exp(-teta)*V+(Math.exp(teta-1)*spotPrice);
 		return v_m;
 	}
 
+	/*
+	 * The discretely monitored floating-strike call, see the put.
+	 */
+	private static double discreteLookbackCallFloatingStrike(double spotPrice, double riskFreeRate, double volatility,
+			double maturity, int numberOfFixingDates, double sqrtMaturity, double discountFactor) {
+		double teta = beta*volatility*Math.sqrt(maturity/numberOfFixingDates);
+		double expTeta = Math.exp(teta);
+		double V = maturity <= 0.0 || volatility <= 0.0 ? 0.0
+				: lookbackPutFloatingStrike(expTeta, riskFreeRate, volatility, maturity, sqrtMaturity, discountFactor);
+		double v_m = expTeta*V+(expTeta-1*spotPrice);
+		return v_m;
+	}
+
 	
 	public static double discretelyMonitoredLookbackCallFloatingStrike(
 			final double spotPrice,  
@@ -186,22 +439,223 @@ public class AnalyticPrices {
 			final double maturity,
 			final int numberOfFixingDates) 
 	{
-		double teta = beta*volatility*Math.sqrt(maturity/numberOfFixingDates);
-		double V = continuouslyMonitoredLookbackPutFloatingStrike(Math.exp(teta), riskFreeRate, volatility, maturity);
-		double v_m = Math.exp(teta)*V+(Math.exp(teta)-1*spotPrice);
+		long startTime = LookbackInstrumentation.getStartTime();
+		double v_m = discreteLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixingDates,
+				Math.sqrt(maturity), Math.exp(-riskFreeRate*maturity));
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
 		return v_m;
 	}
 
 	public static double discretelyMonitoredLookbackCallFixedStrike(
 			double spotPrice,double riskFreeRate, double volatility, double maturity, double strike, int numberOfFixings) {
-		double V = discretelyMonitoredLookbackPutFloatingStrike(Math.max(spotPrice, strike),riskFreeRate, volatility, maturity, numberOfFixings);
-		return V = V + spotPrice - Math.exp(-riskFreeRate*maturity)*strike;
+		long startTime = LookbackInstrumentation.getStartTime();
+		double discountFactor = Math.exp(-riskFreeRate*maturity);
+		double V = discreteLookbackPutFloatingStrike(Math.max(spotPrice, strike),riskFreeRate, volatility, maturity, numberOfFixings,
+				Math.sqrt(maturity), discountFactor);
+		V = V + spotPrice - discountFactor*strike;
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+		return V;
 	}
 
 	public static double discretelyMonitoredLookbackPutFixedStrike(
 			double spotPrice,double riskFreeRate, double volatility, double maturity, double strike, int numberOfFixings) {
-		double V = discretelyMonitoredLookbackPutFloatingStrike(Math.max(spotPrice, strike),riskFreeRate, volatility, maturity, numberOfFixings);
+		long startTime = LookbackInstrumentation.getStartTime();
+		double V = discreteLookbackPutFloatingStrike(Math.max(spotPrice, strike),riskFreeRate, volatility, maturity, numberOfFixings);
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
 		return V;
 	}
+
+	
+	/*
+	 * Batch versions of the methods above over arrays of market and contract data ("struct of arrays"): the i-th
+	 * price is written in values[i] and is identical to the one of the scalar method for the i-th inputs. No
+	 * array is allocated, and the square root of the maturity and the discount factor are computed once per
+	 * element and shared by all the terms of the formulas.
+	 */
+	
+	/**
+	 * Batch version of {@link #continuouslyMonitoredLookbackCallFloatingStrike(double, double, double, double)}.
+	 */
+	public static void continuouslyMonitoredLookbackCallFloatingStrike(
+	        double[] spotPrice, double[] interestRate, double[] volatility, double[] maturity, double[] values) {
+
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    for (int i = 0; i < values.length; i++) {
+	        if (maturity[i] <= 0.0 || volatility[i] <= 0.0) {
+	            values[i] = 0.0;
+	            continue;
+	        }
+	        values[i] = lookbackCallFloatingStrike(spotPrice[i], interestRate[i], volatility[i], maturity[i],
+	                Math.sqrt(maturity[i]), Math.exp(-interestRate[i] * maturity[i]));
+	    }
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * Batch version of {@link #continuouslyMonitoredLookbackPutFloatingStrike(double, double, double, double)}.
+	 */
+	public static void continuouslyMonitoredLookbackPutFloatingStrike(
+	        double[] spotPrice, double[] interestRate, double[] volatility, double[] maturity, double[] values) {
+
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    for (int i = 0; i < values.length; i++) {
+	        if (maturity[i] <= 0.0 || volatility[i] <= 0.0) {
+	            values[i] = 0.0;
+	            continue;
+	        }
+	        values[i] = lookbackPutFloatingStrike(spotPrice[i], interestRate[i], volatility[i], maturity[i],
+	                Math.sqrt(maturity[i]), Math.exp(-interestRate[i] * maturity[i]));
+	    }
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * It writes both the floating-strike call and put prices. The two formulas evaluate the normal distribution
+	 * at d, -d and at d shifted by sigma sqrt(T) and by 2 r sqrt(T) / sigma, so d, its two distribution values,
+	 * the square root of the maturity, the discount factor and the sigma^2/(2r) factor are computed once per
+	 * element for both.
+	 */
+	public static void continuouslyMonitoredLookbackFloatingStrike(
+	        double[] spotPrice, double[] interestRate, double[] volatility, double[] maturity,
+	        double[] callValues, double[] putValues) {
+
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    for (int i = 0; i < callValues.length; i++) {
+	        if (maturity[i] <= 0.0 || volatility[i] <= 0.0) {
+	            callValues[i] = 0.0;
+	            putValues[i] = 0.0;
+	            continue;
+	        }
+	        double sqrtMaturity = Math.sqrt(maturity[i]);
+	        double discountFactor = Math.exp(-interestRate[i] * maturity[i]);
+	        if (Math.abs(interestRate[i]) < 1e-8) {
+	            callValues[i] = lookbackCallFloatingStrike(spotPrice[i], interestRate[i], volatility[i], maturity[i], sqrtMaturity, discountFactor);
+	            putValues[i] = lookbackPutFloatingStrike(spotPrice[i], interestRate[i], volatility[i], maturity[i], sqrtMaturity, discountFactor);
+	            continue;
+	        }
+
+	        double volatilityTimesSqrtMaturity = volatility[i] * sqrtMaturity;
+	        double d = (interestRate[i] + 0.5 * volatility[i] * volatility[i])
+	                   * maturity[i] / (volatility[i] * sqrtMaturity);
+	        double shiftOfBarrier = 2.0 * interestRate[i] * sqrtMaturity / volatility[i];
+	        double distributionOfD = FastNormalDistribution.cumulativeDistribution(d);
+	        double distributionOfMinusD = FastNormalDistribution.cumulativeDistribution(-d);
+	        double growthFactor = Math.exp(interestRate[i] * maturity[i]);
+	        double factorOfBracket = discountFactor * (volatility[i] * volatility[i]) / (2.0 * interestRate[i]) * spotPrice[i];
+
+	        callValues[i] = spotPrice[i] * distributionOfD
+	                - discountFactor * spotPrice[i] * FastNormalDistribution.cumulativeDistribution(d - volatilityTimesSqrtMaturity)
+	                + factorOfBracket * (FastNormalDistribution.cumulativeDistribution(-d + shiftOfBarrier) - growthFactor * distributionOfMinusD);
+	        putValues[i] = -spotPrice[i] * distributionOfMinusD
+	                + discountFactor * spotPrice[i] * FastNormalDistribution.cumulativeDistribution(-d + volatilityTimesSqrtMaturity)
+	                + factorOfBracket * (growthFactor * distributionOfD - FastNormalDistribution.cumulativeDistribution(d - shiftOfBarrier));
+	    }
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * Batch version of {@link #continuouslyMonitoredLookbackCallFixedStrike(double, double, double, double, double)}.
+	 */
+	public static void continuouslyMonitoredLookbackCallFixedStrike(
+	        double[] spotPrice, double[] riskFreeRate, double[] volatility, double[] maturity, double[] strike, double[] values) {
+
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    for (int i = 0; i < values.length; i++) {
+	        double discountFactor = Math.exp(-riskFreeRate[i] * maturity[i]);
+	        double valueFloatingPut = 0.0;
+	        if (maturity[i] > 0.0 && volatility[i] > 0.0) {
+	            valueFloatingPut = lookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i],
+	                    maturity[i], Math.max(spotPrice[i], strike[i]), Math.sqrt(maturity[i]), discountFactor);
+	        }
+	        else if (strike[i] > spotPrice[i]) {
+	            valueFloatingPut = lookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i],
+	                    maturity[i], strike[i]);
+	        }
+	        values[i] = valueFloatingPut + spotPrice[i] - strike[i] * discountFactor;
+	    }
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * Batch version of {@link #continuouslyMonitoredLookbackPutFixedStrike(double, double, double, double, double)}.
+	 */
+	public static void continuouslyMonitoredLookbackPutFixedStrike(
+	        double[] spotPrice, double[] riskFreeRate, double[] volatility, double[] maturity, double[] strike, double[] values) {
+
+	    long startTime = LookbackInstrumentation.getStartTime();
+	    for (int i = 0; i < values.length; i++) {
+	        double discountFactor = Math.exp(-riskFreeRate[i] * maturity[i]);
+	        double valueFloatingCall = 0.0;
+	        if (maturity[i] > 0.0 && volatility[i] > 0.0) {
+	            valueFloatingCall = lookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i],
+	                    maturity[i], Math.min(spotPrice[i], strike[i]), Math.sqrt(maturity[i]), discountFactor);
+	        }
+	        else if (strike[i] < spotPrice[i]) {
+	            valueFloatingCall = lookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i],
+	                    maturity[i], strike[i]);
+	        }
+	        values[i] = valueFloatingCall + strike[i] * discountFactor - spotPrice[i];
+	    }
+	    LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * Batch version of {@link #discretelyMonitoredLookbackPutFloatingStrike(double, double, double, double, int)}.
+	 */
+	public static void discretelyMonitoredLookbackPutFloatingStrike(double[] spotPrice, double[] riskFreeRate,
+			double[] volatility, double[] maturity, int[] numberOfFixingDates, double[] values) {
+
+		long startTime = LookbackInstrumentation.getStartTime();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = discreteLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i],
+					numberOfFixingDates[i], Math.sqrt(maturity[i]), Math.exp(-riskFreeRate[i]*maturity[i]));
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * Batch version of {@link #discretelyMonitoredLookbackCallFloatingStrike(double, double, double, double, int)}.
+	 */
+	public static void discretelyMonitoredLookbackCallFloatingStrike(double[] spotPrice, double[] riskFreeRate,
+			double[] volatility, double[] maturity, int[] numberOfFixingDates, double[] values) {
+
+		long startTime = LookbackInstrumentation.getStartTime();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = discreteLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i],
+					numberOfFixingDates[i], Math.sqrt(maturity[i]), Math.exp(-riskFreeRate[i]*maturity[i]));
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * Batch version of {@link #discretelyMonitoredLookbackCallFixedStrike(double, double, double, double, double, int)}.
+	 * The discount factor of every element is shared between the floating-strike put and the discounted strike.
+	 */
+	public static void discretelyMonitoredLookbackCallFixedStrike(double[] spotPrice, double[] riskFreeRate,
+			double[] volatility, double[] maturity, double[] strike, int[] numberOfFixings, double[] values) {
+
+		long startTime = LookbackInstrumentation.getStartTime();
+		for (int i = 0; i < values.length; i++) {
+			double discountFactor = Math.exp(-riskFreeRate[i]*maturity[i]);
+			double valueFloatingPut = discreteLookbackPutFloatingStrike(Math.max(spotPrice[i], strike[i]), riskFreeRate[i],
+					volatility[i], maturity[i], numberOfFixings[i], Math.sqrt(maturity[i]), discountFactor);
+			values[i] = valueFloatingPut + spotPrice[i] - discountFactor*strike[i];
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
+
+	/**
+	 * Batch version of {@link #discretelyMonitoredLookbackPutFixedStrike(double, double, double, double, double, int)}.
+	 */
+	public static void discretelyMonitoredLookbackPutFixedStrike(double[] spotPrice, double[] riskFreeRate,
+			double[] volatility, double[] maturity, double[] strike, int[] numberOfFixings, double[] values) {
+
+		long startTime = LookbackInstrumentation.getStartTime();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = discreteLookbackPutFloatingStrike(Math.max(spotPrice[i], strike[i]), riskFreeRate[i], volatility[i],
+					maturity[i], numberOfFixings[i], Math.sqrt(maturity[i]), Math.exp(-riskFreeRate[i]*maturity[i]));
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.ANALYTIC_FORMULA, startTime);
+	}
 	
 }
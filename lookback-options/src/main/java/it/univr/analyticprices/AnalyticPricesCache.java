@@ -0,0 +1,347 @@
+package it.univr.analyticprices;
+
+import it.univr.instrumentation.LookbackInstrumentation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe, bounded memoisation of the prices of {@link AnalyticPrices}, for services which price the same
+ * quotes many times from many threads. The methods have the names and the arguments of the ones of AnalyticPrices
+ * and return identical values.
+ *
+ * Only the floating-strike prices are stored: the fixed-strike prices are computed from them by the lookback
+ * parity, as AnalyticPrices does, so that a fixed-strike quote and the floating-strike quote it is made of share
+ * the same entry, and the fixed-strike quotes with different strikes share the floating-strike leg whenever the
+ * strike is below the running maximum (above the running minimum for the puts).
+ *
+ * The entries are spread by hash over segments, each one a least recently used map of its own behind its own lock,
+ * so that threads asking for different quotes rarely wait for each other. An entry is evicted when its segment is
+ * full and it is the least recently used one, or when it is older than the time to live. The prices are computed
+ * outside the locks, so that two threads missing the same quote at the same time may both compute it.
+ */
+public class AnalyticPricesCache {
+
+	private static final int NUMBER_OF_SEGMENTS = 16;
+
+	private enum PriceType {
+		CONTINUOUS_CALL_FLOATING_STRIKE,
+		CONTINUOUS_PUT_FLOATING_STRIKE,
+		DISCRETE_CALL_FLOATING_STRIKE,
+		DISCRETE_PUT_FLOATING_STRIKE
+	}
+
+	private final Segment[] segments;
+	private final long timeToLiveInNanoseconds;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder expirationCount = new LongAdder();
+
+	/**
+	 * @param maximumSize The maximum number of stored prices, i.e., of floating-strike legs.
+	 * @param timeToLiveInMilliseconds The time after which a stored price is computed again, non positive for never.
+	 */
+	public AnalyticPricesCache(int maximumSize, long timeToLiveInMilliseconds) {
+		if(maximumSize < NUMBER_OF_SEGMENTS) {
+			throw new IllegalArgumentException("The maximum size must be at least " + NUMBER_OF_SEGMENTS + ".");
+		}
+		this.segments = new Segment[NUMBER_OF_SEGMENTS];
+		for(int i = 0; i < NUMBER_OF_SEGMENTS; i++) {
+			segments[i] = new Segment(maximumSize / NUMBER_OF_SEGMENTS);
+		}
+		this.timeToLiveInNanoseconds = timeToLiveInMilliseconds > 0 ? timeToLiveInMilliseconds * 1000000L : Long.MAX_VALUE;
+	}
+
+	/**
+	 * The stored prices never expire.
+	 */
+	public AnalyticPricesCache(int maximumSize) {
+		this(maximumSize, 0);
+	}
+
+	public double continuouslyMonitoredLookbackCallFloatingStrike(double spotPrice, double riskFreeRate, double volatility, double maturity) {
+		return continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, spotPrice);
+	}
+
+	public double continuouslyMonitoredLookbackCallFloatingStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double runningMinimum) {
+		return getPrice(PriceType.CONTINUOUS_CALL_FLOATING_STRIKE, spotPrice, riskFreeRate, volatility, maturity,
+				Math.min(runningMinimum, spotPrice), 0);
+	}
+
+	public double continuouslyMonitoredLookbackPutFloatingStrike(double spotPrice, double riskFreeRate, double volatility, double maturity) {
+		return continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, spotPrice);
+	}
+
+	public double continuouslyMonitoredLookbackPutFloatingStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double runningMaximum) {
+		return getPrice(PriceType.CONTINUOUS_PUT_FLOATING_STRIKE, spotPrice, riskFreeRate, volatility, maturity,
+				Math.max(runningMaximum, spotPrice), 0);
+	}
+
+	public double continuouslyMonitoredLookbackCallFixedStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double strike) {
+		return continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, spotPrice);
+	}
+
+	/**
+	 * It returns the seasoned fixed-strike call from the floating-strike put leg, see
+	 * {@link AnalyticPrices#continuouslyMonitoredLookbackCallFixedStrike(double, double, double, double, double, double)}.
+	 */
+	public double continuouslyMonitoredLookbackCallFixedStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double strike, double runningMaximum) {
+		double sMaxStar = Math.max(Math.max(runningMaximum, spotPrice), strike);
+		double valueFloatingPut = continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, sMaxStar);
+		return valueFloatingPut + spotPrice - strike * Math.exp(-riskFreeRate*maturity);
+	}
+
+	public double continuouslyMonitoredLookbackPutFixedStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double strike) {
+		return continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, spotPrice);
+	}
+
+	/**
+	 * It returns the seasoned fixed-strike put from the floating-strike call leg, see
+	 * {@link AnalyticPrices#continuouslyMonitoredLookbackPutFixedStrike(double, double, double, double, double, double)}.
+	 */
+	public double continuouslyMonitoredLookbackPutFixedStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double strike, double runningMinimum) {
+		double sMinStar = Math.min(Math.min(runningMinimum, spotPrice), strike);
+		double valueFloatingCall = continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, sMinStar);
+		return valueFloatingCall + strike * Math.exp(-riskFreeRate*maturity) - spotPrice;
+	}
+
+	public double discretelyMonitoredLookbackPutFloatingStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			int numberOfFixingDates) {
+		return getPrice(PriceType.DISCRETE_PUT_FLOATING_STRIKE, spotPrice, riskFreeRate, volatility, maturity, Double.NaN, numberOfFixingDates);
+	}
+
+	public double discretelyMonitoredLookbackCallFloatingStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			int numberOfFixingDates) {
+		return getPrice(PriceType.DISCRETE_CALL_FLOATING_STRIKE, spotPrice, riskFreeRate, volatility, maturity, Double.NaN, numberOfFixingDates);
+	}
+
+	/**
+	 * It returns the discretely monitored fixed-strike call from the floating-strike leg, see
+	 * {@link AnalyticPrices#discretelyMonitoredLookbackCallFixedStrike(double, double, double, double, double, int)}.
+	 */
+	public double discretelyMonitoredLookbackCallFixedStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double strike, int numberOfFixings) {
+		double V = discretelyMonitoredLookbackPutFloatingStrike(Math.max(spotPrice, strike), riskFreeRate, volatility, maturity, numberOfFixings);
+		return V + spotPrice - Math.exp(-riskFreeRate*maturity)*strike;
+	}
+
+	/**
+	 * It returns the discretely monitored fixed-strike put from the floating-strike leg, see
+	 * {@link AnalyticPrices#discretelyMonitoredLookbackPutFixedStrike(double, double, double, double, double, int)}.
+	 */
+	public double discretelyMonitoredLookbackPutFixedStrike(double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double strike, int numberOfFixings) {
+		return discretelyMonitoredLookbackPutFloatingStrike(Math.max(spotPrice, strike), riskFreeRate, volatility, maturity, numberOfFixings);
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * It returns the number of entries removed because their segment was full.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * It returns the number of entries removed because they were older than the time to live.
+	 */
+	public long getExpirationCount() {
+		return expirationCount.sum();
+	}
+
+	/**
+	 * It returns the fraction of the requests of a stored price which found it, NaN before the first request.
+	 */
+	public double getHitRate() {
+		long hits = hitCount.sum();
+		long requests = hits + missCount.sum();
+		return requests == 0 ? Double.NaN : (double) hits / requests;
+	}
+
+	/**
+	 * It returns the number of stored prices.
+	 */
+	public int size() {
+		int size = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * It removes all the stored prices. The counters are kept.
+	 */
+	public void clear() {
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "AnalyticPricesCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", hitRate=" + getHitRate() + ", evictions=" + getEvictionCount() + ", expirations=" + getExpirationCount() + "]";
+	}
+
+	private double getPrice(PriceType priceType, double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double runningExtremum, int numberOfFixingDates) {
+
+		Key key = new Key(priceType, spotPrice, riskFreeRate, volatility, maturity, runningExtremum, numberOfFixingDates);
+		Segment segment = segments[(key.hashCode ^ (key.hashCode >>> 16)) & (NUMBER_OF_SEGMENTS - 1)];
+		// the clock is only read for a finite time to live, reading it costs as much as a hit
+		long now = timeToLiveInNanoseconds == Long.MAX_VALUE ? 0L : System.nanoTime();
+
+		synchronized(segment) {
+			CachedPrice cachedPrice = segment.get(key);
+			if(cachedPrice != null) {
+				if(now - cachedPrice.creationTime < timeToLiveInNanoseconds) {
+					hitCount.increment();
+					LookbackInstrumentation.recordCacheAccess("AnalyticPricesCache", true);
+					return cachedPrice.value;
+				}
+				segment.remove(key);
+				expirationCount.increment();
+			}
+		}
+
+		missCount.increment();
+		LookbackInstrumentation.recordCacheAccess("AnalyticPricesCache", false);
+		// the formula is timed by AnalyticPrices
+		double value = computePrice(priceType, spotPrice, riskFreeRate, volatility, maturity, runningExtremum, numberOfFixingDates);
+		synchronized(segment) {
+			segment.put(key, new CachedPrice(value, now));
+		}
+		return value;
+	}
+
+	private static double computePrice(PriceType priceType, double spotPrice, double riskFreeRate, double volatility, double maturity,
+			double runningExtremum, int numberOfFixingDates) {
+		switch(priceType) {
+		case CONTINUOUS_CALL_FLOATING_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, runningExtremum);
+		case CONTINUOUS_PUT_FLOATING_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, runningExtremum);
+		case DISCRETE_CALL_FLOATING_STRIKE:
+			return AnalyticPrices.discretelyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixingDates);
+		case DISCRETE_PUT_FLOATING_STRIKE:
+			return AnalyticPrices.discretelyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixingDates);
+		default:
+			throw new IllegalStateException("Unknown price type " + priceType);
+		}
+	}
+
+	/*
+	 * A least recently used map, which removes its eldest entry beyond the maximum size. It is only accessed under
+	 * its own lock.
+	 */
+	private final class Segment extends LinkedHashMap<Key, CachedPrice> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maximumSize;
+
+		Segment(int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, CachedPrice> eldest) {
+			if(size() > maximumSize) {
+				evictionCount.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/*
+	 * A stored price and the time it was computed at.
+	 */
+	private static final class CachedPrice {
+
+		private final double value;
+		private final long creationTime;
+
+		CachedPrice(double value, long creationTime) {
+			this.value = value;
+			this.creationTime = creationTime;
+		}
+	}
+
+	/*
+	 * The arguments of a floating-strike price, compared bit by bit, so that every stored price is the one of
+	 * exactly the same inputs.
+	 */
+	private static final class Key {
+
+		private final PriceType priceType;
+		private final long spotPrice;
+		private final long riskFreeRate;
+		private final long volatility;
+		private final long maturity;
+		private final long runningExtremum;
+		private final int numberOfFixingDates;
+		private final int hashCode;
+
+		Key(PriceType priceType, double spotPrice, double riskFreeRate, double volatility, double maturity, double runningExtremum,
+				int numberOfFixingDates) {
+			this.priceType = priceType;
+			this.spotPrice = Double.doubleToLongBits(spotPrice);
+			this.riskFreeRate = Double.doubleToLongBits(riskFreeRate);
+			this.volatility = Double.doubleToLongBits(volatility);
+			this.maturity = Double.doubleToLongBits(maturity);
+			this.runningExtremum = Double.doubleToLongBits(runningExtremum);
+			this.numberOfFixingDates = numberOfFixingDates;
+
+			long hash = priceType.ordinal();
+			hash = 31 * hash + this.spotPrice;
+			hash = 31 * hash + this.riskFreeRate;
+			hash = 31 * hash + this.volatility;
+			hash = 31 * hash + this.maturity;
+			hash = 31 * hash + this.runningExtremum;
+			hash = 31 * hash + numberOfFixingDates;
+			this.hashCode = (int) (hash ^ (hash >>> 32));
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if(this == object) {
+				return true;
+			}
+			if(!(object instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) object;
+			return priceType == other.priceType && spotPrice == other.spotPrice && riskFreeRate == other.riskFreeRate
+					&& volatility == other.volatility && maturity == other.maturity && runningExtremum == other.runningExtremum
+					&& numberOfFixingDates == other.numberOfFixingDates;
+		}
+	}
+}
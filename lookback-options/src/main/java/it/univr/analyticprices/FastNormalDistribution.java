@@ -0,0 +1,94 @@
+package it.univr.analyticprices;
+
+/**
+ * Allocation-free standard normal density and cumulative distribution function used by {@link AnalyticPrices}.
+ *
+ * The cumulative distribution function is the double precision algorithm of J. F. Hart, "Computer
+ * Approximations" (1968), in the form given by G. West, "Better approximations to cumulative normal functions"
+ * (2005): a rational function times exp(-x^2/2) for |x| &lt; 7.07 and a continued fraction beyond. Its maximum
+ * absolute error is below 1E-15 (2.2E-16 on a grid of step 1E-3 over [-40, 40]); the relative error in the lower
+ * tail is below 1E-8 for x &gt; -37, below which 0 is returned.
+ *
+ * The array version evaluates the rational function on the whole range, which keeps the same absolute error,
+ * and has no branch but the final choice of the tail, so that the loop can be compiled to vector instructions
+ * where the JIT supports it. The project targets Java 8, so the incubating Vector API is not used.
+ */
+public class FastNormalDistribution {
+
+	private static final double SQRT_OF_TWO_PI = Math.sqrt(2.0 * Math.PI);
+	private static final double ONE_OVER_SQRT_OF_TWO_PI = 1.0 / SQRT_OF_TWO_PI;
+	private static final double CUTOFF = 7.07106781186547;
+	private static final double UNDERFLOW = 37.0;
+
+	private FastNormalDistribution() {
+	}
+
+	/**
+	 * It returns the density of the standard normal distribution.
+	 */
+	public static double density(double x) {
+		return ONE_OVER_SQRT_OF_TWO_PI * Math.exp(-0.5 * x * x);
+	}
+
+	/**
+	 * It returns the cumulative distribution function of the standard normal distribution.
+	 */
+	public static double cumulativeDistribution(double x) {
+		double absoluteX = Math.abs(x);
+		double tail;
+		if(absoluteX > UNDERFLOW) {
+			tail = 0.0;
+		}
+		else if(absoluteX < CUTOFF) {
+			tail = Math.exp(-0.5 * absoluteX * absoluteX) * rationalFunction(absoluteX);
+		}
+		else {
+			double continuedFraction = absoluteX + 0.65;
+			continuedFraction = absoluteX + 4.0 / continuedFraction;
+			continuedFraction = absoluteX + 3.0 / continuedFraction;
+			continuedFraction = absoluteX + 2.0 / continuedFraction;
+			continuedFraction = absoluteX + 1.0 / continuedFraction;
+			tail = Math.exp(-0.5 * absoluteX * absoluteX) / continuedFraction / SQRT_OF_TWO_PI;
+		}
+		return x > 0.0 ? 1.0 - tail : tail;
+	}
+
+	/**
+	 * It writes the cumulative distribution function of x[i] in values[i].
+	 */
+	public static void cumulativeDistribution(double[] x, double[] values) {
+		for(int i = 0; i < values.length; i++) {
+			double absoluteX = Math.min(Math.abs(x[i]), UNDERFLOW);
+			double tail = Math.exp(-0.5 * absoluteX * absoluteX) * rationalFunction(absoluteX);
+			values[i] = x[i] > 0.0 ? 1.0 - tail : tail;
+		}
+	}
+
+	/**
+	 * It writes the density of x[i] in values[i].
+	 */
+	public static void density(double[] x, double[] values) {
+		for(int i = 0; i < values.length; i++) {
+			values[i] = ONE_OVER_SQRT_OF_TWO_PI * Math.exp(-0.5 * x[i] * x[i]);
+		}
+	}
+
+	private static double rationalFunction(double absoluteX) {
+		double numerator = 3.52624965998911E-02 * absoluteX + 0.700383064443688;
+		numerator = numerator * absoluteX + 6.37396220353165;
+		numerator = numerator * absoluteX + 33.912866078383;
+		numerator = numerator * absoluteX + 112.079291497871;
+		numerator = numerator * absoluteX + 221.213596169931;
+		numerator = numerator * absoluteX + 220.206867912376;
+
+		double denominator = 8.83883476483184E-02 * absoluteX + 1.75566716318264;
+		denominator = denominator * absoluteX + 16.064177579207;
+		denominator = denominator * absoluteX + 86.7807322029461;
+		denominator = denominator * absoluteX + 296.564248779674;
+		denominator = denominator * absoluteX + 637.333633378831;
+		denominator = denominator * absoluteX + 793.826512519948;
+		denominator = denominator * absoluteX + 440.413735824752;
+
+		return numerator / denominator;
+	}
+}
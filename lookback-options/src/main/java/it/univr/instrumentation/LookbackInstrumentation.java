@@ -0,0 +1,118 @@
+package it.univr.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The switch of the instrumentation of the valuations of it.univr.montecarlo and it.univr.analyticprices.
+ *
+ * The instrumentation is disabled until a {@link LookbackMetricsRegistry} is installed with
+ * {@link #setRegistry(LookbackMetricsRegistry)}. While disabled, an instrumented stage costs the read of a static
+ * field: the clock is not read and nothing is allocated. A stage is timed as
+ * <pre>
+ * long startTime = LookbackInstrumentation.getStartTime();
+ * ...
+ * LookbackInstrumentation.recordStage(LookbackStage.EXTREMUM, startTime);
+ * </pre>
+ * and a valuation, which also measures the bytes allocated by the thread, as
+ * <pre>
+ * LookbackValuationTimer timer = LookbackInstrumentation.startValuation();
+ * ...
+ * if(timer != null) {
+ *     timer.stop(productName, numberOfPaths);
+ * }
+ * </pre>
+ */
+public final class LookbackInstrumentation {
+
+	private static volatile LookbackMetricsRegistry registry;
+
+	private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBeanMeasuringAllocations();
+
+	private LookbackInstrumentation() {
+	}
+
+	/**
+	 * It installs the registry receiving the measurements, null to disable the instrumentation.
+	 */
+	public static void setRegistry(LookbackMetricsRegistry registry) {
+		LookbackInstrumentation.registry = registry;
+	}
+
+	public static LookbackMetricsRegistry getRegistry() {
+		return registry;
+	}
+
+	public static boolean isEnabled() {
+		return registry != null;
+	}
+
+	/**
+	 * It returns the start time of a stage, zero when the instrumentation is disabled.
+	 */
+	public static long getStartTime() {
+		return registry == null ? 0L : System.nanoTime();
+	}
+
+	/**
+	 * It records the stage started at the given time, unless the instrumentation was disabled when it started.
+	 */
+	public static void recordStage(LookbackStage stage, long startTime) {
+		LookbackMetricsRegistry currentRegistry = registry;
+		if(currentRegistry != null && startTime != 0L) {
+			currentRegistry.recordStage(stage, System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * It records a stage whose duration was accumulated by the caller, e.g., over the time steps of a simulation.
+	 */
+	public static void recordStageDuration(LookbackStage stage, long durationInNanoseconds) {
+		LookbackMetricsRegistry currentRegistry = registry;
+		if(currentRegistry != null) {
+			currentRegistry.recordStage(stage, durationInNanoseconds);
+		}
+	}
+
+	public static void recordCacheAccess(String cacheName, boolean isHit) {
+		LookbackMetricsRegistry currentRegistry = registry;
+		if(currentRegistry != null) {
+			currentRegistry.recordCacheAccess(cacheName, isHit);
+		}
+	}
+
+	/**
+	 * It returns the timer of a valuation on the current thread, null when the instrumentation is disabled.
+	 */
+	public static LookbackValuationTimer startValuation() {
+		LookbackMetricsRegistry currentRegistry = registry;
+		return currentRegistry == null ? null : new LookbackValuationTimer(currentRegistry, getAllocatedBytes());
+	}
+
+	/**
+	 * It returns the bytes allocated so far by the current thread, -1 if the JVM does not measure them.
+	 */
+	static long getAllocatedBytes() {
+		return THREAD_MX_BEAN == null ? -1L : THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/*
+	 * The allocated bytes are measured by the HotSpot extension of ThreadMXBean, which other JVMs may not have.
+	 */
+	private static com.sun.management.ThreadMXBean getThreadMXBeanMeasuringAllocations() {
+		try {
+			ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+			if(threadMXBean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean hotSpotThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+				if(hotSpotThreadMXBean.isThreadAllocatedMemorySupported()) {
+					hotSpotThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+					return hotSpotThreadMXBean;
+				}
+			}
+		}
+		catch(LinkageError | RuntimeException e) {
+			// the allocations are then reported as not measured
+		}
+		return null;
+	}
+}
@@ -0,0 +1,32 @@
+package it.univr.instrumentation;
+
+/**
+ * The receiver of the measurements of {@link LookbackInstrumentation}. An implementation is called from the pricing
+ * threads, so it has to be thread-safe and cheap: it should aggregate or hand over the measurements, not report
+ * them.
+ *
+ * See {@link SimpleMetricsRegistry} for in-memory aggregates, and JfrMetricsRegistry of the module
+ * lookback-options-jfr for JDK Flight Recorder events.
+ */
+public interface LookbackMetricsRegistry {
+
+	/**
+	 * It records the duration of one execution of a stage.
+	 */
+	void recordStage(LookbackStage stage, long durationInNanoseconds);
+
+	/**
+	 * It records a complete valuation.
+	 *
+	 * @param productName The simple name of the class of the product.
+	 * @param numberOfPaths The number of simulated paths, zero for a closed-form valuation.
+	 * @param durationInNanoseconds The duration of the valuation.
+	 * @param allocatedBytes The bytes allocated by the valuating thread, -1 if the JVM does not measure them.
+	 */
+	void recordValuation(String productName, long numberOfPaths, long durationInNanoseconds, long allocatedBytes);
+
+	/**
+	 * It records a lookup in a cache.
+	 */
+	void recordCacheAccess(String cacheName, boolean isHit);
+}
@@ -0,0 +1,39 @@
+package it.univr.instrumentation;
+
+/**
+ * The stages of a lookback valuation timed by {@link LookbackInstrumentation}.
+ */
+public enum LookbackStage {
+
+	/**
+	 * The simulation of the paths: the Brownian increments of the streaming pricer, the first request of the values
+	 * of the underlying of a finmath model, which generates its paths lazily.
+	 */
+	PATH_GENERATION,
+
+	/**
+	 * The monitoring times and their indices in the time discretization.
+	 */
+	MONITORING_TIMES,
+
+	/**
+	 * The running maxima and minima of the paths over the monitoring times.
+	 */
+	EXTREMUM,
+
+	/**
+	 * The payoffs of the paths from their extrema, discounted in the same loop by the products of it.univr.montecarlo.
+	 */
+	PAYOFF,
+
+	/**
+	 * The numeraires and the Monte Carlo weights by which the payoffs are discounted.
+	 */
+	DISCOUNTING,
+
+	/**
+	 * The closed-form prices of AnalyticPrices, one per call of its public methods, whoever calls them: a batch
+	 * method is one execution, a hit of the AnalyticPricesCache none.
+	 */
+	ANALYTIC_FORMULA
+}
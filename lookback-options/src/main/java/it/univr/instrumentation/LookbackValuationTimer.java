@@ -0,0 +1,27 @@
+package it.univr.instrumentation;
+
+/**
+ * The measurement of one valuation on one thread, see {@link LookbackInstrumentation#startValuation()}.
+ */
+public final class LookbackValuationTimer {
+
+	private final LookbackMetricsRegistry registry;
+	private final long startAllocatedBytes;
+	private final long startTime;
+
+	LookbackValuationTimer(LookbackMetricsRegistry registry, long startAllocatedBytes) {
+		this.registry = registry;
+		this.startAllocatedBytes = startAllocatedBytes;
+		this.startTime = System.nanoTime();
+	}
+
+	/**
+	 * It records the valuation to the registry installed when it started. It has to be called on the thread which
+	 * started it, for the allocated bytes to be those of the valuation.
+	 */
+	public void stop(String productName, long numberOfPaths) {
+		long durationInNanoseconds = System.nanoTime() - startTime;
+		long allocatedBytes = startAllocatedBytes < 0 ? -1L : LookbackInstrumentation.getAllocatedBytes() - startAllocatedBytes;
+		registry.recordValuation(productName, numberOfPaths, durationInNanoseconds, allocatedBytes);
+	}
+}
@@ -0,0 +1,148 @@
+package it.univr.instrumentation;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link LookbackMetricsRegistry} aggregating the measurements in memory: the number of executions and the total
+ * time by stage, the number of valuations with their paths, time and allocated bytes, and the hits and misses by
+ * cache. The aggregates are LongAdders, so that the pricing threads do not contend on them.
+ */
+public class SimpleMetricsRegistry implements LookbackMetricsRegistry {
+
+	private final LongAdder[] stageCounts = new LongAdder[LookbackStage.values().length];
+	private final LongAdder[] stageTimes = new LongAdder[LookbackStage.values().length];
+
+	private final LongAdder numberOfValuations = new LongAdder();
+	private final LongAdder numberOfPaths = new LongAdder();
+	private final LongAdder valuationTime = new LongAdder();
+	private final LongAdder allocatedBytes = new LongAdder();
+	private final LongAdder numberOfValuationsWithAllocatedBytes = new LongAdder();
+
+	private final Map<String, LongAdder[]> cacheAccesses = new ConcurrentHashMap<>();
+
+	public SimpleMetricsRegistry() {
+		for(int i = 0; i < stageCounts.length; i++) {
+			stageCounts[i] = new LongAdder();
+			stageTimes[i] = new LongAdder();
+		}
+	}
+
+	@Override
+	public void recordStage(LookbackStage stage, long durationInNanoseconds) {
+		stageCounts[stage.ordinal()].increment();
+		stageTimes[stage.ordinal()].add(durationInNanoseconds);
+	}
+
+	@Override
+	public void recordValuation(String productName, long numberOfPaths, long durationInNanoseconds, long allocatedBytes) {
+		numberOfValuations.increment();
+		this.numberOfPaths.add(numberOfPaths);
+		valuationTime.add(durationInNanoseconds);
+		if(allocatedBytes >= 0) {
+			this.allocatedBytes.add(allocatedBytes);
+			numberOfValuationsWithAllocatedBytes.increment();
+		}
+	}
+
+	@Override
+	public void recordCacheAccess(String cacheName, boolean isHit) {
+		LongAdder[] hitsAndMisses = cacheAccesses.get(cacheName);
+		if(hitsAndMisses == null) {
+			hitsAndMisses = cacheAccesses.computeIfAbsent(cacheName, name -> new LongAdder[] { new LongAdder(), new LongAdder() });
+		}
+		hitsAndMisses[isHit ? 0 : 1].increment();
+	}
+
+	public long getStageCount(LookbackStage stage) {
+		return stageCounts[stage.ordinal()].sum();
+	}
+
+	public long getStageTimeInNanoseconds(LookbackStage stage) {
+		return stageTimes[stage.ordinal()].sum();
+	}
+
+	public long getNumberOfValuations() {
+		return numberOfValuations.sum();
+	}
+
+	public long getNumberOfPaths() {
+		return numberOfPaths.sum();
+	}
+
+	public long getValuationTimeInNanoseconds() {
+		return valuationTime.sum();
+	}
+
+	/**
+	 * It returns the simulated paths per second of valuation time, summed over the threads.
+	 */
+	public double getPathsPerSecond() {
+		long time = valuationTime.sum();
+		return time == 0 ? Double.NaN : numberOfPaths.sum() / (time / 1E9);
+	}
+
+	/**
+	 * It returns the average bytes allocated by a valuation, NaN if the JVM does not measure them.
+	 */
+	public double getAllocatedBytesPerValuation() {
+		long valuations = numberOfValuationsWithAllocatedBytes.sum();
+		return valuations == 0 ? Double.NaN : allocatedBytes.sum() / (double) valuations;
+	}
+
+	public long getCacheHitCount(String cacheName) {
+		LongAdder[] hitsAndMisses = cacheAccesses.get(cacheName);
+		return hitsAndMisses == null ? 0 : hitsAndMisses[0].sum();
+	}
+
+	public long getCacheMissCount(String cacheName) {
+		LongAdder[] hitsAndMisses = cacheAccesses.get(cacheName);
+		return hitsAndMisses == null ? 0 : hitsAndMisses[1].sum();
+	}
+
+	/**
+	 * It returns the fraction of the lookups in the cache which were hits, NaN before the first lookup.
+	 */
+	public double getCacheHitRate(String cacheName) {
+		long hits = getCacheHitCount(cacheName);
+		long lookups = hits + getCacheMissCount(cacheName);
+		return lookups == 0 ? Double.NaN : hits / (double) lookups;
+	}
+
+	/**
+	 * It clears all the aggregates.
+	 */
+	public void reset() {
+		for(int i = 0; i < stageCounts.length; i++) {
+			stageCounts[i].reset();
+			stageTimes[i].reset();
+		}
+		numberOfValuations.reset();
+		numberOfPaths.reset();
+		valuationTime.reset();
+		allocatedBytes.reset();
+		numberOfValuationsWithAllocatedBytes.reset();
+		cacheAccesses.clear();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, "valuations %d, paths %d, %.3f ms, %.0f paths/s, %.0f bytes allocated per valuation%n",
+				getNumberOfValuations(), getNumberOfPaths(), getValuationTimeInNanoseconds() / 1E6, getPathsPerSecond(),
+				getAllocatedBytesPerValuation()));
+		for(LookbackStage stage : LookbackStage.values()) {
+			if(getStageCount(stage) > 0) {
+				report.append(String.format(Locale.ROOT, "  %-16s %8d x %12.3f ms%n", stage, getStageCount(stage),
+						getStageTimeInNanoseconds(stage) / 1E6));
+			}
+		}
+		for(String cacheName : cacheAccesses.keySet()) {
+			report.append(String.format(Locale.ROOT, "  cache %s: hits %d, misses %d, hit rate %.4f%n", cacheName,
+					getCacheHitCount(cacheName), getCacheMissCount(cacheName), getCacheHitRate(cacheName)));
+		}
+		return report.toString();
+	}
+}
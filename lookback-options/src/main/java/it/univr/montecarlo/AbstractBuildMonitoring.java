@@ -1,15 +1,43 @@
 package it.univr.montecarlo;
 
+import it.univr.analyticprices.AnalyticPrices;
+import it.univr.instrumentation.LookbackInstrumentation;
+import it.univr.instrumentation.LookbackStage;
+import it.univr.instrumentation.LookbackValuationTimer;
+
 import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.MonteCarloSimulationModel;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
 import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
 import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.time.TimeDiscretization;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 public abstract class AbstractBuildMonitoring extends AbstractAssetMonteCarloProduct {
 	
 	
 	private int discretelyTimes;
+	private boolean isBrownianBridgeSampling;
+	
+	/*
+	 * The state of a seasoned lookback: the extrema observed before the first time of the model and the number of
+	 * fixings already observed.
+	 */
+	private double runningMaximum = Double.NEGATIVE_INFINITY;
+	private double runningMinimum = Double.POSITIVE_INFINITY;
+	private int numberOfElapsedFixings;
+	
+	/*
+	 * The monitoring time indices by time discretization. The keys are weak, so an entry goes away with the last
+	 * model using its time discretization.
+	 */
+	private final Map<TimeDiscretization, int[]> monitoringTimeIndicesCache = Collections.synchronizedMap(new WeakHashMap<>());
 
 	
 	public AbstractBuildMonitoring(int discretelyTimes) {
@@ -18,12 +46,169 @@ public abstract class AbstractBuildMonitoring extends AbstractAssetMonteCarloPro
 	
 	}
 	
+	/**
+	 * With isBrownianBridgeSampling true, a continuously monitored lookback (discretelyTimes equal to zero) samples
+	 * the extrema of the Brownian bridge between the times of the model, see {@link BrownianBridgeExtremum}.
+	 * This removes the bias of the discrete sampling under Black-Scholes, so that coarse time discretizations can
+	 * be used.
+	 */
+	public AbstractBuildMonitoring(int discretelyTimes, boolean isBrownianBridgeSampling) {
+		
+		if(isBrownianBridgeSampling && discretelyTimes != 0) {
+			throw new IllegalArgumentException("Brownian bridge sampling is only available for continuous monitoring.");
+		}
+		this.discretelyTimes = discretelyTimes;
+		this.isBrownianBridgeSampling = isBrownianBridgeSampling;
+	
+	}
+	
+	public boolean isBrownianBridgeSampling() {
+		return isBrownianBridgeSampling;
+	}
+	
+	
+	public int getNumberOfFixings() {
+		return discretelyTimes;
+	}
+	
+	public abstract double getMaturity();
+	
+	public abstract int getUnderlyingIndex();
+	
+	public abstract LookbackType getLookbackType();
+	
+	/**
+	 * It returns the strike of the lookback, or NaN for the floating-strike ones.
+	 */
+	public double getStrike() {
+		return Double.NaN;
+	}
+	
+	/**
+	 * It returns the largest value of the underlying observed before the first time of the model, or minus
+	 * infinity for a lookback starting at the first time of the model.
+	 */
+	public double getRunningMaximum() {
+		return runningMaximum;
+	}
+	
+	/**
+	 * It returns the smallest value of the underlying observed before the first time of the model, or infinity
+	 * for a lookback starting at the first time of the model.
+	 */
+	public double getRunningMinimum() {
+		return runningMinimum;
+	}
+	
+	public int getNumberOfElapsedFixings() {
+		return numberOfElapsedFixings;
+	}
+	
+	/**
+	 * It returns true if part of the life of the lookback is already over, i.e., if it has observed extrema or
+	 * elapsed fixings.
+	 */
+	public boolean isSeasoned() {
+		return numberOfElapsedFixings > 0 || runningMaximum != Double.NEGATIVE_INFINITY || runningMinimum != Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * It returns the same lookback with a different maturity, used to move the lookback forward in time.
+	 */
+	protected abstract AbstractBuildMonitoring getCloneWithModifiedMaturity(double maturity);
+	
+	/**
+	 * It returns a seasoned copy of this lookback, whose maturity is the remaining time to maturity, with the
+	 * given extrema observed so far and, for a discretely monitored lookback, the number of its discretelyTimes + 1
+	 * fixings already observed, the first of them at inception.
+	 *
+	 * The first time of the model is the valuation date, which for a discretely monitored lookback is the date of
+	 * its last elapsed fixing: the remaining fixings are equally spaced over the time discretization of the model,
+	 * which is assumed to end at maturity, from its second time on.
+	 */
+	public AbstractBuildMonitoring getCloneWithRunningExtremum(double runningMaximum, double runningMinimum, int numberOfElapsedFixings) {
+		
+		if(numberOfElapsedFixings < 0 || (numberOfElapsedFixings > 0 && numberOfElapsedFixings > discretelyTimes)) {
+			throw new IllegalArgumentException("The number of elapsed fixings must be between 0 and the number of fixings, "
+					+ "the fixing at maturity being still to come.");
+		}
+		AbstractBuildMonitoring clone = getCloneWithModifiedMaturity(getMaturity());
+		clone.runningMaximum = runningMaximum;
+		clone.runningMinimum = runningMinimum;
+		clone.numberOfElapsedFixings = numberOfElapsedFixings;
+		return clone;
+	}
+	
+	/**
+	 * It returns this discretely monitored lookback after the next fixing, with the given value: the running
+	 * extrema are updated and the maturity is reduced by the time to that fixing, so that only the remaining
+	 * horizon has to be simulated. The next fixing of a lookback which has not started yet is the one at inception.
+	 */
+	public AbstractBuildMonitoring getCloneWithNewFixing(double fixing) {
+		
+		if(discretelyTimes == 0) {
+			throw new IllegalStateException("A continuously monitored lookback has no fixings, see getCloneWithElapsedTime.");
+		}
+		int numberOfRemainingFixings = discretelyTimes + 1 - numberOfElapsedFixings;
+		if(numberOfRemainingFixings == 1) {
+			throw new IllegalStateException("The next fixing is at maturity, where the lookback expires.");
+		}
+		double timeToNextFixing = numberOfElapsedFixings == 0 ? 0.0 : getMaturity() / numberOfRemainingFixings;
+		AbstractBuildMonitoring clone = getCloneWithModifiedMaturity(getMaturity() - timeToNextFixing);
+		clone.runningMaximum = Math.max(runningMaximum, fixing);
+		clone.runningMinimum = Math.min(runningMinimum, fixing);
+		clone.numberOfElapsedFixings = numberOfElapsedFixings + 1;
+		return clone;
+	}
+	
+	/**
+	 * It returns this continuously monitored lookback after the given time, over which the underlying had the
+	 * given largest and smallest values: the running extrema are updated and the maturity is reduced by the
+	 * elapsed time.
+	 */
+	public AbstractBuildMonitoring getCloneWithElapsedTime(double elapsedTime, double maximumOverElapsedTime, double minimumOverElapsedTime) {
+		
+		if(discretelyTimes != 0) {
+			throw new IllegalStateException("A discretely monitored lookback moves forward by fixings, see getCloneWithNewFixing.");
+		}
+		if(elapsedTime < 0 || elapsedTime >= getMaturity()) {
+			throw new IllegalArgumentException("The elapsed time must be non negative and before maturity.");
+		}
+		AbstractBuildMonitoring clone = getCloneWithModifiedMaturity(getMaturity() - elapsedTime);
+		clone.runningMaximum = Math.max(runningMaximum, maximumOverElapsedTime);
+		clone.runningMinimum = Math.min(runningMinimum, minimumOverElapsedTime);
+		return clone;
+	}
+	
 	
 	protected double[] buildMonitoringTimes(AssetModelMonteCarloSimulationModel model) {
 		
+		long startTime = LookbackInstrumentation.getStartTime();
+		double[] monitoringTimes = buildMonitoringTimes(model.getTimeDiscretization(), discretelyTimes, numberOfElapsedFixings);
+		LookbackInstrumentation.recordStage(LookbackStage.MONITORING_TIMES, startTime);
+		return monitoringTimes;
+	}
+	
+	/**
+	 * It returns the monitoring times of a discretely monitored lookback with the given number of elapsed
+	 * fixings: the remaining discretelyTimes + 1 - numberOfElapsedFixings fixings equally spaced over the time
+	 * discretization, without its first time, which is the date of the last elapsed fixing.
+	 */
+	static double[] buildMonitoringTimes(TimeDiscretization td, int discretelyTimes, int numberOfElapsedFixings) {
 		
+		if(discretelyTimes == 0 || numberOfElapsedFixings == 0) {
+			return buildMonitoringTimes(td, discretelyTimes);
+		}
+		double[] times = buildMonitoringTimes(td, discretelyTimes + 1 - numberOfElapsedFixings);
+		return Arrays.copyOfRange(times, 1, times.length);
+	}
+	
+	/**
+	 * It returns the monitoring times for the given number of fixings: all the times of the time discretization
+	 * if discretelyTimes is zero, otherwise discretelyTimes + 1 equally spaced indices of it.
+	 */
+	static double[] buildMonitoringTimes(TimeDiscretization td, int discretelyTimes) {
 		
-		TimeDiscretization td = model.getTimeDiscretization();
         if (discretelyTimes == 0) {
             double[] times = new double[td.getNumberOfTimes()];
             for (int i = 0; i < td.getNumberOfTimes(); i++) {
@@ -41,32 +226,622 @@ public abstract class AbstractBuildMonitoring extends AbstractAssetMonteCarloPro
 	
 	
 	
-	protected RandomVariable getMax(double[] discretizedTimes, double maturity, int underlyingIndex, AssetModelMonteCarloSimulationModel model) 
-			throws CalculationException {
+	/**
+	 * It returns the indices of the time discretization of the monitoring times for the given number of fixings,
+	 * where monitoring times after maturity are moved to maturity.
+	 */
+	static int[] getMonitoringTimeIndices(TimeDiscretization td, int discretelyTimes, double maturity) {
+		
+		return getMonitoringTimeIndices(td, discretelyTimes, 0, maturity);
+	}
+	
+	/**
+	 * It returns the indices of the time discretization of the remaining monitoring times of a lookback with the
+	 * given number of elapsed fixings, see {@link #buildMonitoringTimes(TimeDiscretization, int, int)}.
+	 */
+	static int[] getMonitoringTimeIndices(TimeDiscretization td, int discretelyTimes, int numberOfElapsedFixings, double maturity) {
+		
+		double[] times = buildMonitoringTimes(td, discretelyTimes, numberOfElapsedFixings);
+		int[] timeIndices = new int[times.length];
+		for(int i = 0; i < times.length; i++) {
+			timeIndices[i] = td.getTimeIndexNearestLessOrEqual(Math.min(times[i], maturity));
+		}
+		return timeIndices;
+	}
+	
+	/**
+	 * It returns the indices of the time discretization of the model of the monitoring times of this lookback.
+	 *
+	 * They are resolved once per time discretization and cached, so revaluing the product on the same time
+	 * discretization neither rebuilds the monitoring times nor searches the time discretization again. The
+	 * returned array is shared and must not be modified.
+	 */
+	protected int[] getMonitoringTimeIndices(AssetModelMonteCarloSimulationModel model) {
+		
+		TimeDiscretization modelTimeDiscretization = model.getTimeDiscretization();
+		if(LookbackInstrumentation.isEnabled()) {
+			LookbackInstrumentation.recordCacheAccess("monitoringTimeIndices", monitoringTimeIndicesCache.containsKey(modelTimeDiscretization));
+		}
+		return monitoringTimeIndicesCache.computeIfAbsent(modelTimeDiscretization, timeDiscretization -> {
+			long startTime = LookbackInstrumentation.getStartTime();
+			int[] timeIndices = getMonitoringTimeIndices(timeDiscretization, discretelyTimes, numberOfElapsedFixings, getMaturity());
+			LookbackInstrumentation.recordStage(LookbackStage.MONITORING_TIMES, startTime);
+			return timeIndices;
+		});
+	}
+	
+	/**
+	 * It returns the running maximum, the running minimum and the value at maturity of every path over the
+	 * monitoring times of this lookback, reading the values of the underlying by time index.
+	 */
+	protected PathExtremum getPathExtremum(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		
+		if(isBrownianBridgeSampling) {
+			return getPathExtremum(buildMonitoringTimes(model), getMaturity(), getUnderlyingIndex(), model);
+		}
+		
+		int underlyingIndex = getUnderlyingIndex();
+		int numberOfPaths = model.getNumberOfPaths();
+		double[] maximum = new double[numberOfPaths];
+		double[] minimum = new double[numberOfPaths];
+		Arrays.fill(maximum, runningMaximum);
+		Arrays.fill(minimum, runningMinimum);
+		
+		// the values of the underlying are timed apart from the scan, since the model generates its paths on demand
+		long startTime = LookbackInstrumentation.getStartTime();
+		long pathGenerationTime = 0L;
+		for(int timeIndex : getMonitoringTimeIndices(model)) {
+			long startOfPathGeneration = startTime != 0L ? System.nanoTime() : 0L;
+			RandomVariable realizationAtCurrentTime = model.getAssetValue(timeIndex, underlyingIndex);
+			if(startTime != 0L) {
+				pathGenerationTime += System.nanoTime() - startOfPathGeneration;
+			}
+			for(int path = 0; path < numberOfPaths; path++) {
+				double value = realizationAtCurrentTime.get(path);
+				if(value > maximum[path]) {
+					maximum[path] = value;
+				}
+				if(value < minimum[path]) {
+					minimum[path] = value;
+				}
+			}
+		}
+		recordPathScan(startTime, pathGenerationTime);
+		
+		RandomVariable finalValue = model.getAssetValue(model.getTimeIndex(getMaturity()), underlyingIndex);
+		double[] terminalValue = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			terminalValue[path] = finalValue.get(path);
+		}
 		
-		RandomVariable maxValue = model.getRandomVariableForConstant(0.0);
+		return new PathExtremum(getMaturity(), maximum, minimum, terminalValue);
+	}
+	
+	/**
+	 * It scans the monitoring times once and returns, for every path, the running maximum, the running minimum
+	 * and the value of the underlying at maturity.
+	 *
+	 * The extrema are updated in place on primitive arrays, so no random variable is created per monitoring time.
+	 */
+	protected PathExtremum getPathExtremum(double[] discretizedTimes, double maturity, int underlyingIndex, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+
+		if(isBrownianBridgeSampling) {
+			PathExtremum pathExtremum = BrownianBridgeExtremum.getPathExtremum(discretizedTimes, maturity, underlyingIndex, model,
+					getVolatility(model));
+			pathExtremum.applyRunningExtremum(runningMaximum, runningMinimum);
+			return pathExtremum;
+		}
+
+		int numberOfPaths = model.getNumberOfPaths();
+		double[] maximum = new double[numberOfPaths];
+		double[] minimum = new double[numberOfPaths];
+		Arrays.fill(maximum, runningMaximum);
+		Arrays.fill(minimum, runningMinimum);
+
+		long startTime = LookbackInstrumentation.getStartTime();
+		long pathGenerationTime = 0L;
 		for(double currentTime : discretizedTimes) {
-			
+
 			currentTime = Math.min(currentTime, maturity);
+			long startOfPathGeneration = startTime != 0L ? System.nanoTime() : 0L;
 			RandomVariable realizationAtCurrentTime = model.getAssetValue(currentTime, underlyingIndex);
-			maxValue = maxValue.floor(realizationAtCurrentTime);
+			if(startTime != 0L) {
+				pathGenerationTime += System.nanoTime() - startOfPathGeneration;
+			}
+			for(int path = 0; path < numberOfPaths; path++) {
+				double value = realizationAtCurrentTime.get(path);
+				if(value > maximum[path]) {
+					maximum[path] = value;
+				}
+				if(value < minimum[path]) {
+					minimum[path] = value;
+				}
+			}
+		}
+		recordPathScan(startTime, pathGenerationTime);
+
+		RandomVariable finalValue = model.getAssetValue(model.getTimeIndex(maturity), underlyingIndex);
+		double[] terminalValue = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			terminalValue[path] = finalValue.get(path);
+		}
+
+		return new PathExtremum(maturity, maximum, minimum, terminalValue);
+	}
+
+	private static void recordPathScan(long startTime, long pathGenerationTime) {
+		
+		if(startTime != 0L) {
+			LookbackInstrumentation.recordStageDuration(LookbackStage.PATH_GENERATION, pathGenerationTime);
+			LookbackInstrumentation.recordStageDuration(LookbackStage.EXTREMUM, System.nanoTime() - startTime - pathGenerationTime);
+		}
+	}
+	
+	/**
+	 * It returns the payoffs of the paths, divided by the numeraire and multiplied by the Monte Carlo weights at
+	 * maturity, i.e., discounted to time zero, and then brought to the evaluation time.
+	 *
+	 * The payoff and the four operations of the discounting are fused into one loop over the paths, so the only
+	 * random variable created is the result, instead of one per operation.
+	 */
+	protected RandomVariable getDiscountedPayoffs(double evaluationTime, AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		
+		PathExtremum pathExtremum = getPathExtremum(model);
+		double maturity = getMaturity();
+		
+		long startTime = LookbackInstrumentation.getStartTime();
+		final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
+		final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
+		final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
+		final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
+		LookbackInstrumentation.recordStage(LookbackStage.DISCOUNTING, startTime);
+		
+		startTime = LookbackInstrumentation.getStartTime();
+		LookbackType lookbackType = getLookbackType();
+		double strike = getStrike();
+		int numberOfPaths = pathExtremum.getNumberOfPaths();
+		double[] discountedPayoffs = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			double payoff = lookbackType.getPayoff(pathExtremum.getMaximum(path), pathExtremum.getMinimum(path),
+					pathExtremum.getTerminalValue(path), strike);
+			discountedPayoffs[path] = payoff / numeraireAtMaturity.get(path) * monteCarloWeights.get(path)
+					* numeraireAtEvalTime.get(path) / monteCarloWeightsAtEvalTime.get(path);
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.PAYOFF, startTime);
+		
+		return new RandomVariableFromDoubleArray(pathExtremum.getMaturity(), discountedPayoffs);
+	}
+	
+	/**
+	 * It returns the value at time zero, i.e., the average of {@link #getDiscountedPayoffs(double, AssetModelMonteCarloSimulationModel)}
+	 * at evaluation time zero, summing the discounted payoffs in the loop over the paths without storing them.
+	 */
+	@Override
+	public double getValue(MonteCarloSimulationModel model) throws CalculationException {
+		
+		if(!(model instanceof AssetModelMonteCarloSimulationModel)) {
+			return super.getValue(model);
+		}
+		LookbackValuationTimer valuationTimer = LookbackInstrumentation.startValuation();
+		AssetModelMonteCarloSimulationModel assetModel = (AssetModelMonteCarloSimulationModel) model;
+		PathExtremum pathExtremum = getPathExtremum(assetModel);
+		double maturity = getMaturity();
+		
+		long startTime = LookbackInstrumentation.getStartTime();
+		final RandomVariable numeraireAtMaturity = assetModel.getNumeraire(maturity);
+		final RandomVariable monteCarloWeights = assetModel.getMonteCarloWeights(maturity);
+		final RandomVariable numeraireAtEvalTime = assetModel.getNumeraire(0.0);
+		final RandomVariable monteCarloWeightsAtEvalTime = assetModel.getMonteCarloWeights(0.0);
+		LookbackInstrumentation.recordStage(LookbackStage.DISCOUNTING, startTime);
+		
+		// the sum is compensated, as the average of a random variable is
+		startTime = LookbackInstrumentation.getStartTime();
+		LookbackType lookbackType = getLookbackType();
+		double strike = getStrike();
+		int numberOfPaths = pathExtremum.getNumberOfPaths();
+		double sum = 0.0;
+		double error = 0.0;
+		for(int path = 0; path < numberOfPaths; path++) {
+			double payoff = lookbackType.getPayoff(pathExtremum.getMaximum(path), pathExtremum.getMinimum(path),
+					pathExtremum.getTerminalValue(path), strike);
+			double value = payoff / numeraireAtMaturity.get(path) * monteCarloWeights.get(path)
+					* numeraireAtEvalTime.get(path) / monteCarloWeightsAtEvalTime.get(path) - error;
+			double newSum = sum + value;
+			error = (newSum - sum) - value;
+			sum = newSum;
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.PAYOFF, startTime);
+		
+		if(valuationTimer != null) {
+			valuationTimer.stop(getClass().getSimpleName(), numberOfPaths);
+		}
+		return sum / numberOfPaths;
+	}
+	
+	/**
+	 * It values the lookback as the superclass does, recording the valuation when the instrumentation is enabled,
+	 * see {@link LookbackInstrumentation}.
+	 */
+	@Override
+	public RandomVariable getValue(double evaluationTime, MonteCarloSimulationModel model) throws CalculationException {
+		
+		LookbackValuationTimer valuationTimer = LookbackInstrumentation.startValuation();
+		RandomVariable values = super.getValue(evaluationTime, model);
+		if(valuationTimer != null) {
+			valuationTimer.stop(getClass().getSimpleName(), model.getNumberOfPaths());
+		}
+		return values;
+	}
+
+	/**
+	 * It values the lookback at time zero with a control variate whose value is known in closed form.
+	 *
+	 * The control is the same lookback monitored continuously, simulated on the paths of the model with the
+	 * Brownian bridge between its times and valued by {@link AnalyticPrices}. For a lookback which already samples
+	 * the Brownian bridge the control is the discounted value of the underlying at maturity, whose expectation is
+	 * the spot price. The coefficient of the control is estimated by regression on the same paths.
+	 *
+	 * @param model A Black-Scholes model.
+	 */
+	public ControlVariateResult getValueWithControlVariate(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		
+		double maturity = getMaturity();
+		int underlyingIndex = getUnderlyingIndex();
+		double volatility = getVolatility(model);
+		double riskFreeRate = ((MonteCarloBlackScholesModel) model).getRiskFreeRate();
+		double spotPrice = model.getAssetValue(0, underlyingIndex).get(0);
+		
+		PathExtremum pathExtremum = getPathExtremum(model);
+		
+		PathExtremum controlPathExtremum;
+		double controlExpectation;
+		if(isBrownianBridgeSampling) {
+			controlPathExtremum = null;
+			controlExpectation = spotPrice;
+		}
+		else {
+			controlPathExtremum = BrownianBridgeExtremum.getPathExtremum(buildMonitoringTimes(model.getTimeDiscretization(), 0),
+					maturity, underlyingIndex, model, volatility);
+			controlPathExtremum.applyRunningExtremum(runningMaximum, runningMinimum);
+			controlExpectation = getLookbackType().getContinuouslyMonitoredAnalyticValue(spotPrice, riskFreeRate, volatility, maturity,
+					getStrike(), runningMaximum, runningMinimum);
+		}
+		
+		final RandomVariable discounting = model.getMonteCarloWeights(maturity).div(model.getNumeraire(maturity))
+				.mult(model.getNumeraire(0.0)).div(model.getMonteCarloWeights(0.0));
+		
+		int numberOfPaths = model.getNumberOfPaths();
+		double[] values = new double[numberOfPaths];
+		double[] controls = new double[numberOfPaths];
+		double meanOfValues = 0.0;
+		double meanOfControls = 0.0;
+		for(int path = 0; path < numberOfPaths; path++) {
+			values[path] = getLookbackType().getPayoff(pathExtremum.getMaximum(path), pathExtremum.getMinimum(path),
+					pathExtremum.getTerminalValue(path), getStrike()) * discounting.get(path);
+			controls[path] = (controlPathExtremum == null ? pathExtremum.getTerminalValue(path)
+					: getLookbackType().getPayoff(controlPathExtremum.getMaximum(path), controlPathExtremum.getMinimum(path),
+							controlPathExtremum.getTerminalValue(path), getStrike())) * discounting.get(path);
+			meanOfValues += values[path];
+			meanOfControls += controls[path];
+		}
+		meanOfValues /= numberOfPaths;
+		meanOfControls /= numberOfPaths;
+		
+		double varianceOfValues = 0.0;
+		double varianceOfControls = 0.0;
+		double covariance = 0.0;
+		for(int path = 0; path < numberOfPaths; path++) {
+			double valueDeviation = values[path] - meanOfValues;
+			double controlDeviation = controls[path] - meanOfControls;
+			varianceOfValues += valueDeviation * valueDeviation;
+			varianceOfControls += controlDeviation * controlDeviation;
+			covariance += valueDeviation * controlDeviation;
+		}
+		
+		double coefficient = varianceOfControls > 0.0 ? covariance / varianceOfControls : 0.0;
+		double varianceOfCorrectedValues = (varianceOfValues - coefficient * covariance) / (numberOfPaths - 1);
+		varianceOfValues /= numberOfPaths - 1;
+		
+		double value = meanOfValues - coefficient * (meanOfControls - controlExpectation);
+		double standardError = Math.sqrt(Math.max(varianceOfCorrectedValues, 0.0) / numberOfPaths);
+		double varianceReductionFactor = varianceOfValues / varianceOfCorrectedValues;
+		
+		return new ControlVariateResult(value, standardError, coefficient, varianceReductionFactor);
+	}
+
+	/**
+	 * It returns the value at time zero of the lookback and its delta, gamma and vega, all estimated on the paths
+	 * of the model in a single pass, so that no model has to be rebuilt to bump the spot price or the volatility.
+	 *
+	 * Under Black-Scholes every value of the underlying is S(t) = S(0) exp((r - sigma^2/2) t + sigma W(t)), so
+	 * the running extremum moves with the value at its argmax time t*: dS(t*)/dS(0) = S(t*)/S(0) and
+	 * dS(t*)/dsigma = S(t*) (W(t*) - sigma t*). Delta and vega are the pathwise derivatives of the payoff through
+	 * the maximum, the minimum and the value at maturity. The pathwise delta is discontinuous for the
+	 * fixed-strike payoffs, so gamma is the likelihood-ratio derivative of it with respect to the first time step,
+	 * D (Z_1 / (S(0) sigma sqrt(dt_1)) - 1 / S(0)), plus the pathwise term of the paths whose extremum is the
+	 * fixing at time zero.
+	 *
+	 * @param model A Black-Scholes model.
+	 */
+	public LookbackGreeks getGreeks(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		
+		if(isBrownianBridgeSampling) {
+			throw new IllegalArgumentException("Brownian bridge sampling is not supported by the pathwise Greeks.");
+		}
+		if(isSeasoned()) {
+			throw new IllegalArgumentException("Seasoned lookbacks are not supported by the pathwise Greeks.");
+		}
+		
+		double maturity = getMaturity();
+		int underlyingIndex = getUnderlyingIndex();
+		double strike = getStrike();
+		LookbackType lookbackType = getLookbackType();
+		double volatility = getVolatility(model);
+		double riskFreeRate = ((MonteCarloBlackScholesModel) model).getRiskFreeRate();
+		TimeDiscretization timeDiscretization = model.getTimeDiscretization();
+		
+		int numberOfPaths = model.getNumberOfPaths();
+		double[] maximum = new double[numberOfPaths];
+		double[] minimum = new double[numberOfPaths];
+		int[] maximumTimeIndex = new int[numberOfPaths];
+		int[] minimumTimeIndex = new int[numberOfPaths];
+		getExtremumTimeIndices(model, maximum, minimum, maximumTimeIndex, minimumTimeIndex);
+		
+		int maturityIndex = model.getTimeIndex(maturity);
+		RandomVariable finalValue = model.getAssetValue(maturityIndex, underlyingIndex);
+		RandomVariable valueAfterFirstStep = model.getAssetValue(1, underlyingIndex);
+		double spotPrice = model.getAssetValue(0, underlyingIndex).get(0);
+		double firstTimeStep = timeDiscretization.getTimeStep(0);
+		
+		final RandomVariable discounting = model.getMonteCarloWeights(maturity).div(model.getNumeraire(maturity))
+				.mult(model.getNumeraire(0.0)).div(model.getMonteCarloWeights(0.0));
+		
+		double[] sums = new double[4];
+		double[] sumsOfSquares = new double[4];
+		double[] estimates = new double[4];
+		for(int path = 0; path < numberOfPaths; path++) {
+			double terminalValue = finalValue.get(path);
+			double discountFactor = discounting.get(path);
+			double derivativeWithRespectToMaximum = lookbackType.getPayoffDerivativeWithRespectToMaximum(maximum[path], minimum[path], terminalValue, strike);
+			double derivativeWithRespectToMinimum = lookbackType.getPayoffDerivativeWithRespectToMinimum(maximum[path], minimum[path], terminalValue, strike);
+			double derivativeWithRespectToTerminalValue = lookbackType.getPayoffDerivativeWithRespectToTerminalValue(maximum[path], minimum[path], terminalValue, strike);
 			
+			double delta = discountFactor / spotPrice * (derivativeWithRespectToMaximum * maximum[path]
+					+ derivativeWithRespectToMinimum * minimum[path] + derivativeWithRespectToTerminalValue * terminalValue);
+			
+			double vega = discountFactor * (
+					derivativeWithRespectToMaximum * getVolatilityDerivative(maximum[path], timeDiscretization.getTime(maximumTimeIndex[path]), spotPrice, riskFreeRate, volatility)
+					+ derivativeWithRespectToMinimum * getVolatilityDerivative(minimum[path], timeDiscretization.getTime(minimumTimeIndex[path]), spotPrice, riskFreeRate, volatility)
+					+ derivativeWithRespectToTerminalValue * getVolatilityDerivative(terminalValue, timeDiscretization.getTime(maturityIndex), spotPrice, riskFreeRate, volatility));
+			
+			double firstIncrement = (Math.log(valueAfterFirstStep.get(path) / spotPrice) - (riskFreeRate - 0.5 * volatility * volatility) * firstTimeStep)
+					/ (volatility * Math.sqrt(firstTimeStep));
+			double gamma = delta * (firstIncrement / (spotPrice * volatility * Math.sqrt(firstTimeStep)) - 1.0 / spotPrice)
+					+ discountFactor / spotPrice * ((maximumTimeIndex[path] == 0 ? derivativeWithRespectToMaximum : 0.0)
+							+ (minimumTimeIndex[path] == 0 ? derivativeWithRespectToMinimum : 0.0));
+			
+			estimates[0] = lookbackType.getPayoff(maximum[path], minimum[path], terminalValue, strike) * discountFactor;
+			estimates[1] = delta;
+			estimates[2] = gamma;
+			estimates[3] = vega;
+			for(int i = 0; i < estimates.length; i++) {
+				sums[i] += estimates[i];
+				sumsOfSquares[i] += estimates[i] * estimates[i];
+			}
 		}
-		return maxValue;
+		
+		double[] means = new double[4];
+		double[] standardErrors = new double[4];
+		for(int i = 0; i < means.length; i++) {
+			means[i] = sums[i] / numberOfPaths;
+			double variance = (sumsOfSquares[i] - numberOfPaths * means[i] * means[i]) / (numberOfPaths - 1);
+			standardErrors[i] = Math.sqrt(Math.max(variance, 0.0) / numberOfPaths);
+		}
+		
+		return new LookbackGreeks(means[0], means[1], means[2], means[3],
+				standardErrors[0], standardErrors[1], standardErrors[2], standardErrors[3]);
+	}
+
+	/**
+	 * It returns the value at time zero of the lookback with its delta, rho and vegas bucketed by the time steps
+	 * of the model, computed by a hand-written adjoint of the pricing on the paths of a Black-Scholes model.
+	 *
+	 * The forward pass only keeps, for every path, the running extrema and the time indices where they are
+	 * attained: the running extremum is a single operation whose adjoint sends the whole derivative of the payoff
+	 * to the value at its argmax time, instead of a chain of one max per monitoring time. The reverse sweep then
+	 * propagates the adjoints of the (at most three) values the payoff depends on to the volatility of every time
+	 * step it follows, dS(t_i)/dsigma_j = S(t_i) (W(t_{j+1}) - W(t_j) - sigma dt_j) for j < i, to the spot price
+	 * and to the risk-free rate. Memory is O(paths) for the forward pass plus one value per bucket, and the reverse
+	 * sweep is a single pass over paths and time steps whatever the number of buckets, where bumping would
+	 * re-simulate once or twice per bucket.
+	 *
+	 * @param model A Black-Scholes model. The volatility is seen as piecewise constant on its time steps.
+	 */
+	public LookbackAdjointSensitivities getAdjointSensitivities(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		
+		if(isBrownianBridgeSampling) {
+			throw new IllegalArgumentException("Brownian bridge sampling is not supported by the adjoint sensitivities.");
+		}
+		if(isSeasoned()) {
+			throw new IllegalArgumentException("Seasoned lookbacks are not supported by the adjoint sensitivities.");
+		}
+		
+		double maturity = getMaturity();
+		int underlyingIndex = getUnderlyingIndex();
+		double strike = getStrike();
+		LookbackType lookbackType = getLookbackType();
+		double volatility = getVolatility(model);
+		double riskFreeRate = ((MonteCarloBlackScholesModel) model).getRiskFreeRate();
+		TimeDiscretization timeDiscretization = model.getTimeDiscretization();
+		
+		// forward pass
+		int numberOfPaths = model.getNumberOfPaths();
+		double[] maximum = new double[numberOfPaths];
+		double[] minimum = new double[numberOfPaths];
+		int[] maximumTimeIndex = new int[numberOfPaths];
+		int[] minimumTimeIndex = new int[numberOfPaths];
+		getExtremumTimeIndices(model, maximum, minimum, maximumTimeIndex, minimumTimeIndex);
+		
+		int maturityIndex = model.getTimeIndex(maturity);
+		RandomVariable finalValue = model.getAssetValue(maturityIndex, underlyingIndex);
+		double spotPrice = model.getAssetValue(0, underlyingIndex).get(0);
+		final RandomVariable discounting = model.getMonteCarloWeights(maturity).div(model.getNumeraire(maturity))
+				.mult(model.getNumeraire(0.0)).div(model.getMonteCarloWeights(0.0));
+		
+		// adjoints of the maximum, the minimum and the terminal value, times the value itself
+		double[] maximumAdjoint = new double[numberOfPaths];
+		double[] minimumAdjoint = new double[numberOfPaths];
+		double[] terminalValueAdjoint = new double[numberOfPaths];
+		
+		double value = 0.0;
+		double delta = 0.0;
+		double rho = 0.0;
+		for(int path = 0; path < numberOfPaths; path++) {
+			double terminalValue = finalValue.get(path);
+			double discountFactor = discounting.get(path);
+			double payoff = lookbackType.getPayoff(maximum[path], minimum[path], terminalValue, strike);
+			
+			maximumAdjoint[path] = discountFactor * maximum[path]
+					* lookbackType.getPayoffDerivativeWithRespectToMaximum(maximum[path], minimum[path], terminalValue, strike);
+			minimumAdjoint[path] = discountFactor * minimum[path]
+					* lookbackType.getPayoffDerivativeWithRespectToMinimum(maximum[path], minimum[path], terminalValue, strike);
+			terminalValueAdjoint[path] = discountFactor * terminalValue
+					* lookbackType.getPayoffDerivativeWithRespectToTerminalValue(maximum[path], minimum[path], terminalValue, strike);
+			
+			value += discountFactor * payoff;
+			delta += (maximumAdjoint[path] + minimumAdjoint[path] + terminalValueAdjoint[path]) / spotPrice;
+			rho += maximumAdjoint[path] * timeDiscretization.getTime(maximumTimeIndex[path])
+					+ minimumAdjoint[path] * timeDiscretization.getTime(minimumTimeIndex[path])
+					+ terminalValueAdjoint[path] * timeDiscretization.getTime(maturityIndex)
+					- maturity * discountFactor * payoff;
+		}
+		
+		// reverse sweep over the time steps: the step j moves the values at the times after it
+		double[] vegas = new double[maturityIndex];
+		double[] logValueAtEndOfStep = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			logValueAtEndOfStep[path] = Math.log(finalValue.get(path));
+		}
+		for(int timeIndex = maturityIndex - 1; timeIndex >= 0; timeIndex--) {
+			RandomVariable valueAtStartOfStep = model.getAssetValue(timeIndex, underlyingIndex);
+			double timeStep = timeDiscretization.getTimeStep(timeIndex);
+			double drift = (riskFreeRate - 0.5 * volatility * volatility) * timeStep;
+			double vega = 0.0;
+			for(int path = 0; path < numberOfPaths; path++) {
+				double logValueAtStartOfStep = Math.log(valueAtStartOfStep.get(path));
+				double adjoint = terminalValueAdjoint[path];
+				if(maximumTimeIndex[path] > timeIndex) {
+					adjoint += maximumAdjoint[path];
+				}
+				if(minimumTimeIndex[path] > timeIndex) {
+					adjoint += minimumAdjoint[path];
+				}
+				// sigma (W(t_{j+1}) - W(t_j) - sigma dt_j), the increment of the logarithm minus its drift and sigma^2 dt_j
+				vega += adjoint * (logValueAtEndOfStep[path] - logValueAtStartOfStep - drift - volatility * volatility * timeStep);
+				logValueAtEndOfStep[path] = logValueAtStartOfStep;
+			}
+			vegas[timeIndex] = vega / (volatility * numberOfPaths);
+		}
+		
+		return new LookbackAdjointSensitivities(value / numberOfPaths, delta / numberOfPaths, rho / numberOfPaths, vegas);
+	}
+
+	/*
+	 * It scans the monitoring times once and writes, for every path, the running extrema and the first time
+	 * indices where they are attained.
+	 */
+	private void getExtremumTimeIndices(AssetModelMonteCarloSimulationModel model, double[] maximum, double[] minimum,
+			int[] maximumTimeIndex, int[] minimumTimeIndex) throws CalculationException {
+		
+		Arrays.fill(maximum, Double.NEGATIVE_INFINITY);
+		Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+		
+		for(int timeIndex : getMonitoringTimeIndices(model)) {
+			RandomVariable realizationAtCurrentTime = model.getAssetValue(timeIndex, getUnderlyingIndex());
+			for(int path = 0; path < maximum.length; path++) {
+				double value = realizationAtCurrentTime.get(path);
+				if(value > maximum[path]) {
+					maximum[path] = value;
+					maximumTimeIndex[path] = timeIndex;
+				}
+				if(value < minimum[path]) {
+					minimum[path] = value;
+					minimumTimeIndex[path] = timeIndex;
+				}
+			}
+		}
+	}
+
+	/*
+	 * It returns dS(t)/dsigma = S(t) (W(t) - sigma t) of a Black-Scholes path, with W(t) recovered from S(t).
+	 */
+	private static double getVolatilityDerivative(double value, double time, double spotPrice, double riskFreeRate, double volatility) {
+		
+		return value * (Math.log(value / spotPrice) - (riskFreeRate + 0.5 * volatility * volatility) * time) / volatility;
+	}
+
+	/**
+	 * It values the lookback at time zero under Black-Scholes dynamics with the streaming pricer, simulating the
+	 * paths with the given driver, see {@link StreamingBlackScholesLookbackPricer}.
+	 */
+	public double getValue(double initialValue, double riskFreeRate, double volatility, TimeDiscretization timeDiscretization,
+			int numberOfPaths, int seed, LookbackPathDriverType pathDriverType) {
+		
+		return new StreamingBlackScholesLookbackPricer(initialValue, riskFreeRate, volatility, timeDiscretization,
+				numberOfPaths, seed, pathDriverType).getValue(this);
+	}
+
+	/**
+	 * It values the lookback at time zero under Black-Scholes dynamics with the streaming pricer, holding the
+	 * paths in the given precision, see {@link LookbackPathPrecision}.
+	 */
+	public double getValue(double initialValue, double riskFreeRate, double volatility, TimeDiscretization timeDiscretization,
+			int numberOfPaths, int seed, LookbackPathDriverType pathDriverType, LookbackPathPrecision pathPrecision) {
+		
+		return new StreamingBlackScholesLookbackPricer(initialValue, riskFreeRate, volatility, timeDiscretization,
+				numberOfPaths, seed, pathDriverType, pathPrecision).getValue(this);
+	}
+
+	/**
+	 * It values the lookback at time zero under Black-Scholes dynamics sampling exactly the extrema or the fixings
+	 * it depends on, without a time discretization, see {@link ExactExtremumLookbackPricer}.
+	 */
+	public double getValue(double initialValue, double riskFreeRate, double volatility, int numberOfPaths, int seed) {
+		
+		return new ExactExtremumLookbackPricer(initialValue, riskFreeRate, volatility, numberOfPaths, seed).getValue(this);
+	}
+
+	/**
+	 * It values the lookback at time zero from the paths of a {@link LookbackPathStore}, without simulating them.
+	 */
+	public double getValue(LookbackPathStore pathStore) {
+		
+		return pathStore.getValue(this);
+	}
+
+	/*
+	 * The Brownian bridge needs the volatility of a geometric Brownian motion, which only the Black-Scholes model has.
+	 */
+	private static double getVolatility(AssetModelMonteCarloSimulationModel model) {
+		
+		if(!(model instanceof MonteCarloBlackScholesModel)) {
+			throw new IllegalArgumentException("Brownian bridge sampling requires a MonteCarloBlackScholesModel.");
+		}
+		return ((MonteCarloBlackScholesModel) model).getVolatility();
+	}
+
+	protected RandomVariable getMax(double[] discretizedTimes, double maturity, int underlyingIndex, AssetModelMonteCarloSimulationModel model) 
+			throws CalculationException {
+		
+		return getPathExtremum(discretizedTimes, maturity, underlyingIndex, model).getMaximum();
 		
 	}
 	
 	protected RandomVariable getMin(double[] discretizedTimes, double maturity, int underlyingIndex, AssetModelMonteCarloSimulationModel model) 
 			throws CalculationException{
 		
-		RandomVariable minValue = model.getRandomVariableForConstant(Integer.MAX_VALUE);
-		for(double currentTime : discretizedTimes) {
-			
-			currentTime = Math.min(currentTime, maturity);
-			RandomVariable realizationAtCurrentTime = model.getAssetValue(currentTime, underlyingIndex);
-			minValue = minValue.cap(realizationAtCurrentTime);
-		}
-		return minValue;
+		return getPathExtremum(discretizedTimes, maturity, underlyingIndex, model).getMinimum();
 	
 	}
 	
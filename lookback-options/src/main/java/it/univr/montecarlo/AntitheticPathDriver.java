@@ -0,0 +1,43 @@
+package it.univr.montecarlo;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Brownian increments from a Mersenne twister where the paths come in antithetic pairs: the path with odd index
+ * uses the opposite increments of the path before it. With an odd number of paths the last one is unpaired.
+ */
+public class AntitheticPathDriver implements LookbackPathDriver {
+
+	private final TimeDiscretization timeDiscretization;
+	private final MersenneTwister mersenneTwister;
+	private int numberOfPathsInBlock;
+
+	public AntitheticPathDriver(TimeDiscretization timeDiscretization, int seed) {
+		this.timeDiscretization = timeDiscretization;
+		this.mersenneTwister = new MersenneTwister(seed);
+	}
+
+	@Override
+	public int getMaximumBlockSize() {
+		return Integer.MAX_VALUE - 1;
+	}
+
+	@Override
+	public void nextBlock(int numberOfPathsInBlock) {
+		this.numberOfPathsInBlock = numberOfPathsInBlock;
+	}
+
+	@Override
+	public void getBrownianIncrements(int timeIndex, double[] brownianIncrements) {
+		double sqrtOfTimeStep = Math.sqrt(timeDiscretization.getTimeStep(timeIndex));
+		for(int path = 0; path < numberOfPathsInBlock; path += 2) {
+			double brownianIncrement = NormalDistribution.inverseCumulativeDistribution(mersenneTwister.nextDouble()) * sqrtOfTimeStep;
+			brownianIncrements[path] = brownianIncrement;
+			if(path + 1 < numberOfPathsInBlock) {
+				brownianIncrements[path + 1] = -brownianIncrement;
+			}
+		}
+	}
+}
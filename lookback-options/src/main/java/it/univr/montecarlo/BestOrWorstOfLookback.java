@@ -0,0 +1,95 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * A lookback on the best-of or on the worst-of several underlyings: the payoff of the given lookback type is
+ * applied to the process given at every monitoring time by the largest, respectively the smallest, value of the
+ * underlyings. For example, a fixed-strike call on the worst-of pays the positive part of the maximum over the
+ * monitoring times of the smallest value of the underlyings minus the strike.
+ *
+ * The extrema come from the scan of {@link MultiUnderlyingLookbackValuation}.
+ */
+public class BestOrWorstOfLookback extends AbstractAssetMonteCarloProduct {
+
+	public enum BasketType {
+		BEST_OF,
+		WORST_OF
+	}
+
+	private final double maturity;
+	private final int numberOfFixings;
+	private final BasketType basketType;
+	private final LookbackType lookbackType;
+	private final double strike;
+	private final MultiUnderlyingLookbackValuation valuation;
+
+	public BestOrWorstOfLookback(double maturity, int numberOfFixings, int[] underlyingIndices, BasketType basketType,
+			LookbackType lookbackType, double strike) {
+		this.maturity = maturity;
+		this.numberOfFixings = numberOfFixings;
+		this.basketType = basketType;
+		this.lookbackType = lookbackType;
+		this.strike = strike;
+		this.valuation = new MultiUnderlyingLookbackValuation(maturity, numberOfFixings, underlyingIndices);
+	}
+
+	/**
+	 * A floating-strike lookback.
+	 */
+	public BestOrWorstOfLookback(double maturity, int numberOfFixings, int[] underlyingIndices, BasketType basketType,
+			LookbackType lookbackType) {
+		this(maturity, numberOfFixings, underlyingIndices, basketType, lookbackType, Double.NaN);
+		if(lookbackType.isFixedStrike()) {
+			throw new IllegalArgumentException("A fixed-strike lookback needs a strike.");
+		}
+	}
+
+	@Override
+	public RandomVariable getValue(double evaluationTime, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+
+		MultiUnderlyingPathExtremum multiUnderlyingPathExtremum = valuation.getPathExtremum(model);
+		PathExtremum pathExtremum = basketType == BasketType.BEST_OF
+				? multiUnderlyingPathExtremum.getBestOf() : multiUnderlyingPathExtremum.getWorstOf();
+
+		// the payoffs are discounted to evaluation time in the same loop, without temporary random variables
+		final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
+		final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
+		final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
+		final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
+
+		double[] discountedPayoffs = new double[pathExtremum.getNumberOfPaths()];
+		for(int path = 0; path < discountedPayoffs.length; path++) {
+			double payoff = lookbackType.getPayoff(pathExtremum.getMaximum(path), pathExtremum.getMinimum(path),
+					pathExtremum.getTerminalValue(path), strike);
+			discountedPayoffs[path] = payoff / numeraireAtMaturity.get(path) * monteCarloWeights.get(path)
+					* numeraireAtEvalTime.get(path) / monteCarloWeightsAtEvalTime.get(path);
+		}
+		return new RandomVariableFromDoubleArray(maturity, discountedPayoffs);
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public int getNumberOfFixings() {
+		return numberOfFixings;
+	}
+
+	public BasketType getBasketType() {
+		return basketType;
+	}
+
+	public LookbackType getLookbackType() {
+		return lookbackType;
+	}
+
+	public double getStrike() {
+		return strike;
+	}
+}
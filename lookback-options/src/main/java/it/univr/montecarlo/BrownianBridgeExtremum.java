@@ -0,0 +1,168 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * It samples the extrema of a geometric Brownian motion between the simulated times, given the simulated values.
+ *
+ * Conditionally on its values X_a and X_b at the ends of an interval, the logarithm X of a geometric Brownian
+ * motion with volatility sigma is a Brownian bridge, whatever the drift. Its maximum over the interval has the
+ * distribution function 1 - exp(-2 (m - X_a)(m - X_b) / (sigma^2 dt)) for m &ge; max(X_a, X_b), which is inverted
+ * in closed form; the same holds for the minimum by symmetry.
+ *
+ * The maximum and the minimum are sampled with independent uniforms: each of them is exact jointly with the
+ * simulated values, which is all the lookbacks of this package need, since every payoff depends on only one of
+ * the two extrema.
+ *
+ * The uniforms of the bridges come from their own Mersenne twister, whose seed is derived from the seed of the
+ * simulation by SplitMix64, see {@link #getBridgeSeed(long)}: the bridge draws change with the paths and are
+ * unrelated to the random numbers of the paths, also for the seed they would share with a fixed bridge seed.
+ */
+public class BrownianBridgeExtremum {
+
+	/*
+	 * The number of paths whose first simulated value identifies the paths of a model, see
+	 * getBridgeSeed(AssetModelMonteCarloSimulationModel, int).
+	 */
+	private static final int NUMBER_OF_PATHS_OF_FINGERPRINT = 16;
+
+	private BrownianBridgeExtremum() {
+	}
+
+	/**
+	 * It returns the maximum of the logarithm over an interval, from a uniform in (0,1].
+	 *
+	 * @param logStart The logarithm of the value at the beginning of the interval.
+	 * @param logEnd The logarithm of the value at the end of the interval.
+	 * @param variance The variance of the logarithm over the interval, i.e., sigma^2 times its length.
+	 * @param uniform A uniform random number in (0,1].
+	 */
+	public static double sampleLogMaximum(double logStart, double logEnd, double variance, double uniform) {
+		double difference = logEnd - logStart;
+		return 0.5 * (logStart + logEnd + Math.sqrt(difference * difference - 2.0 * variance * Math.log(uniform)));
+	}
+
+	/**
+	 * It returns the minimum of the logarithm over an interval, from a uniform in (0,1].
+	 *
+	 * @see #sampleLogMaximum(double, double, double, double)
+	 */
+	public static double sampleLogMinimum(double logStart, double logEnd, double variance, double uniform) {
+		double difference = logEnd - logStart;
+		return 0.5 * (logStart + logEnd - Math.sqrt(difference * difference - 2.0 * variance * Math.log(uniform)));
+	}
+
+	/**
+	 * It returns the seed of the uniforms of the bridges for a simulation with the given seed: the seed mixed by
+	 * the SplitMix64 finalizer, so that consecutive or equal seeds of the paths give unrelated bridge streams.
+	 */
+	public static int getBridgeSeed(long seed) {
+		long mixedSeed = mix(seed + 0x9E3779B97F4A7C15L);
+		return (int) (mixedSeed ^ (mixedSeed >>> 32));
+	}
+
+	/**
+	 * It returns the seed of the uniforms of the bridges for the paths of the given model. A finmath model does not
+	 * expose the seed of its Brownian motion, so the seed is derived from what the seed determines: the first
+	 * simulated values of the underlying on the first paths, mixed by SplitMix64. The same model gives the same
+	 * bridge draws, models with different seeds give different ones.
+	 */
+	public static int getBridgeSeed(AssetModelMonteCarloSimulationModel model, int underlyingIndex) throws CalculationException {
+		int timeIndex = Math.min(1, model.getTimeDiscretization().getNumberOfTimeSteps());
+		RandomVariable realization = model.getAssetValue(timeIndex, underlyingIndex);
+		long fingerprint = 0L;
+		for(int path = 0; path < Math.min(NUMBER_OF_PATHS_OF_FINGERPRINT, model.getNumberOfPaths()); path++) {
+			fingerprint = mix(fingerprint + Double.doubleToLongBits(realization.get(path)));
+		}
+		return getBridgeSeed(fingerprint);
+	}
+
+	/*
+	 * The finalizer of SplitMix64 (Steele, Lea and Flood, 2014), a bijection of the longs with good avalanche.
+	 */
+	static long mix(long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * It returns the extrema of the underlying over [0, maturity] when it is monitored continuously, sampling the
+	 * Brownian bridge between consecutive simulated times, with the bridge seed of the model, see
+	 * {@link #getBridgeSeed(AssetModelMonteCarloSimulationModel, int)}.
+	 *
+	 * @param discretizedTimes The simulated times over which the bridges are sampled.
+	 * @param maturity The maturity; later times are moved to it.
+	 * @param underlyingIndex The index of the underlying.
+	 * @param model A model where the underlying is a geometric Brownian motion.
+	 * @param volatility The volatility of the underlying.
+	 */
+	public static PathExtremum getPathExtremum(double[] discretizedTimes, double maturity, int underlyingIndex,
+			AssetModelMonteCarloSimulationModel model, double volatility) throws CalculationException {
+		return getPathExtremum(discretizedTimes, maturity, underlyingIndex, model, volatility, getBridgeSeed(model, underlyingIndex));
+	}
+
+	/**
+	 * It returns the extrema of the underlying over [0, maturity] when it is monitored continuously, sampling the
+	 * Brownian bridge between consecutive simulated times.
+	 *
+	 * @param discretizedTimes The simulated times over which the bridges are sampled.
+	 * @param maturity The maturity; later times are moved to it.
+	 * @param underlyingIndex The index of the underlying.
+	 * @param model A model where the underlying is a geometric Brownian motion.
+	 * @param volatility The volatility of the underlying.
+	 * @param seed The seed of the uniforms of the bridges.
+	 */
+	public static PathExtremum getPathExtremum(double[] discretizedTimes, double maturity, int underlyingIndex,
+			AssetModelMonteCarloSimulationModel model, double volatility, int seed) throws CalculationException {
+
+		int numberOfPaths = model.getNumberOfPaths();
+		double[] maximum = new double[numberOfPaths];
+		double[] minimum = new double[numberOfPaths];
+
+		MersenneTwister mersenneTwister = new MersenneTwister(seed);
+
+		double previousTime = Math.min(discretizedTimes[0], maturity);
+		RandomVariable realizationAtPreviousTime = model.getAssetValue(previousTime, underlyingIndex);
+		double[] logValueAtPreviousTime = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			maximum[path] = realizationAtPreviousTime.get(path);
+			minimum[path] = realizationAtPreviousTime.get(path);
+			logValueAtPreviousTime[path] = Math.log(realizationAtPreviousTime.get(path));
+		}
+
+		for(int i = 1; i < discretizedTimes.length; i++) {
+			double currentTime = Math.min(discretizedTimes[i], maturity);
+			RandomVariable realizationAtCurrentTime = model.getAssetValue(currentTime, underlyingIndex);
+			double variance = volatility * volatility * (currentTime - previousTime);
+
+			for(int path = 0; path < numberOfPaths; path++) {
+				double logStart = logValueAtPreviousTime[path];
+				double logEnd = Math.log(realizationAtCurrentTime.get(path));
+				double maximumOverInterval = Math.exp(sampleLogMaximum(logStart, logEnd, variance, 1.0 - mersenneTwister.nextDouble()));
+				double minimumOverInterval = Math.exp(sampleLogMinimum(logStart, logEnd, variance, 1.0 - mersenneTwister.nextDouble()));
+				if(maximumOverInterval > maximum[path]) {
+					maximum[path] = maximumOverInterval;
+				}
+				if(minimumOverInterval < minimum[path]) {
+					minimum[path] = minimumOverInterval;
+				}
+				logValueAtPreviousTime[path] = logEnd;
+			}
+
+			previousTime = currentTime;
+		}
+
+		RandomVariable finalValue = model.getAssetValue(model.getTimeIndex(maturity), underlyingIndex);
+		double[] terminalValue = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			terminalValue[path] = finalValue.get(path);
+		}
+
+		return new PathExtremum(maturity, maximum, minimum, terminalValue);
+	}
+}
@@ -0,0 +1,44 @@
+package it.univr.montecarlo;
+
+/**
+ * The result of a control-variate valuation: the corrected value, its standard error, the regression
+ * coefficient of the control and the variance-reduction factor, i.e., the variance of the plain estimator
+ * divided by the variance of the corrected one. For the same standard error, the plain estimator needs that
+ * many times the paths.
+ */
+public class ControlVariateResult {
+
+	private final double value;
+	private final double standardError;
+	private final double controlVariateCoefficient;
+	private final double varianceReductionFactor;
+
+	public ControlVariateResult(double value, double standardError, double controlVariateCoefficient, double varianceReductionFactor) {
+		this.value = value;
+		this.standardError = standardError;
+		this.controlVariateCoefficient = controlVariateCoefficient;
+		this.varianceReductionFactor = varianceReductionFactor;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getStandardError() {
+		return standardError;
+	}
+
+	public double getControlVariateCoefficient() {
+		return controlVariateCoefficient;
+	}
+
+	public double getVarianceReductionFactor() {
+		return varianceReductionFactor;
+	}
+
+	@Override
+	public String toString() {
+		return "value " + value + ", standard error " + standardError + ", coefficient " + controlVariateCoefficient
+				+ ", variance reduction " + varianceReductionFactor;
+	}
+}
@@ -0,0 +1,160 @@
+package it.univr.montecarlo;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.randomnumbers.MersenneTwister;
+
+/**
+ * It prices the lookbacks of this package under Black-Scholes dynamics by sampling exactly the values of the
+ * underlying the payoff depends on, without a time discretization.
+ *
+ * The logarithm of the underlying is a Brownian motion with drift, so its value at a later time is drawn exactly in
+ * one Gaussian step, whatever the length of the step.
+ * <ul>
+ * <li>A continuously monitored lookback needs one step per path, to maturity, and the extrema over it, drawn from
+ * the law of the maximum and of the minimum of the Brownian bridge between the two ends, see
+ * {@link BrownianBridgeExtremum}. The work is O(paths).</li>
+ * <li>A discretely monitored lookback needs the values at the fixing dates only, drawn by one step from each fixing
+ * date to the next. The work is O(fixings x paths).</li>
+ * </ul>
+ * As for {@link BrownianBridgeExtremum}, the maximum and the minimum are exact jointly with the terminal value but
+ * not with each other, which is all the four payoffs need. The values have no discretization bias, so they converge
+ * to those of {@link it.univr.analyticprices.AnalyticPrices} for continuous monitoring.
+ *
+ * The fixing dates of a discretely monitored lookback are equally spaced over [0, maturity], the first one at time
+ * zero, as {@link AbstractBuildMonitoring} places them on an equally spaced time discretization; for a seasoned
+ * lookback the remaining ones are placed as by {@link AbstractBuildMonitoring#buildMonitoringTimes(net.finmath.time.TimeDiscretization, int, int)}.
+ */
+public class ExactExtremumLookbackPricer {
+
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+	private final int numberOfPaths;
+	private final int seed;
+
+	public ExactExtremumLookbackPricer(double initialValue, double riskFreeRate, double volatility, int numberOfPaths, int seed) {
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.numberOfPaths = numberOfPaths;
+		this.seed = seed;
+	}
+
+	/**
+	 * It returns the running maximum, the running minimum and the value at maturity of every path over the
+	 * monitoring times of the lookback, combined with the running extrema of a seasoned lookback.
+	 */
+	public PathExtremum getPathExtremum(AbstractBuildMonitoring product) {
+
+		double maturity = product.getMaturity();
+		int numberOfFixings = product.getNumberOfFixings();
+		int numberOfElapsedFixings = product.getNumberOfElapsedFixings();
+
+		/*
+		 * Without elapsed fixings the fixings are at i maturity / numberOfFixings for i = 0, ..., numberOfFixings.
+		 * After the first ones, the remaining ones are spread from the last elapsed fixing, at time zero, which is
+		 * not monitored again.
+		 */
+		boolean isContinuouslyMonitored = numberOfFixings == 0;
+		int numberOfSteps = isContinuouslyMonitored ? 1
+				: numberOfElapsedFixings == 0 ? numberOfFixings : numberOfFixings + 1 - numberOfElapsedFixings;
+		boolean isInitialValueMonitored = isContinuouslyMonitored || numberOfElapsedFixings == 0;
+		if(numberOfSteps < 1) {
+			throw new IllegalArgumentException("The lookback has no fixing left.");
+		}
+
+		double timeStep = maturity / numberOfSteps;
+		double drift = (riskFreeRate - 0.5 * volatility * volatility) * timeStep;
+		double standardDeviation = volatility * Math.sqrt(timeStep);
+		double variance = volatility * volatility * timeStep;
+		double logInitialValue = Math.log(initialValue);
+
+		double[] maximum = new double[numberOfPaths];
+		double[] minimum = new double[numberOfPaths];
+		double[] terminalValue = new double[numberOfPaths];
+		MersenneTwister mersenneTwister = new MersenneTwister(seed);
+		for(int path = 0; path < numberOfPaths; path++) {
+			double logValue = logInitialValue;
+			double logMaximum = isInitialValueMonitored ? logInitialValue : Double.NEGATIVE_INFINITY;
+			double logMinimum = isInitialValueMonitored ? logInitialValue : Double.POSITIVE_INFINITY;
+			for(int step = 0; step < numberOfSteps; step++) {
+				double logEnd = logValue + drift + standardDeviation * NormalDistribution.inverseCumulativeDistribution(mersenneTwister.nextDouble());
+				if(isContinuouslyMonitored) {
+					logMaximum = Math.max(logMaximum, BrownianBridgeExtremum.sampleLogMaximum(logValue, logEnd, variance,
+							1.0 - mersenneTwister.nextDouble()));
+					logMinimum = Math.min(logMinimum, BrownianBridgeExtremum.sampleLogMinimum(logValue, logEnd, variance,
+							1.0 - mersenneTwister.nextDouble()));
+				}
+				else {
+					logMaximum = Math.max(logMaximum, logEnd);
+					logMinimum = Math.min(logMinimum, logEnd);
+				}
+				logValue = logEnd;
+			}
+			maximum[path] = Math.exp(logMaximum);
+			minimum[path] = Math.exp(logMinimum);
+			terminalValue[path] = Math.exp(logValue);
+		}
+
+		PathExtremum pathExtremum = new PathExtremum(maturity, maximum, minimum, terminalValue);
+		pathExtremum.applyRunningExtremum(product.getRunningMaximum(), product.getRunningMinimum());
+		return pathExtremum;
+	}
+
+	/**
+	 * It returns the payoffs of the paths discounted to time zero.
+	 */
+	public double[] getDiscountedPayoffs(AbstractBuildMonitoring product) {
+
+		PathExtremum pathExtremum = getPathExtremum(product);
+		LookbackType lookbackType = product.getLookbackType();
+		double strike = product.getStrike();
+		double discountFactor = Math.exp(-riskFreeRate * product.getMaturity());
+		double[] discountedPayoffs = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			discountedPayoffs[path] = discountFactor * lookbackType.getPayoff(pathExtremum.getMaximum(path),
+					pathExtremum.getMinimum(path), pathExtremum.getTerminalValue(path), strike);
+		}
+		return discountedPayoffs;
+	}
+
+	/**
+	 * It returns the value at time zero of the given lookback.
+	 */
+	public double getValue(AbstractBuildMonitoring product) {
+		return getResult(product).getValue();
+	}
+
+	/**
+	 * It returns the value at time zero of the given lookback and its standard error, from one simulation of the
+	 * paths.
+	 */
+	public ExactExtremumResult getResult(AbstractBuildMonitoring product) {
+
+		double sum = 0.0;
+		double sumOfSquares = 0.0;
+		for(double discountedPayoff : getDiscountedPayoffs(product)) {
+			sum += discountedPayoff;
+			sumOfSquares += discountedPayoff * discountedPayoff;
+		}
+		double mean = sum / numberOfPaths;
+		double variance = Math.max(sumOfSquares / numberOfPaths - mean * mean, 0.0);
+		return new ExactExtremumResult(mean, Math.sqrt(variance / numberOfPaths));
+	}
+
+	public double getInitialValue() {
+		return initialValue;
+	}
+
+	public double getRiskFreeRate() {
+		return riskFreeRate;
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+}
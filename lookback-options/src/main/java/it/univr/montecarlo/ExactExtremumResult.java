@@ -0,0 +1,29 @@
+package it.univr.montecarlo;
+
+/**
+ * The result of a valuation by {@link ExactExtremumLookbackPricer}: the value and its standard error, both from
+ * the same paths.
+ */
+public class ExactExtremumResult {
+
+	private final double value;
+	private final double standardError;
+
+	public ExactExtremumResult(double value, double standardError) {
+		this.value = value;
+		this.standardError = standardError;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getStandardError() {
+		return standardError;
+	}
+
+	@Override
+	public String toString() {
+		return "value " + value + ", standard error " + standardError;
+	}
+}
@@ -0,0 +1,60 @@
+package it.univr.montecarlo;
+
+/**
+ * The value at time zero of a lookback with its delta, rho and vegas bucketed by the time steps of the model,
+ * i.e., the derivatives with respect to the volatility on every time step, as computed by
+ * {@link AbstractBuildMonitoring#getAdjointSensitivities}.
+ */
+public class LookbackAdjointSensitivities {
+
+	private final double value;
+	private final double delta;
+	private final double rho;
+	private final double[] bucketedVegas;
+
+	public LookbackAdjointSensitivities(double value, double delta, double rho, double[] bucketedVegas) {
+		this.value = value;
+		this.delta = delta;
+		this.rho = rho;
+		this.bucketedVegas = bucketedVegas;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getDelta() {
+		return delta;
+	}
+
+	public double getRho() {
+		return rho;
+	}
+
+	/**
+	 * It returns the vega of the time step with the given index of the time discretization of the model.
+	 */
+	public double getBucketedVega(int timeIndex) {
+		return bucketedVegas[timeIndex];
+	}
+
+	public int getNumberOfBuckets() {
+		return bucketedVegas.length;
+	}
+
+	/**
+	 * It returns the vega with respect to a parallel shift of the volatility, i.e., the sum of the bucketed vegas.
+	 */
+	public double getVega() {
+		double vega = 0.0;
+		for(double bucketedVega : bucketedVegas) {
+			vega += bucketedVega;
+		}
+		return vega;
+	}
+
+	@Override
+	public String toString() {
+		return "value " + value + ", delta " + delta + ", rho " + rho + ", vega " + getVega() + " (" + bucketedVegas.length + " buckets)";
+	}
+}
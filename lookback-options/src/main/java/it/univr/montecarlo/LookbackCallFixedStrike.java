@@ -40,6 +40,20 @@ public class LookbackCallFixedStrike extends AbstractBuildMonitoring {
 		this.strike = strike; 
 	}
 	
+	public LookbackCallFixedStrike (double maturity, double strike, boolean isBrownianBridgeSampling) {
+		super(0, isBrownianBridgeSampling);
+		this.maturity=maturity;
+		this.underlyingIndex=0;
+		this.strike = strike; 
+	}
+	
+	public LookbackCallFixedStrike (int underlyingIndex, double maturity, double strike, boolean isBrownianBridgeSampling) {
+		super(0, isBrownianBridgeSampling);
+		this.maturity=maturity;
+		this.underlyingIndex=underlyingIndex;
+		this.strike = strike; 
+	}
+	
 	public LookbackCallFixedStrike (double maturity, int underlyingIndex, int discretelyTimes, double strike) {
 		super(discretelyTimes);
 		this.maturity=maturity;
@@ -50,30 +64,37 @@ public class LookbackCallFixedStrike extends AbstractBuildMonitoring {
 	
 
 	
+	@Override
+	public double getMaturity() {
+		return maturity;
+	}
+
+	@Override
+	public int getUnderlyingIndex() {
+		return underlyingIndex;
+	}
+
+	@Override
+	public LookbackType getLookbackType() {
+		return LookbackType.CALL_FIXED_STRIKE;
+	}
+
+	@Override
+	public double getStrike() {
+		return strike;
+	}
+
+	@Override
+	protected AbstractBuildMonitoring getCloneWithModifiedMaturity(double maturity) {
+		return isBrownianBridgeSampling() ? new LookbackCallFixedStrike(getUnderlyingIndex(), maturity, strike, true)
+				: new LookbackCallFixedStrike(maturity, getUnderlyingIndex(), getNumberOfFixings(), strike);
+	}
+
 	@Override
 	public RandomVariable getValue(double evaluationTime, AssetModelMonteCarloSimulationModel model)
 			throws CalculationException {
 		
-		
-		double[] discretizedTimes = buildMonitoringTimes(model);
-		
-		RandomVariable maxvaluesForRandomVariable =  getMax(discretizedTimes, maturity, underlyingIndex, model);
-		
-		RandomVariable strikeRandom = model.getRandomVariableForConstant(this.strike);
-		RandomVariable values =  maxvaluesForRandomVariable.sub(strikeRandom).floor(0.0);
-		
-		
-		final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
-		final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
-		values = values.div(numeraireAtMaturity).mult(monteCarloWeights);
-
-		// ...to evaluation time.
-		final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
-		final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
-		values = values.mult(numeraireAtEvalTime).div(monteCarloWeightsAtEvalTime);
-	
-		return values;
-	
+		return getDiscountedPayoffs(evaluationTime, model);
 	}
 }
 
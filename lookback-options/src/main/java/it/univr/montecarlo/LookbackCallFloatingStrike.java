@@ -33,6 +33,20 @@ public class LookbackCallFloatingStrike extends AbstractBuildMonitoring {
 	
 	}
 	
+	public LookbackCallFloatingStrike(double maturity, boolean isBrownianBridgeSampling) {
+		super(0, isBrownianBridgeSampling);
+		this.maturity=maturity;
+		this.underlyingIndex=0;
+	
+	}
+	
+	public LookbackCallFloatingStrike(int underlyingIndex, double maturity, boolean isBrownianBridgeSampling) {
+		super(0, isBrownianBridgeSampling);
+		this.maturity=maturity;
+		this.underlyingIndex=underlyingIndex;
+	
+	}
+	
 	public LookbackCallFloatingStrike(double maturity, int underlyingIndex, int discretelyTimes) {
 		super(discretelyTimes);
 		this.maturity=maturity;
@@ -42,26 +56,31 @@ public class LookbackCallFloatingStrike extends AbstractBuildMonitoring {
 	
 	
 	@Override
-	public RandomVariable getValue(double evaluationTime, AssetModelMonteCarloSimulationModel model) throws CalculationException {
-		
-		
-		double[] discretizedTimes = buildMonitoringTimes(model);
-	
-		RandomVariable minValueForEveryRandomVariable =  getMin(discretizedTimes, maturity,underlyingIndex, model);
-		RandomVariable finalValue = model.getAssetValue(model.getTimeIndex(maturity), underlyingIndex);
-		RandomVariable values = finalValue.sub(minValueForEveryRandomVariable).floor(0.0);
-		
-		// Discounting...
-		final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
-		final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
-		values = values.div(numeraireAtMaturity).mult(monteCarloWeights);
+	public double getMaturity() {
+		return maturity;
+	}
 
-		// ...to evaluation time.
-		final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
-		final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
-		values = values.mult(numeraireAtEvalTime).div(monteCarloWeightsAtEvalTime);
-	
-		return values;
+	@Override
+	public int getUnderlyingIndex() {
+		return underlyingIndex;
+	}
+
+	@Override
+	public LookbackType getLookbackType() {
+		return LookbackType.CALL_FLOATING_STRIKE;
+	}
+
+	@Override
+	protected AbstractBuildMonitoring getCloneWithModifiedMaturity(double maturity) {
+		return isBrownianBridgeSampling() ? new LookbackCallFloatingStrike(getUnderlyingIndex(), maturity, true)
+				: new LookbackCallFloatingStrike(maturity, getUnderlyingIndex(), getNumberOfFixings());
+	}
+
+	@Override
+	public RandomVariable getValue(double evaluationTime, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+		
+		return getDiscountedPayoffs(evaluationTime, model);
 	}
 	
 }
@@ -0,0 +1,67 @@
+package it.univr.montecarlo;
+
+/**
+ * The value at time zero of a lookback together with its delta, gamma and vega, all estimated on the same paths,
+ * and their standard errors.
+ */
+public class LookbackGreeks {
+
+	private final double value;
+	private final double delta;
+	private final double gamma;
+	private final double vega;
+	private final double valueStandardError;
+	private final double deltaStandardError;
+	private final double gammaStandardError;
+	private final double vegaStandardError;
+
+	public LookbackGreeks(double value, double delta, double gamma, double vega,
+			double valueStandardError, double deltaStandardError, double gammaStandardError, double vegaStandardError) {
+		this.value = value;
+		this.delta = delta;
+		this.gamma = gamma;
+		this.vega = vega;
+		this.valueStandardError = valueStandardError;
+		this.deltaStandardError = deltaStandardError;
+		this.gammaStandardError = gammaStandardError;
+		this.vegaStandardError = vegaStandardError;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getDelta() {
+		return delta;
+	}
+
+	public double getGamma() {
+		return gamma;
+	}
+
+	public double getVega() {
+		return vega;
+	}
+
+	public double getValueStandardError() {
+		return valueStandardError;
+	}
+
+	public double getDeltaStandardError() {
+		return deltaStandardError;
+	}
+
+	public double getGammaStandardError() {
+		return gammaStandardError;
+	}
+
+	public double getVegaStandardError() {
+		return vegaStandardError;
+	}
+
+	@Override
+	public String toString() {
+		return "value " + value + " (" + valueStandardError + "), delta " + delta + " (" + deltaStandardError
+				+ "), gamma " + gamma + " (" + gammaStandardError + "), vega " + vega + " (" + vegaStandardError + ")";
+	}
+}
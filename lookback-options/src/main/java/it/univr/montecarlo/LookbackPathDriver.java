@@ -0,0 +1,28 @@
+package it.univr.montecarlo;
+
+/**
+ * A source of Brownian increments for {@link StreamingBlackScholesLookbackPricer}.
+ *
+ * The paths are generated block by block: {@link #nextBlock(int)} starts a new block of paths, then
+ * {@link #getBrownianIncrements(int, double[])} is called once for every time step, in increasing order.
+ */
+public interface LookbackPathDriver {
+
+	/**
+	 * It returns the largest number of paths the driver accepts in a block.
+	 */
+	int getMaximumBlockSize();
+
+	/**
+	 * It starts a new block of paths.
+	 *
+	 * @param numberOfPathsInBlock The number of paths of the block, at most {@link #getMaximumBlockSize()}.
+	 */
+	void nextBlock(int numberOfPathsInBlock);
+
+	/**
+	 * It writes the Brownian increments over the time step with the given index, i.e., from time timeIndex to
+	 * time timeIndex + 1, of the paths of the current block.
+	 */
+	void getBrownianIncrements(int timeIndex, double[] brownianIncrements);
+}
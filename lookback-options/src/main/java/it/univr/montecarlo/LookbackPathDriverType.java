@@ -0,0 +1,37 @@
+package it.univr.montecarlo;
+
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * The path drivers available for {@link StreamingBlackScholesLookbackPricer}.
+ */
+public enum LookbackPathDriverType {
+
+	/**
+	 * Pseudo-random numbers from a Mersenne twister.
+	 */
+	PSEUDO_RANDOM,
+
+	/**
+	 * Pseudo-random numbers where every second path uses the opposite increments of the previous one.
+	 */
+	ANTITHETIC,
+
+	/**
+	 * A Sobol sequence randomized by a digital shift, mapped to the paths by the Brownian bridge construction.
+	 */
+	SOBOL_BROWNIAN_BRIDGE;
+
+	public LookbackPathDriver getPathDriver(TimeDiscretization timeDiscretization, int seed) {
+		switch(this) {
+		case PSEUDO_RANDOM:
+			return new MersennePathDriver(timeDiscretization, seed);
+		case ANTITHETIC:
+			return new AntitheticPathDriver(timeDiscretization, seed);
+		case SOBOL_BROWNIAN_BRIDGE:
+			return new SobolBrownianBridgePathDriver(timeDiscretization, seed);
+		default:
+			throw new IllegalStateException("Unknown path driver " + this);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package it.univr.montecarlo;
+
+/**
+ * The floating point precision of the paths simulated by {@link StreamingBlackScholesLookbackPricer}.
+ */
+public enum LookbackPathPrecision {
+
+	/**
+	 * The logarithm of the underlying and its extrema are held in double precision, 24 bytes per path.
+	 */
+	DOUBLE,
+
+	/**
+	 * The logarithm of the underlying relative to its initial value and its extrema are held in single precision,
+	 * 12 bytes per path. The buffer of the Brownian increments, written by the path driver, stays in double
+	 * precision, 8 bytes per path, so a monitored time step moves about 40 instead of 64 bytes per path, and an
+	 * unmonitored one 24 instead of 32. The increments, the payoffs, the discounting and the mean are still
+	 * computed in double precision.
+	 */
+	FLOAT
+}
@@ -0,0 +1,285 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.stochastic.RandomVariable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * It stores, in a memory-mapped file, what the lookbacks of this package need of the paths of a simulation: for
+ * every monitoring grid the running maximum and minimum of every path, together with the value of the underlying
+ * at maturity and the discounting of every path. The same book can then be revalued many times, also by other
+ * processes or after a restart, without simulating the paths again and without holding them on the heap.
+ *
+ * The file is columnar, with little-endian values:
+ * <ul>
+ * <li>a header with the magic number, the version, the number of paths, the number of grids, the maturity and the
+ * underlying index,</li>
+ * <li>a table with the number of fixings, the number of elapsed fixings and the Brownian bridge flag of every grid,</li>
+ * <li>the columns of the discounting and of the value at maturity, then the columns of the maxima and of the minima
+ * of every grid, one double per path each.</li>
+ * </ul>
+ * Every column is mapped on its own and read in place. The stored extrema are the ones over the paths only: the
+ * running extrema of seasoned lookbacks are applied when pricing.
+ */
+public class LookbackPathStore implements Closeable {
+
+	private static final int MAGIC_NUMBER = 0x4C425053;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int GRID_ENTRY_SIZE = 16;
+
+	private final FileChannel channel;
+	private final int numberOfPaths;
+	private final double maturity;
+	private final int underlyingIndex;
+	private final int[] numbersOfFixings;
+	private final int[] numbersOfElapsedFixings;
+	private final boolean[] isBrownianBridgeSampling;
+	private final DoubleBuffer discounting;
+	private final DoubleBuffer terminalValue;
+	private final DoubleBuffer[] maximum;
+	private final DoubleBuffer[] minimum;
+
+	private LookbackPathStore(FileChannel channel) throws IOException {
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		channel.read(header, 0);
+		header.flip();
+		if(header.remaining() < HEADER_SIZE || header.getInt() != MAGIC_NUMBER) {
+			throw new IOException("The file is not a lookback path store.");
+		}
+		int version = header.getInt();
+		if(version != VERSION) {
+			throw new IOException("Unsupported lookback path store version " + version + ".");
+		}
+		this.channel = channel;
+		this.numberOfPaths = header.getInt();
+		int numberOfGrids = header.getInt();
+		this.maturity = header.getDouble();
+		this.underlyingIndex = header.getInt();
+
+		ByteBuffer gridTable = ByteBuffer.allocate(numberOfGrids * GRID_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		channel.read(gridTable, HEADER_SIZE);
+		gridTable.flip();
+		numbersOfFixings = new int[numberOfGrids];
+		numbersOfElapsedFixings = new int[numberOfGrids];
+		isBrownianBridgeSampling = new boolean[numberOfGrids];
+		for(int grid = 0; grid < numberOfGrids; grid++) {
+			numbersOfFixings[grid] = gridTable.getInt();
+			numbersOfElapsedFixings[grid] = gridTable.getInt();
+			isBrownianBridgeSampling[grid] = gridTable.getInt() != 0;
+			gridTable.getInt();
+		}
+
+		long position = HEADER_SIZE + (long) numberOfGrids * GRID_ENTRY_SIZE;
+		discounting = mapColumn(channel, position, numberOfPaths);
+		terminalValue = mapColumn(channel, position += 8L * numberOfPaths, numberOfPaths);
+		maximum = new DoubleBuffer[numberOfGrids];
+		minimum = new DoubleBuffer[numberOfGrids];
+		for(int grid = 0; grid < numberOfGrids; grid++) {
+			maximum[grid] = mapColumn(channel, position += 8L * numberOfPaths, numberOfPaths);
+			minimum[grid] = mapColumn(channel, position += 8L * numberOfPaths, numberOfPaths);
+		}
+	}
+
+	/**
+	 * It stores the paths of the given model as seen by the given lookbacks, which must have the same maturity and
+	 * underlying, with one grid per distinct monitoring of them, and returns the store opened for reading. An
+	 * existing file is overwritten.
+	 */
+	public static LookbackPathStore write(Path file, AssetModelMonteCarloSimulationModel model, AbstractBuildMonitoring... products)
+			throws IOException, CalculationException {
+
+		if(products.length == 0) {
+			throw new IllegalArgumentException("At least one lookback is needed to define the stored grids.");
+		}
+		double maturity = products[0].getMaturity();
+		int underlyingIndex = products[0].getUnderlyingIndex();
+		List<AbstractBuildMonitoring> grids = new ArrayList<>();
+		for(AbstractBuildMonitoring product : products) {
+			if(product.getMaturity() != maturity || product.getUnderlyingIndex() != underlyingIndex) {
+				throw new IllegalArgumentException("The lookbacks of a path store must have the same maturity and underlying.");
+			}
+			if(findGrid(grids, product) < 0) {
+				// the extrema over the paths only, without the running extrema of a seasoned lookback
+				grids.add(product.getCloneWithRunningExtremum(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+						product.getNumberOfElapsedFixings()));
+			}
+		}
+
+		int numberOfPaths = model.getNumberOfPaths();
+		int numberOfGrids = grids.size();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + numberOfGrids * GRID_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC_NUMBER).putInt(VERSION).putInt(numberOfPaths).putInt(numberOfGrids);
+		header.putDouble(maturity).putInt(underlyingIndex).putInt(0);
+		for(AbstractBuildMonitoring grid : grids) {
+			header.putInt(grid.getNumberOfFixings()).putInt(grid.getNumberOfElapsedFixings())
+			.putInt(grid.isBrownianBridgeSampling() ? 1 : 0).putInt(0);
+		}
+		header.flip();
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.write(header, 0);
+
+			long position = header.limit();
+			RandomVariable discountingOfPaths = model.getMonteCarloWeights(maturity).div(model.getNumeraire(maturity))
+					.mult(model.getNumeraire(0.0)).div(model.getMonteCarloWeights(0.0));
+			writeColumn(channel, position, discountingOfPaths, numberOfPaths);
+			writeColumn(channel, position += 8L * numberOfPaths, model.getAssetValue(maturity, underlyingIndex), numberOfPaths);
+			for(AbstractBuildMonitoring grid : grids) {
+				PathExtremum pathExtremum = grid.getPathExtremum(model);
+				writeColumn(channel, position += 8L * numberOfPaths, pathExtremum.getMaximum(), numberOfPaths);
+				writeColumn(channel, position += 8L * numberOfPaths, pathExtremum.getMinimum(), numberOfPaths);
+			}
+			channel.force(false);
+		}
+		return open(file);
+	}
+
+	/**
+	 * It opens an existing store for reading.
+	 */
+	public static LookbackPathStore open(Path file) throws IOException {
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new LookbackPathStore(channel);
+		}
+		catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * It returns the value at time zero of the given lookback, which must have the maturity, the underlying and
+	 * one of the monitoring grids of the store. The paths are read in place from the mapped columns.
+	 */
+	public double getValue(AbstractBuildMonitoring product) {
+
+		int grid = getGrid(product);
+		DoubleBuffer maximumOfGrid = maximum[grid];
+		DoubleBuffer minimumOfGrid = minimum[grid];
+		LookbackType lookbackType = product.getLookbackType();
+		double strike = product.getStrike();
+		double runningMaximum = product.getRunningMaximum();
+		double runningMinimum = product.getRunningMinimum();
+
+		double sumOfValues = 0.0;
+		for(int path = 0; path < numberOfPaths; path++) {
+			double payoff = lookbackType.getPayoff(Math.max(maximumOfGrid.get(path), runningMaximum),
+					Math.min(minimumOfGrid.get(path), runningMinimum), terminalValue.get(path), strike);
+			sumOfValues += payoff * discounting.get(path);
+		}
+		return sumOfValues / numberOfPaths;
+	}
+
+	/**
+	 * It returns the values at time zero of the given lookbacks, see {@link #getValue(AbstractBuildMonitoring)}.
+	 */
+	public double[] getValues(AbstractBuildMonitoring... products) {
+
+		double[] values = new double[products.length];
+		for(int i = 0; i < products.length; i++) {
+			values[i] = getValue(products[i]);
+		}
+		return values;
+	}
+
+	/**
+	 * It returns true if the store has the grid and the maturity of the given lookback.
+	 */
+	public boolean isSupported(AbstractBuildMonitoring product) {
+		return product.getMaturity() == maturity && product.getUnderlyingIndex() == underlyingIndex && findGrid(product) >= 0;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public int getUnderlyingIndex() {
+		return underlyingIndex;
+	}
+
+	public int getNumberOfGrids() {
+		return numbersOfFixings.length;
+	}
+
+	/**
+	 * It closes the file. The mapped columns stay readable until they are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private int getGrid(AbstractBuildMonitoring product) {
+
+		if(product.getMaturity() != maturity || product.getUnderlyingIndex() != underlyingIndex) {
+			throw new IllegalArgumentException("The store has the paths of the underlying " + underlyingIndex
+					+ " up to the maturity " + maturity + ".");
+		}
+		int grid = findGrid(product);
+		if(grid < 0) {
+			throw new IllegalArgumentException("The store has no grid with " + product.getNumberOfFixings() + " fixings, "
+					+ product.getNumberOfElapsedFixings() + " of them elapsed, and Brownian bridge sampling "
+					+ product.isBrownianBridgeSampling() + ".");
+		}
+		return grid;
+	}
+
+	private int findGrid(AbstractBuildMonitoring product) {
+
+		for(int grid = 0; grid < numbersOfFixings.length; grid++) {
+			if(numbersOfFixings[grid] == product.getNumberOfFixings() && numbersOfElapsedFixings[grid] == product.getNumberOfElapsedFixings()
+					&& isBrownianBridgeSampling[grid] == product.isBrownianBridgeSampling()) {
+				return grid;
+			}
+		}
+		return -1;
+	}
+
+	private static int findGrid(List<AbstractBuildMonitoring> grids, AbstractBuildMonitoring product) {
+
+		for(int grid = 0; grid < grids.size(); grid++) {
+			if(grids.get(grid).getNumberOfFixings() == product.getNumberOfFixings()
+					&& grids.get(grid).getNumberOfElapsedFixings() == product.getNumberOfElapsedFixings()
+					&& grids.get(grid).isBrownianBridgeSampling() == product.isBrownianBridgeSampling()) {
+				return grid;
+			}
+		}
+		return -1;
+	}
+
+	private static DoubleBuffer mapColumn(FileChannel channel, long position, int numberOfPaths) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * numberOfPaths).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+	}
+
+	/*
+	 * The realizations are copied through a mapped buffer, which is written back to the file by the operating system.
+	 */
+	private static void writeColumn(FileChannel channel, long position, RandomVariable column, int numberOfPaths) throws IOException {
+
+		DoubleBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, 8L * numberOfPaths)
+				.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		for(int path = 0; path < numberOfPaths; path++) {
+			buffer.put(path, column.get(path));
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A set of lookbacks with common maturity and underlying, valued together from a single scan of the simulated
+ * paths.
+ *
+ * The specifications are grouped by number of fixings: every distinct monitoring grid keeps its own running
+ * maximum and minimum, and every time of the model's time discretization is read at most once, whatever the
+ * number of lookbacks. The value of the portfolio is the sum of the values of its lookbacks, see
+ * {@link #getValues(double, AssetModelMonteCarloSimulationModel)} for the single values.
+ */
+public class LookbackPortfolio extends AbstractAssetMonteCarloProduct {
+
+	private final double maturity;
+	private final int underlyingIndex;
+	private final List<LookbackSpecification> specifications;
+
+	public LookbackPortfolio(double maturity, int underlyingIndex, List<LookbackSpecification> specifications) {
+		this.maturity = maturity;
+		this.underlyingIndex = underlyingIndex;
+		this.specifications = new ArrayList<>(specifications);
+	}
+
+	public LookbackPortfolio(double maturity, List<LookbackSpecification> specifications) {
+		this(maturity, 0, specifications);
+	}
+
+	public List<LookbackSpecification> getSpecifications() {
+		return specifications;
+	}
+
+	@Override
+	public RandomVariable getValue(double evaluationTime, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+
+		RandomVariable values = model.getRandomVariableForConstant(0.0);
+		for(RandomVariable value : getValues(evaluationTime, model)) {
+			values = values.add(value);
+		}
+		return values;
+	}
+
+	/**
+	 * It returns the values of the lookbacks of the portfolio, in the order of the specifications.
+	 */
+	public RandomVariable[] getValues(double evaluationTime, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+
+		PathExtremum[] pathExtremumForSpecification = getPathExtrema(model);
+
+		final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
+		final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
+		final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
+		final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
+		RandomVariable discounting = monteCarloWeights.div(numeraireAtMaturity)
+				.mult(numeraireAtEvalTime).div(monteCarloWeightsAtEvalTime);
+
+		RandomVariable[] values = new RandomVariable[specifications.size()];
+		for(int specificationIndex = 0; specificationIndex < values.length; specificationIndex++) {
+			LookbackSpecification specification = specifications.get(specificationIndex);
+			PathExtremum pathExtremum = pathExtremumForSpecification[specificationIndex];
+
+			double[] payoffs = new double[pathExtremum.getNumberOfPaths()];
+			for(int path = 0; path < payoffs.length; path++) {
+				payoffs[path] = specification.getType().getPayoff(pathExtremum.getMaximum(path),
+						pathExtremum.getMinimum(path), pathExtremum.getTerminalValue(path), specification.getStrike());
+			}
+			values[specificationIndex] = new RandomVariableFromDoubleArray(maturity, payoffs).mult(discounting);
+		}
+		return values;
+	}
+
+	/**
+	 * It returns the values of the lookbacks of the portfolio at time zero, in the order of the specifications.
+	 */
+	public double[] getValues(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		RandomVariable[] values = getValues(0.0, model);
+		double[] averages = new double[values.length];
+		for(int specificationIndex = 0; specificationIndex < values.length; specificationIndex++) {
+			averages[specificationIndex] = values[specificationIndex].getAverage();
+		}
+		return averages;
+	}
+
+	/*
+	 * It scans the paths once and returns, for every specification, the extrema of its monitoring grid.
+	 * Specifications sharing the number of fixings share the same PathExtremum.
+	 */
+	private PathExtremum[] getPathExtrema(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+
+		TimeDiscretization td = model.getTimeDiscretization();
+		int maturityIndex = td.getTimeIndexNearestLessOrEqual(maturity);
+		int numberOfPaths = model.getNumberOfPaths();
+
+		List<Integer> distinctNumberOfFixings = new ArrayList<>();
+		int[] gridForSpecification = new int[specifications.size()];
+		for(int specificationIndex = 0; specificationIndex < specifications.size(); specificationIndex++) {
+			Integer numberOfFixings = specifications.get(specificationIndex).getNumberOfFixings();
+			if(!distinctNumberOfFixings.contains(numberOfFixings)) {
+				distinctNumberOfFixings.add(numberOfFixings);
+			}
+			gridForSpecification[specificationIndex] = distinctNumberOfFixings.indexOf(numberOfFixings);
+		}
+
+		int numberOfGrids = distinctNumberOfFixings.size();
+		boolean[][] isMonitoredOnGrid = new boolean[maturityIndex + 1][numberOfGrids];
+		for(int grid = 0; grid < numberOfGrids; grid++) {
+			for(int timeIndex : AbstractBuildMonitoring.getMonitoringTimeIndices(td, distinctNumberOfFixings.get(grid), maturity)) {
+				isMonitoredOnGrid[timeIndex][grid] = true;
+			}
+		}
+
+		double[][] maximum = new double[numberOfGrids][numberOfPaths];
+		double[][] minimum = new double[numberOfGrids][numberOfPaths];
+		for(int grid = 0; grid < numberOfGrids; grid++) {
+			Arrays.fill(maximum[grid], Double.NEGATIVE_INFINITY);
+			Arrays.fill(minimum[grid], Double.POSITIVE_INFINITY);
+		}
+
+		for(int timeIndex = 0; timeIndex <= maturityIndex; timeIndex++) {
+			RandomVariable realizationAtCurrentTime = null;
+			for(int grid = 0; grid < numberOfGrids; grid++) {
+				if(!isMonitoredOnGrid[timeIndex][grid]) {
+					continue;
+				}
+				if(realizationAtCurrentTime == null) {
+					realizationAtCurrentTime = model.getAssetValue(timeIndex, underlyingIndex);
+				}
+				double[] maximumOnGrid = maximum[grid];
+				double[] minimumOnGrid = minimum[grid];
+				for(int path = 0; path < numberOfPaths; path++) {
+					double value = realizationAtCurrentTime.get(path);
+					if(value > maximumOnGrid[path]) {
+						maximumOnGrid[path] = value;
+					}
+					if(value < minimumOnGrid[path]) {
+						minimumOnGrid[path] = value;
+					}
+				}
+			}
+		}
+
+		RandomVariable finalValue = model.getAssetValue(maturityIndex, underlyingIndex);
+		double[] terminalValue = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			terminalValue[path] = finalValue.get(path);
+		}
+
+		PathExtremum[] pathExtremumForGrid = new PathExtremum[numberOfGrids];
+		for(int grid = 0; grid < numberOfGrids; grid++) {
+			pathExtremumForGrid[grid] = new PathExtremum(maturity, maximum[grid], minimum[grid], terminalValue);
+		}
+
+		PathExtremum[] pathExtremumForSpecification = new PathExtremum[specifications.size()];
+		for(int specificationIndex = 0; specificationIndex < specifications.size(); specificationIndex++) {
+			pathExtremumForSpecification[specificationIndex] = pathExtremumForGrid[gridForSpecification[specificationIndex]];
+		}
+		return pathExtremumForSpecification;
+	}
+}
@@ -34,6 +34,20 @@ public class LookbackPutFixedStrike extends AbstractBuildMonitoring {
 			this.strike = strike; 
 		}
 		
+		public LookbackPutFixedStrike (double maturity, double strike, boolean isBrownianBridgeSampling) {
+			super(0, isBrownianBridgeSampling);
+			this.maturity=maturity;
+			this.underlyingIndex=0;
+			this.strike = strike; 
+		}
+		
+		public LookbackPutFixedStrike (int underlyingIndex, double maturity, double strike, boolean isBrownianBridgeSampling) {
+			super(0, isBrownianBridgeSampling);
+			this.maturity=maturity;
+			this.underlyingIndex=underlyingIndex;
+			this.strike = strike; 
+		}
+		
 		public LookbackPutFixedStrike (double maturity, int underlyingIndex, int discretelyTimes, double strike) {
 			super(discretelyTimes);
 			this.maturity=maturity;
@@ -43,29 +57,37 @@ public class LookbackPutFixedStrike extends AbstractBuildMonitoring {
 		
 
 		
+		@Override
+		public double getMaturity() {
+			return maturity;
+		}
+
+		@Override
+		public int getUnderlyingIndex() {
+			return underlyingIndex;
+		}
+
+		@Override
+		public LookbackType getLookbackType() {
+			return LookbackType.PUT_FIXED_STRIKE;
+		}
+
+		@Override
+		public double getStrike() {
+			return strike;
+		}
+
+		@Override
+		protected AbstractBuildMonitoring getCloneWithModifiedMaturity(double maturity) {
+			return isBrownianBridgeSampling() ? new LookbackPutFixedStrike(getUnderlyingIndex(), maturity, strike, true)
+					: new LookbackPutFixedStrike(maturity, getUnderlyingIndex(), getNumberOfFixings(), strike);
+		}
+
 		@Override
 		public RandomVariable getValue(double evaluationTime, AssetModelMonteCarloSimulationModel model)
 				throws CalculationException {
 			
-			
-			double[] discretizedTimes = buildMonitoringTimes(model);	
-			RandomVariable minValueForEveryRandomVariable =  getMin(discretizedTimes, maturity, underlyingIndex, model);
-			
-			RandomVariable strikeRandom = model.getRandomVariableForConstant(this.strike);
-			RandomVariable values = strikeRandom.sub(minValueForEveryRandomVariable);
-			
-
-			final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
-			final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
-			values = values.div(numeraireAtMaturity).mult(monteCarloWeights);
-
-			// ...to evaluation time.
-			final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
-			final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
-			values = values.mult(numeraireAtEvalTime).div(monteCarloWeightsAtEvalTime);
-		
-			return values;
-		
+			return getDiscountedPayoffs(evaluationTime, model);
 		}
 
 	}
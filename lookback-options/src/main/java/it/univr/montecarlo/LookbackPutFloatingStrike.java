@@ -32,6 +32,20 @@ public class LookbackPutFloatingStrike extends AbstractBuildMonitoring  {
 		 
 	}
 	
+	public LookbackPutFloatingStrike (double maturity, boolean isBrownianBridgeSampling) {
+		super(0, isBrownianBridgeSampling);
+		this.maturity=maturity;
+		this.underlyingIndex=0;
+	
+	}
+	
+	public LookbackPutFloatingStrike (int underlyingIndex, double maturity, boolean isBrownianBridgeSampling) {
+		super(0, isBrownianBridgeSampling);
+		this.maturity=maturity;
+		this.underlyingIndex=underlyingIndex;
+	
+	}
+	
 	public LookbackPutFloatingStrike (double maturity, int underlyingIndex, int discretelyTimes) {
 		super(discretelyTimes);
 		this.maturity=maturity;
@@ -40,31 +54,32 @@ public class LookbackPutFloatingStrike extends AbstractBuildMonitoring  {
 	}
 
 	
+	@Override
+	public double getMaturity() {
+		return maturity;
+	}
+
+	@Override
+	public int getUnderlyingIndex() {
+		return underlyingIndex;
+	}
+
+	@Override
+	public LookbackType getLookbackType() {
+		return LookbackType.PUT_FLOATING_STRIKE;
+	}
+
+	@Override
+	protected AbstractBuildMonitoring getCloneWithModifiedMaturity(double maturity) {
+		return isBrownianBridgeSampling() ? new LookbackPutFloatingStrike(getUnderlyingIndex(), maturity, true)
+				: new LookbackPutFloatingStrike(maturity, getUnderlyingIndex(), getNumberOfFixings());
+	}
+
 	@Override
 	public RandomVariable getValue(double evaluationTime, AssetModelMonteCarloSimulationModel model)
 			throws CalculationException {
 		
-		
-		double[] discretizedTimes = buildMonitoringTimes(model);	
-	
-		RandomVariable maxvaluesForRandomVariable =  getMax(discretizedTimes, maturity, underlyingIndex, model);
-		RandomVariable finalValue = model.getAssetValue(model.getTimeIndex(maturity), underlyingIndex);
-		RandomVariable values =  maxvaluesForRandomVariable.sub(finalValue).floor(0.0);
-		
-		
-		
-		
-		final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
-		final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
-		values = values.div(numeraireAtMaturity).mult(monteCarloWeights);
-
-		// ...to evaluation time.
-		final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
-		final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
-		values = values.mult(numeraireAtEvalTime).div(monteCarloWeightsAtEvalTime);
-	
-		return values;
-	
+		return getDiscountedPayoffs(evaluationTime, model);
 	}
 
 }
@@ -0,0 +1,43 @@
+package it.univr.montecarlo;
+
+/**
+ * The Black-Scholes market data of a scenario of {@link LookbackScenarioValuation}: the initial value of the
+ * underlying, the risk free rate and the volatility.
+ */
+public class LookbackScenario {
+
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+
+	public LookbackScenario(double initialValue, double riskFreeRate, double volatility) {
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+	}
+
+	/**
+	 * It returns the scenario with the initial value and the volatility multiplied by the given factors and the
+	 * given shift added to the risk free rate.
+	 */
+	public LookbackScenario getShiftedScenario(double initialValueFactor, double riskFreeRateShift, double volatilityFactor) {
+		return new LookbackScenario(initialValue * initialValueFactor, riskFreeRate + riskFreeRateShift, volatility * volatilityFactor);
+	}
+
+	public double getInitialValue() {
+		return initialValue;
+	}
+
+	public double getRiskFreeRate() {
+		return riskFreeRate;
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+
+	@Override
+	public String toString() {
+		return "LookbackScenario [initialValue=" + initialValue + ", riskFreeRate=" + riskFreeRate + ", volatility=" + volatility + "]";
+	}
+}
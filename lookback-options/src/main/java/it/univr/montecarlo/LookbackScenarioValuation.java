@@ -0,0 +1,204 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.time.TimeDiscretization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * It values a book of lookbacks under many Black-Scholes scenarios with common random numbers, e.g., for the
+ * shocks of a value at risk.
+ *
+ * The Brownian paths are generated once, when the valuation is constructed, and kept as the Brownian motion W at
+ * every time of the time discretization. Under a scenario the logarithm of the underlying at time t is
+ * log(S(0)) + (r - sigma^2/2) t + sigma W(t), so the paths of all the scenarios are rescaled from the same
+ * Brownian motion and the differences of the values between scenarios are free of the noise of independent
+ * simulations. The extrema are taken on the logarithm and exponentiated once per path.
+ *
+ * The scenarios are evaluated in parallel by an executor, one task per scenario, each one allocating three
+ * arrays of one value per path while it runs: besides the Brownian motion, the memory is bounded by the number
+ * of threads, not by the number of scenarios. Every scenario is valued by a single task, so the results do not
+ * depend on the executor.
+ *
+ * The lookbacks are valued on the underlying of the scenarios whatever their underlying index, and Brownian bridge
+ * sampling is not supported.
+ */
+public class LookbackScenarioValuation {
+
+	private final TimeDiscretization timeDiscretization;
+	private final int numberOfPaths;
+	private final ExecutorService executor;
+
+	/*
+	 * brownianMotion[timeIndex - 1][path] is W at the time with index timeIndex, W being zero at the first time.
+	 */
+	private final double[][] brownianMotion;
+
+	public LookbackScenarioValuation(TimeDiscretization timeDiscretization, int numberOfPaths, int seed,
+			LookbackPathDriverType pathDriverType, ExecutorService executor) {
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfPaths = numberOfPaths;
+		this.executor = executor;
+
+		int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+		brownianMotion = new double[numberOfTimeSteps][numberOfPaths];
+		LookbackPathDriver pathDriver = pathDriverType.getPathDriver(timeDiscretization, seed);
+		int blockSize = Math.min(numberOfPaths, pathDriver.getMaximumBlockSize());
+		double[] brownianIncrement = new double[blockSize];
+		for(int firstPath = 0; firstPath < numberOfPaths; firstPath += blockSize) {
+			int lastPath = Math.min(firstPath + blockSize, numberOfPaths);
+			pathDriver.nextBlock(lastPath - firstPath);
+			for(int timeIndex = 0; timeIndex < numberOfTimeSteps; timeIndex++) {
+				pathDriver.getBrownianIncrements(timeIndex, brownianIncrement);
+				double[] brownianMotionAtTime = brownianMotion[timeIndex];
+				for(int path = firstPath; path < lastPath; path++) {
+					double brownianMotionBefore = timeIndex == 0 ? 0.0 : brownianMotion[timeIndex - 1][path];
+					brownianMotionAtTime[path] = brownianMotionBefore + brownianIncrement[path - firstPath];
+				}
+			}
+		}
+	}
+
+	/**
+	 * It uses pseudo-random numbers from a Mersenne twister and the common fork-join pool.
+	 */
+	public LookbackScenarioValuation(TimeDiscretization timeDiscretization, int numberOfPaths, int seed) {
+		this(timeDiscretization, numberOfPaths, seed, LookbackPathDriverType.PSEUDO_RANDOM, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * It returns the value at time zero of the book, i.e., the sum of the values of the products times their
+	 * quantities, under every scenario.
+	 */
+	public double[] getValues(AbstractBuildMonitoring[] products, double[] quantities, LookbackScenario[] scenarios)
+			throws CalculationException {
+
+		if(products.length != quantities.length) {
+			throw new IllegalArgumentException("There must be one quantity per product.");
+		}
+		final int[][] monitoringTimeIndices = new int[products.length][];
+		for(int i = 0; i < products.length; i++) {
+			if(products[i].isBrownianBridgeSampling()) {
+				throw new IllegalArgumentException("Brownian bridge sampling is not supported by the scenario valuation.");
+			}
+			monitoringTimeIndices[i] = AbstractBuildMonitoring.getMonitoringTimeIndices(timeDiscretization,
+					products[i].getNumberOfFixings(), products[i].getNumberOfElapsedFixings(), products[i].getMaturity());
+		}
+
+		List<Future<Double>> valueFutures = new ArrayList<>(scenarios.length);
+		for(LookbackScenario scenario : scenarios) {
+			Callable<Double> scenarioTask = () -> {
+				double[] logMaximum = new double[numberOfPaths];
+				double[] logMinimum = new double[numberOfPaths];
+				double[] logTerminalValue = new double[numberOfPaths];
+				double value = 0.0;
+				for(int i = 0; i < products.length; i++) {
+					value += quantities[i] * getValue(products[i], monitoringTimeIndices[i], scenario, logMaximum, logMinimum, logTerminalValue);
+				}
+				return value;
+			};
+			valueFutures.add(executor.submit(scenarioTask));
+		}
+
+		double[] values = new double[scenarios.length];
+		try {
+			for(int scenario = 0; scenario < scenarios.length; scenario++) {
+				values[scenario] = valueFutures.get(scenario).get();
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculationException(e);
+		}
+		catch(ExecutionException e) {
+			throw new CalculationException(e.getCause());
+		}
+		return values;
+	}
+
+	/**
+	 * It returns the value at time zero of the product under every scenario.
+	 */
+	public double[] getValues(AbstractBuildMonitoring product, LookbackScenario[] scenarios) throws CalculationException {
+		return getValues(new AbstractBuildMonitoring[] { product }, new double[] { 1.0 }, scenarios);
+	}
+
+	/**
+	 * It returns the profit and loss of the book under every scenario, i.e., its value under the scenario minus
+	 * its value under the base scenario, on the same paths.
+	 */
+	public double[] getProfitAndLoss(AbstractBuildMonitoring[] products, double[] quantities, LookbackScenario baseScenario,
+			LookbackScenario[] scenarios) throws CalculationException {
+
+		double baseValue = getValues(products, quantities, new LookbackScenario[] { baseScenario })[0];
+		double[] profitAndLoss = getValues(products, quantities, scenarios);
+		for(int scenario = 0; scenario < profitAndLoss.length; scenario++) {
+			profitAndLoss[scenario] -= baseValue;
+		}
+		return profitAndLoss;
+	}
+
+	public TimeDiscretization getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	/*
+	 * The value of a single product under a scenario. The arrays are working memory of one value per path.
+	 */
+	private double getValue(AbstractBuildMonitoring product, int[] monitoringTimeIndices, LookbackScenario scenario,
+			double[] logMaximum, double[] logMinimum, double[] logTerminalValue) {
+
+		double volatility = scenario.getVolatility();
+		double drift = scenario.getRiskFreeRate() - 0.5 * volatility * volatility;
+		double maturity = product.getMaturity();
+
+		Arrays.fill(logMaximum, Double.NEGATIVE_INFINITY);
+		Arrays.fill(logMinimum, Double.POSITIVE_INFINITY);
+		for(int timeIndex : monitoringTimeIndices) {
+			if(timeIndex == 0) {
+				for(int path = 0; path < numberOfPaths; path++) {
+					logMaximum[path] = Math.max(logMaximum[path], 0.0);
+					logMinimum[path] = Math.min(logMinimum[path], 0.0);
+				}
+				continue;
+			}
+			double driftTimesTime = drift * timeDiscretization.getTime(timeIndex);
+			double[] brownianMotionAtTime = brownianMotion[timeIndex - 1];
+			for(int path = 0; path < numberOfPaths; path++) {
+				double logReturn = driftTimesTime + volatility * brownianMotionAtTime[path];
+				logMaximum[path] = Math.max(logMaximum[path], logReturn);
+				logMinimum[path] = Math.min(logMinimum[path], logReturn);
+			}
+		}
+
+		int maturityIndex = timeDiscretization.getTimeIndexNearestLessOrEqual(maturity);
+		double driftTimesMaturity = drift * timeDiscretization.getTime(maturityIndex);
+		for(int path = 0; path < numberOfPaths; path++) {
+			logTerminalValue[path] = maturityIndex == 0 ? 0.0 : driftTimesMaturity + volatility * brownianMotion[maturityIndex - 1][path];
+		}
+
+		LookbackType lookbackType = product.getLookbackType();
+		double initialValue = scenario.getInitialValue();
+		double strike = product.getStrike();
+		double runningMaximum = product.getRunningMaximum();
+		double runningMinimum = product.getRunningMinimum();
+		double sumOfPayoffs = 0.0;
+		for(int path = 0; path < numberOfPaths; path++) {
+			sumOfPayoffs += lookbackType.getPayoff(Math.max(initialValue * Math.exp(logMaximum[path]), runningMaximum),
+					Math.min(initialValue * Math.exp(logMinimum[path]), runningMinimum),
+					initialValue * Math.exp(logTerminalValue[path]), strike);
+		}
+		return Math.exp(-scenario.getRiskFreeRate() * maturity) * sumOfPayoffs / numberOfPaths;
+	}
+}
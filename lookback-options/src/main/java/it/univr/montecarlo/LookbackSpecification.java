@@ -0,0 +1,49 @@
+package it.univr.montecarlo;
+
+/**
+ * The description of a single lookback inside a {@link LookbackPortfolio}: its type, its strike (ignored for
+ * floating strikes) and its number of fixings, where zero means that every time of the model's time
+ * discretization is a monitoring time, as for the products of this package.
+ */
+public class LookbackSpecification {
+
+	private final LookbackType type;
+	private final double strike;
+	private final int numberOfFixings;
+
+	public LookbackSpecification(LookbackType type, double strike, int numberOfFixings) {
+		if(numberOfFixings < 0) {
+			throw new IllegalArgumentException("The number of fixings must be non negative.");
+		}
+		this.type = type;
+		this.strike = strike;
+		this.numberOfFixings = numberOfFixings;
+	}
+
+	/**
+	 * It builds the specification of a floating-strike lookback.
+	 */
+	public LookbackSpecification(LookbackType type, int numberOfFixings) {
+		this(type, Double.NaN, numberOfFixings);
+		if(type.isFixedStrike()) {
+			throw new IllegalArgumentException("A fixed-strike lookback needs a strike.");
+		}
+	}
+
+	public LookbackType getType() {
+		return type;
+	}
+
+	public double getStrike() {
+		return strike;
+	}
+
+	public int getNumberOfFixings() {
+		return numberOfFixings;
+	}
+
+	@Override
+	public String toString() {
+		return type + (type.isFixedStrike() ? " strike " + strike : "") + " fixings " + numberOfFixings;
+	}
+}
@@ -0,0 +1,121 @@
+package it.univr.montecarlo;
+
+import it.univr.analyticprices.AnalyticPrices;
+
+/**
+ * The four lookback payoffs implemented in this package, written in terms of the running maximum, the running
+ * minimum and the value of the underlying at maturity.
+ */
+public enum LookbackType {
+
+	CALL_FIXED_STRIKE,
+	PUT_FIXED_STRIKE,
+	CALL_FLOATING_STRIKE,
+	PUT_FLOATING_STRIKE;
+
+	/**
+	 * It returns the payoff of a single path. The strike is ignored for the floating-strike types.
+	 */
+	public double getPayoff(double maximum, double minimum, double terminalValue, double strike) {
+		switch(this) {
+		case CALL_FIXED_STRIKE:
+			return Math.max(maximum - strike, 0.0);
+		case PUT_FIXED_STRIKE:
+			return Math.max(strike - minimum, 0.0);
+		case CALL_FLOATING_STRIKE:
+			return Math.max(terminalValue - minimum, 0.0);
+		case PUT_FLOATING_STRIKE:
+			return Math.max(maximum - terminalValue, 0.0);
+		default:
+			throw new IllegalStateException("Unknown lookback type " + this);
+		}
+	}
+
+	/**
+	 * It returns the derivative of the payoff of a single path with respect to the running maximum, zero where the
+	 * payoff does not depend on it or is out of the money.
+	 */
+	public double getPayoffDerivativeWithRespectToMaximum(double maximum, double minimum, double terminalValue, double strike) {
+		switch(this) {
+		case CALL_FIXED_STRIKE:
+			return maximum > strike ? 1.0 : 0.0;
+		case PUT_FLOATING_STRIKE:
+			return maximum > terminalValue ? 1.0 : 0.0;
+		default:
+			return 0.0;
+		}
+	}
+
+	/**
+	 * It returns the derivative of the payoff of a single path with respect to the running minimum.
+	 */
+	public double getPayoffDerivativeWithRespectToMinimum(double maximum, double minimum, double terminalValue, double strike) {
+		switch(this) {
+		case PUT_FIXED_STRIKE:
+			return minimum < strike ? -1.0 : 0.0;
+		case CALL_FLOATING_STRIKE:
+			return terminalValue > minimum ? -1.0 : 0.0;
+		default:
+			return 0.0;
+		}
+	}
+
+	/**
+	 * It returns the derivative of the payoff of a single path with respect to the value of the underlying at
+	 * maturity.
+	 */
+	public double getPayoffDerivativeWithRespectToTerminalValue(double maximum, double minimum, double terminalValue, double strike) {
+		switch(this) {
+		case CALL_FLOATING_STRIKE:
+			return terminalValue > minimum ? 1.0 : 0.0;
+		case PUT_FLOATING_STRIKE:
+			return maximum > terminalValue ? -1.0 : 0.0;
+		default:
+			return 0.0;
+		}
+	}
+
+	/**
+	 * It returns the analytic value at time zero of the continuously monitored lookback of this type under
+	 * Black-Scholes dynamics, see {@link AnalyticPrices}.
+	 */
+	public double getContinuouslyMonitoredAnalyticValue(double spotPrice, double riskFreeRate, double volatility, double maturity, double strike) {
+		switch(this) {
+		case CALL_FIXED_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike);
+		case PUT_FIXED_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike);
+		case CALL_FLOATING_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity);
+		case PUT_FLOATING_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity);
+		default:
+			throw new IllegalStateException("Unknown lookback type " + this);
+		}
+	}
+
+	/**
+	 * It returns the analytic value of the seasoned continuously monitored lookback of this type, whose underlying
+	 * has already reached the given running extrema, under Black-Scholes dynamics. The maturity is the remaining
+	 * time to maturity, and infinite running extrema give the value of the lookback starting today.
+	 */
+	public double getContinuouslyMonitoredAnalyticValue(double spotPrice, double riskFreeRate, double volatility, double maturity, double strike,
+			double runningMaximum, double runningMinimum) {
+		switch(this) {
+		case CALL_FIXED_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, runningMaximum);
+		case PUT_FIXED_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, runningMinimum);
+		case CALL_FLOATING_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, runningMinimum);
+		case PUT_FLOATING_STRIKE:
+			return AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, runningMaximum);
+		default:
+			throw new IllegalStateException("Unknown lookback type " + this);
+		}
+	}
+
+	public boolean isFixedStrike() {
+		return this == CALL_FIXED_STRIKE || this == PUT_FIXED_STRIKE;
+	}
+}
@@ -0,0 +1,40 @@
+package it.univr.montecarlo;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Brownian increments from a Mersenne twister, drawn time step by time step and, inside a time step, path by path.
+ * BrownianMotionFromMersenneRandomNumbers draws path by path and, inside a path, time step by time step, so with the
+ * same seed the two give different paths, with the same distribution.
+ */
+public class MersennePathDriver implements LookbackPathDriver {
+
+	private final TimeDiscretization timeDiscretization;
+	private final MersenneTwister mersenneTwister;
+	private int numberOfPathsInBlock;
+
+	public MersennePathDriver(TimeDiscretization timeDiscretization, int seed) {
+		this.timeDiscretization = timeDiscretization;
+		this.mersenneTwister = new MersenneTwister(seed);
+	}
+
+	@Override
+	public int getMaximumBlockSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void nextBlock(int numberOfPathsInBlock) {
+		this.numberOfPathsInBlock = numberOfPathsInBlock;
+	}
+
+	@Override
+	public void getBrownianIncrements(int timeIndex, double[] brownianIncrements) {
+		double sqrtOfTimeStep = Math.sqrt(timeDiscretization.getTimeStep(timeIndex));
+		for(int path = 0; path < numberOfPathsInBlock; path++) {
+			brownianIncrements[path] = NormalDistribution.inverseCumulativeDistribution(mersenneTwister.nextDouble()) * sqrtOfTimeStep;
+		}
+	}
+}
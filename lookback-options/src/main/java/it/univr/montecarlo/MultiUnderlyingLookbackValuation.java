@@ -0,0 +1,196 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.stochastic.RandomVariable;
+
+import java.util.Arrays;
+
+/**
+ * It values lookbacks of the same type, maturity and number of fixings on several underlyings of a multi-asset
+ * model, e.g., a MonteCarloMultiAssetBlackScholesModel, from a single scan of the simulated paths.
+ *
+ * The monitoring times are resolved once, every time is visited once for all the underlyings and the numeraire
+ * and the Monte Carlo weights are read once, where valuing the lookbacks one by one repeats all of this for every
+ * underlying. The same scan gives the extrema of the best-of and of the worst-of the underlyings, see
+ * {@link BestOrWorstOfLookback}.
+ */
+public class MultiUnderlyingLookbackValuation {
+
+	private final double maturity;
+	private final int numberOfFixings;
+	private final int[] underlyingIndices;
+
+	public MultiUnderlyingLookbackValuation(double maturity, int numberOfFixings, int[] underlyingIndices) {
+		if(numberOfFixings < 0) {
+			throw new IllegalArgumentException("The number of fixings must be non negative.");
+		}
+		this.maturity = maturity;
+		this.numberOfFixings = numberOfFixings;
+		this.underlyingIndices = underlyingIndices.clone();
+	}
+
+	/**
+	 * It values continuously monitored lookbacks, i.e., monitored at every time of the model.
+	 */
+	public MultiUnderlyingLookbackValuation(double maturity, int[] underlyingIndices) {
+		this(maturity, 0, underlyingIndices);
+	}
+
+	/**
+	 * It scans the monitoring times once and returns the extrema of all the underlyings and of their best-of and
+	 * worst-of.
+	 */
+	public MultiUnderlyingPathExtremum getPathExtremum(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		return getPathExtremum(model, true);
+	}
+
+	/*
+	 * Without isBestOfAndWorstOfNeeded the best-of and the worst-of are not tracked and are null.
+	 */
+	private MultiUnderlyingPathExtremum getPathExtremum(AssetModelMonteCarloSimulationModel model, boolean isBestOfAndWorstOfNeeded)
+			throws CalculationException {
+
+		int numberOfUnderlyings = underlyingIndices.length;
+		int numberOfPaths = model.getNumberOfPaths();
+
+		double[] maximum = new double[numberOfUnderlyings * numberOfPaths];
+		double[] minimum = new double[numberOfUnderlyings * numberOfPaths];
+		double[] bestOfMaximum = new double[numberOfPaths];
+		double[] bestOfMinimum = new double[numberOfPaths];
+		double[] worstOfMaximum = new double[numberOfPaths];
+		double[] worstOfMinimum = new double[numberOfPaths];
+		double[] bestOfValue = new double[numberOfPaths];
+		double[] worstOfValue = new double[numberOfPaths];
+		Arrays.fill(maximum, Double.NEGATIVE_INFINITY);
+		Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+		Arrays.fill(bestOfMaximum, Double.NEGATIVE_INFINITY);
+		Arrays.fill(bestOfMinimum, Double.POSITIVE_INFINITY);
+		Arrays.fill(worstOfMaximum, Double.NEGATIVE_INFINITY);
+		Arrays.fill(worstOfMinimum, Double.POSITIVE_INFINITY);
+
+		for(int timeIndex : AbstractBuildMonitoring.getMonitoringTimeIndices(model.getTimeDiscretization(), numberOfFixings, maturity)) {
+			Arrays.fill(bestOfValue, Double.NEGATIVE_INFINITY);
+			Arrays.fill(worstOfValue, Double.POSITIVE_INFINITY);
+
+			for(int underlying = 0; underlying < numberOfUnderlyings; underlying++) {
+				RandomVariable realizationAtCurrentTime = model.getAssetValue(timeIndex, underlyingIndices[underlying]);
+				int offset = underlying * numberOfPaths;
+				for(int path = 0; path < numberOfPaths; path++) {
+					double value = realizationAtCurrentTime.get(path);
+					if(value > maximum[offset + path]) {
+						maximum[offset + path] = value;
+					}
+					if(value < minimum[offset + path]) {
+						minimum[offset + path] = value;
+					}
+				}
+				if(!isBestOfAndWorstOfNeeded) {
+					continue;
+				}
+				for(int path = 0; path < numberOfPaths; path++) {
+					double value = realizationAtCurrentTime.get(path);
+					if(value > bestOfValue[path]) {
+						bestOfValue[path] = value;
+					}
+					if(value < worstOfValue[path]) {
+						worstOfValue[path] = value;
+					}
+				}
+			}
+
+			for(int path = 0; isBestOfAndWorstOfNeeded && path < numberOfPaths; path++) {
+				bestOfMaximum[path] = Math.max(bestOfMaximum[path], bestOfValue[path]);
+				bestOfMinimum[path] = Math.min(bestOfMinimum[path], bestOfValue[path]);
+				worstOfMaximum[path] = Math.max(worstOfMaximum[path], worstOfValue[path]);
+				worstOfMinimum[path] = Math.min(worstOfMinimum[path], worstOfValue[path]);
+			}
+		}
+
+		int maturityIndex = model.getTimeIndex(maturity);
+		double[] terminalValue = new double[numberOfUnderlyings * numberOfPaths];
+		double[] bestOfTerminalValue = new double[numberOfPaths];
+		double[] worstOfTerminalValue = new double[numberOfPaths];
+		Arrays.fill(bestOfTerminalValue, Double.NEGATIVE_INFINITY);
+		Arrays.fill(worstOfTerminalValue, Double.POSITIVE_INFINITY);
+		for(int underlying = 0; underlying < numberOfUnderlyings; underlying++) {
+			RandomVariable finalValue = model.getAssetValue(maturityIndex, underlyingIndices[underlying]);
+			int offset = underlying * numberOfPaths;
+			for(int path = 0; path < numberOfPaths; path++) {
+				double value = finalValue.get(path);
+				terminalValue[offset + path] = value;
+				bestOfTerminalValue[path] = Math.max(bestOfTerminalValue[path], value);
+				worstOfTerminalValue[path] = Math.min(worstOfTerminalValue[path], value);
+			}
+		}
+
+		return new MultiUnderlyingPathExtremum(maturity, numberOfUnderlyings, numberOfPaths, maximum, minimum, terminalValue,
+				isBestOfAndWorstOfNeeded ? new PathExtremum(maturity, bestOfMaximum, bestOfMinimum, bestOfTerminalValue) : null,
+				isBestOfAndWorstOfNeeded ? new PathExtremum(maturity, worstOfMaximum, worstOfMinimum, worstOfTerminalValue) : null);
+	}
+
+	/**
+	 * It returns the values at time zero of the lookbacks of the given type on the underlyings, in the order of the
+	 * underlying indices.
+	 *
+	 * @param strikes The strike of every lookback, or null for the floating-strike types.
+	 */
+	public double[] getValues(LookbackType lookbackType, double[] strikes, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+
+		if(lookbackType.isFixedStrike() && (strikes == null || strikes.length != underlyingIndices.length)) {
+			throw new IllegalArgumentException("A fixed-strike lookback needs a strike for every underlying.");
+		}
+
+		MultiUnderlyingPathExtremum pathExtremum = getPathExtremum(model, false);
+		double[] discounting = getDiscounting(model);
+
+		double[] values = new double[underlyingIndices.length];
+		for(int underlying = 0; underlying < values.length; underlying++) {
+			double strike = strikes == null ? Double.NaN : strikes[underlying];
+			double sumOfDiscountedPayoffs = 0.0;
+			for(int path = 0; path < discounting.length; path++) {
+				sumOfDiscountedPayoffs += discounting[path] * lookbackType.getPayoff(pathExtremum.getMaximum(underlying, path),
+						pathExtremum.getMinimum(underlying, path), pathExtremum.getTerminalValue(underlying, path), strike);
+			}
+			values[underlying] = sumOfDiscountedPayoffs / discounting.length;
+		}
+		return values;
+	}
+
+	/**
+	 * It returns the values at time zero of the floating-strike lookbacks of the given type on the underlyings.
+	 */
+	public double[] getValues(LookbackType lookbackType, AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		return getValues(lookbackType, null, model);
+	}
+
+	/*
+	 * It returns, path by path, the factor from a payoff at maturity to its value at time zero.
+	 */
+	private double[] getDiscounting(AssetModelMonteCarloSimulationModel model) throws CalculationException {
+
+		RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
+		RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
+		RandomVariable numeraireAtZero = model.getNumeraire(0.0);
+		RandomVariable monteCarloWeightsAtZero = model.getMonteCarloWeights(0.0);
+		double[] discountFactors = new double[model.getNumberOfPaths()];
+		for(int path = 0; path < discountFactors.length; path++) {
+			discountFactors[path] = monteCarloWeights.get(path) / numeraireAtMaturity.get(path) * numeraireAtZero.get(path)
+					/ monteCarloWeightsAtZero.get(path);
+		}
+		return discountFactors;
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public int getNumberOfFixings() {
+		return numberOfFixings;
+	}
+
+	public int[] getUnderlyingIndices() {
+		return underlyingIndices.clone();
+	}
+}
@@ -0,0 +1,75 @@
+package it.univr.montecarlo;
+
+/**
+ * It holds, for several underlyings and path by path, the running maximum, the running minimum and the value at
+ * maturity of every underlying, together with the same quantities for the best-of and the worst-of the
+ * underlyings, i.e., their largest and smallest value at every monitoring time.
+ *
+ * The extrema of all the underlyings are stored in one array per quantity, underlying after underlying, so that
+ * the values of an underlying at a monitoring time are read and written contiguously.
+ */
+public class MultiUnderlyingPathExtremum {
+
+	private final double maturity;
+	private final int numberOfUnderlyings;
+	private final int numberOfPaths;
+	private final double[] maximum;
+	private final double[] minimum;
+	private final double[] terminalValue;
+	private final PathExtremum bestOf;
+	private final PathExtremum worstOf;
+
+	public MultiUnderlyingPathExtremum(double maturity, int numberOfUnderlyings, int numberOfPaths, double[] maximum,
+			double[] minimum, double[] terminalValue, PathExtremum bestOf, PathExtremum worstOf) {
+		this.maturity = maturity;
+		this.numberOfUnderlyings = numberOfUnderlyings;
+		this.numberOfPaths = numberOfPaths;
+		this.maximum = maximum;
+		this.minimum = minimum;
+		this.terminalValue = terminalValue;
+		this.bestOf = bestOf;
+		this.worstOf = worstOf;
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public int getNumberOfUnderlyings() {
+		return numberOfUnderlyings;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	/**
+	 * It returns the running maximum of the given path of the underlying with the given position in the
+	 * underlying indices of the valuation.
+	 */
+	public double getMaximum(int underlying, int path) {
+		return maximum[underlying * numberOfPaths + path];
+	}
+
+	public double getMinimum(int underlying, int path) {
+		return minimum[underlying * numberOfPaths + path];
+	}
+
+	public double getTerminalValue(int underlying, int path) {
+		return terminalValue[underlying * numberOfPaths + path];
+	}
+
+	/**
+	 * It returns the extrema of the largest value of the underlyings at every monitoring time.
+	 */
+	public PathExtremum getBestOf() {
+		return bestOf;
+	}
+
+	/**
+	 * It returns the extrema of the smallest value of the underlyings at every monitoring time.
+	 */
+	public PathExtremum getWorstOf() {
+		return worstOf;
+	}
+}
@@ -0,0 +1,316 @@
+package it.univr.montecarlo;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+import java.util.Arrays;
+
+/**
+ * It prices the lookbacks of this package under Black-Scholes dynamics by multilevel Monte Carlo.
+ *
+ * The level l simulates the logarithm of the underlying, which is exact in every time step under Black-Scholes
+ * dynamics, on n_0 2^l equal time steps, where n_0 is the number of fixings of the lookback, or one for continuous
+ * monitoring. The level 0 estimates the value on the coarsest
+ * time discretization and every level l > 0 the difference between the values on the time discretizations of
+ * l and l - 1, using the same Brownian increments for both: the increment of a coarse time step is the sum of
+ * the increments of the two fine time steps it contains. The sum of the estimates is the value on the finest
+ * time discretization. As the steps are exact, the values at the fixings have no discretization bias: the
+ * corrections of a discretely monitored lookback vanish up to rounding, and those of a continuously monitored one
+ * only account for the extrema between the time steps.
+ *
+ * The numbers of levels and of samples per level are chosen by the adaptive algorithm of Giles (Multilevel
+ * Monte Carlo methods, Acta Numerica, 2015): the samples minimize the cost for a variance of epsilon^2 / 2, and
+ * levels are added until the estimated bias is below epsilon / sqrt(2), so that the root mean square error is
+ * below epsilon. As the variance of the differences decays with the time step, the cost grows like
+ * epsilon^-2 (log epsilon)^2 instead of the epsilon^-3 of a single time discretization.
+ */
+public class MultilevelLookbackPricer {
+
+	public static final int DEFAULT_INITIAL_NUMBER_OF_SAMPLES = 10000;
+	public static final int DEFAULT_MAXIMUM_LEVEL = 10;
+
+	private static final int BLOCK_SIZE = 4096;
+
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+	private final int seed;
+	private final int initialNumberOfSamples;
+	private final int maximumLevel;
+
+	public MultilevelLookbackPricer(double initialValue, double riskFreeRate, double volatility, int seed,
+			int initialNumberOfSamples, int maximumLevel) {
+		if(maximumLevel < 2) {
+			throw new IllegalArgumentException("The maximum level must be at least 2.");
+		}
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.seed = seed;
+		this.initialNumberOfSamples = initialNumberOfSamples;
+		this.maximumLevel = maximumLevel;
+	}
+
+	public MultilevelLookbackPricer(double initialValue, double riskFreeRate, double volatility, int seed) {
+		this(initialValue, riskFreeRate, volatility, seed, DEFAULT_INITIAL_NUMBER_OF_SAMPLES, DEFAULT_MAXIMUM_LEVEL);
+	}
+
+	/**
+	 * It returns the value at time zero of the given lookback with a root mean square error below the given one,
+	 * together with the samples and the computation time of every level.
+	 */
+	public MultilevelResult getValue(AbstractBuildMonitoring product, double rootMeanSquareError) {
+
+		if(product.isBrownianBridgeSampling()) {
+			throw new IllegalArgumentException("Brownian bridge sampling is not supported by the multilevel pricer.");
+		}
+		if(product.isSeasoned()) {
+			throw new IllegalArgumentException("Seasoned lookbacks are not supported by the multilevel pricer.");
+		}
+
+		double[] sums = new double[maximumLevel + 1];
+		double[] sumsOfSquares = new double[maximumLevel + 1];
+		long[] numberOfSamples = new long[maximumLevel + 1];
+		long[] computationTimes = new long[maximumLevel + 1];
+		double[] costs = new double[maximumLevel + 1];
+		double[] variances = new double[maximumLevel + 1];
+		double[] absoluteMeans = new double[maximumLevel + 1];
+		long[] additionalSamples = new long[maximumLevel + 1];
+		LookbackPathDriver[] pathDrivers = new LookbackPathDriver[maximumLevel + 1];
+
+		int numberOfTimeStepsOnLevelZero = Math.max(product.getNumberOfFixings(), 1);
+		for(int level = 0; level <= maximumLevel; level++) {
+			int numberOfTimeSteps = numberOfTimeStepsOnLevelZero << level;
+			costs[level] = level == 0 ? numberOfTimeSteps : 1.5 * numberOfTimeSteps;
+		}
+
+		int finestLevel = 2;
+		Arrays.fill(additionalSamples, 0, finestLevel + 1, initialNumberOfSamples);
+		boolean isConverged = true;
+
+		while(sumOf(additionalSamples) > 0) {
+
+			for(int level = 0; level <= finestLevel; level++) {
+				if(additionalSamples[level] > 0) {
+					if(pathDrivers[level] == null) {
+						pathDrivers[level] = new MersennePathDriver(getTimeDiscretization(product.getMaturity(),
+								numberOfTimeStepsOnLevelZero << level), seed + level);
+					}
+					long start = System.nanoTime();
+					sampleCorrections(product, level, numberOfTimeStepsOnLevelZero, pathDrivers[level],
+							additionalSamples[level], sums, sumsOfSquares);
+					computationTimes[level] += System.nanoTime() - start;
+					numberOfSamples[level] += additionalSamples[level];
+				}
+			}
+
+			for(int level = 0; level <= finestLevel; level++) {
+				double mean = sums[level] / numberOfSamples[level];
+				absoluteMeans[level] = Math.abs(mean);
+				variances[level] = Math.max(sumsOfSquares[level] / numberOfSamples[level] - mean * mean, 0.0);
+			}
+
+			// the decay rates of the means and of the variances of the corrections, at least 1/2
+			double alpha = Math.max(0.5, getDecayRate(absoluteMeans, finestLevel));
+			double beta = Math.max(0.5, getDecayRate(variances, finestLevel));
+
+			setAdditionalSamples(variances, costs, numberOfSamples, finestLevel, rootMeanSquareError, additionalSamples);
+
+			if(isAlmostConverged(additionalSamples, numberOfSamples, finestLevel)) {
+				double remainingBias = 0.0;
+				// the bias is estimated from the corrections of the finest levels, not from the value of level 0
+				for(int i = 0; i <= Math.min(2, finestLevel - 1); i++) {
+					remainingBias = Math.max(remainingBias, absoluteMeans[finestLevel - i] / Math.pow(2.0, i * alpha));
+				}
+				remainingBias /= Math.pow(2.0, alpha) - 1.0;
+
+				if(remainingBias > rootMeanSquareError / Math.sqrt(2.0)) {
+					if(finestLevel == maximumLevel) {
+						isConverged = false;
+						break;
+					}
+					finestLevel++;
+					variances[finestLevel] = variances[finestLevel - 1] / Math.pow(2.0, beta);
+					setAdditionalSamples(variances, costs, numberOfSamples, finestLevel, rootMeanSquareError, additionalSamples);
+				}
+			}
+		}
+
+		double value = 0.0;
+		double varianceOfValue = 0.0;
+		for(int level = 0; level <= finestLevel; level++) {
+			value += sums[level] / numberOfSamples[level];
+			varianceOfValue += variances[level] / numberOfSamples[level];
+		}
+
+		return new MultilevelResult(value, Math.sqrt(varianceOfValue), isConverged,
+				Arrays.copyOf(numberOfSamples, finestLevel + 1), Arrays.copyOf(variances, finestLevel + 1),
+				getMeans(sums, numberOfSamples, finestLevel), Arrays.copyOf(computationTimes, finestLevel + 1),
+				numberOfTimeStepsOnLevelZero);
+	}
+
+	/*
+	 * It adds the given number of samples of the correction of the given level, P_l - P_{l-1} (P_0 on level 0),
+	 * to the sums.
+	 */
+	private void sampleCorrections(AbstractBuildMonitoring product, int level, int numberOfTimeStepsOnLevelZero,
+			LookbackPathDriver pathDriver, long numberOfSamples, double[] sums, double[] sumsOfSquares) {
+
+		double maturity = product.getMaturity();
+		LookbackType lookbackType = product.getLookbackType();
+		double strike = product.getStrike();
+		double discountFactor = Math.exp(-riskFreeRate * maturity);
+
+		int numberOfFineTimeSteps = numberOfTimeStepsOnLevelZero << level;
+		double fineTimeStep = maturity / numberOfFineTimeSteps;
+		double fineDrift = (riskFreeRate - 0.5 * volatility * volatility) * fineTimeStep;
+		double logInitialValue = Math.log(initialValue);
+		// fixings every that many time steps of the fine and of the coarse time discretization
+		int fineMonitoringStep = product.getNumberOfFixings() == 0 ? 1 : numberOfFineTimeSteps / product.getNumberOfFixings();
+		int coarseMonitoringStep = product.getNumberOfFixings() == 0 ? 1 : Math.max(fineMonitoringStep / 2, 1);
+
+		int blockSize = (int) Math.min(numberOfSamples, BLOCK_SIZE);
+		double[] brownianIncrement = new double[blockSize];
+		double[] coarseBrownianIncrement = new double[blockSize];
+		double[] fineLogValue = new double[blockSize];
+		double[] fineLogMaximum = new double[blockSize];
+		double[] fineLogMinimum = new double[blockSize];
+		double[] coarseLogValue = new double[blockSize];
+		double[] coarseLogMaximum = new double[blockSize];
+		double[] coarseLogMinimum = new double[blockSize];
+
+		for(long firstSample = 0; firstSample < numberOfSamples; firstSample += blockSize) {
+			int numberOfPathsInBlock = (int) Math.min(blockSize, numberOfSamples - firstSample);
+			pathDriver.nextBlock(numberOfPathsInBlock);
+
+			Arrays.fill(fineLogValue, logInitialValue);
+			Arrays.fill(fineLogMaximum, logInitialValue);
+			Arrays.fill(fineLogMinimum, logInitialValue);
+			Arrays.fill(coarseLogValue, logInitialValue);
+			Arrays.fill(coarseLogMaximum, logInitialValue);
+			Arrays.fill(coarseLogMinimum, logInitialValue);
+
+			for(int timeIndex = 0; timeIndex < numberOfFineTimeSteps; timeIndex++) {
+				pathDriver.getBrownianIncrements(timeIndex, brownianIncrement);
+
+				boolean isFineFixing = (timeIndex + 1) % fineMonitoringStep == 0;
+				for(int path = 0; path < numberOfPathsInBlock; path++) {
+					fineLogValue[path] += fineDrift + volatility * brownianIncrement[path];
+					if(isFineFixing) {
+						fineLogMaximum[path] = Math.max(fineLogMaximum[path], fineLogValue[path]);
+						fineLogMinimum[path] = Math.min(fineLogMinimum[path], fineLogValue[path]);
+					}
+				}
+
+				if(level == 0) {
+					continue;
+				}
+				if(timeIndex % 2 == 0) {
+					System.arraycopy(brownianIncrement, 0, coarseBrownianIncrement, 0, numberOfPathsInBlock);
+					continue;
+				}
+				boolean isCoarseFixing = ((timeIndex + 1) / 2) % coarseMonitoringStep == 0;
+				for(int path = 0; path < numberOfPathsInBlock; path++) {
+					coarseLogValue[path] += 2.0 * fineDrift + volatility * (coarseBrownianIncrement[path] + brownianIncrement[path]);
+					if(isCoarseFixing) {
+						coarseLogMaximum[path] = Math.max(coarseLogMaximum[path], coarseLogValue[path]);
+						coarseLogMinimum[path] = Math.min(coarseLogMinimum[path], coarseLogValue[path]);
+					}
+				}
+			}
+
+			for(int path = 0; path < numberOfPathsInBlock; path++) {
+				double correction = discountFactor * lookbackType.getPayoff(Math.exp(fineLogMaximum[path]),
+						Math.exp(fineLogMinimum[path]), Math.exp(fineLogValue[path]), strike);
+				if(level > 0) {
+					correction -= discountFactor * lookbackType.getPayoff(Math.exp(coarseLogMaximum[path]),
+							Math.exp(coarseLogMinimum[path]), Math.exp(coarseLogValue[path]), strike);
+				}
+				sums[level] += correction;
+				sumsOfSquares[level] += correction * correction;
+			}
+		}
+	}
+
+	/*
+	 * It sets the numbers of additional samples per level for which the variance of the estimator is
+	 * rootMeanSquareError^2 / 2 at minimal cost.
+	 */
+	private static void setAdditionalSamples(double[] variances, double[] costs, long[] numberOfSamples, int finestLevel,
+			double rootMeanSquareError, long[] additionalSamples) {
+
+		double sumOfStandardCosts = 0.0;
+		for(int level = 0; level <= finestLevel; level++) {
+			sumOfStandardCosts += Math.sqrt(variances[level] * costs[level]);
+		}
+		for(int level = 0; level <= finestLevel; level++) {
+			long optimalNumberOfSamples = (long) Math.ceil(2.0 / (rootMeanSquareError * rootMeanSquareError)
+					* Math.sqrt(variances[level] / costs[level]) * sumOfStandardCosts);
+			additionalSamples[level] = Math.max(0, optimalNumberOfSamples - numberOfSamples[level]);
+		}
+	}
+
+	private static boolean isAlmostConverged(long[] additionalSamples, long[] numberOfSamples, int finestLevel) {
+		for(int level = 0; level <= finestLevel; level++) {
+			if(additionalSamples[level] > 0.01 * numberOfSamples[level]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * It returns the rate r of a decay like 2^(-r l) of the given values on the levels 1 to finestLevel, by least
+	 * squares on their base 2 logarithms.
+	 */
+	private static double getDecayRate(double[] values, int finestLevel) {
+
+		double sumOfLevels = 0.0;
+		double sumOfSquaredLevels = 0.0;
+		double sumOfLogarithms = 0.0;
+		double sumOfProducts = 0.0;
+		int numberOfLevels = finestLevel;
+		for(int level = 1; level <= finestLevel; level++) {
+			double logarithm = Math.log(Math.max(values[level], Double.MIN_NORMAL)) / Math.log(2.0);
+			sumOfLevels += level;
+			sumOfSquaredLevels += level * level;
+			sumOfLogarithms += logarithm;
+			sumOfProducts += level * logarithm;
+		}
+		double slope = (numberOfLevels * sumOfProducts - sumOfLevels * sumOfLogarithms)
+				/ (numberOfLevels * sumOfSquaredLevels - sumOfLevels * sumOfLevels);
+		return -slope;
+	}
+
+	private static double[] getMeans(double[] sums, long[] numberOfSamples, int finestLevel) {
+		double[] means = new double[finestLevel + 1];
+		for(int level = 0; level <= finestLevel; level++) {
+			means[level] = sums[level] / numberOfSamples[level];
+		}
+		return means;
+	}
+
+	private static long sumOf(long[] values) {
+		long sum = 0;
+		for(long value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	private static TimeDiscretization getTimeDiscretization(double maturity, int numberOfTimeSteps) {
+		return new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+	}
+
+	public double getInitialValue() {
+		return initialValue;
+	}
+
+	public double getRiskFreeRate() {
+		return riskFreeRate;
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+}
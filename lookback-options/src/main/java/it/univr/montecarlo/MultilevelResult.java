@@ -0,0 +1,83 @@
+package it.univr.montecarlo;
+
+/**
+ * The result of a valuation by {@link MultilevelLookbackPricer}: the value, its statistical error and, for every
+ * level, the number of time steps, the number of samples, the mean and the variance of the correction and the
+ * computation time.
+ */
+public class MultilevelResult {
+
+	private final double value;
+	private final double standardError;
+	private final boolean isConverged;
+	private final long[] numberOfSamples;
+	private final double[] variances;
+	private final double[] means;
+	private final long[] computationTimes;
+	private final int numberOfTimeStepsOnLevelZero;
+
+	public MultilevelResult(double value, double standardError, boolean isConverged, long[] numberOfSamples,
+			double[] variances, double[] means, long[] computationTimes, int numberOfTimeStepsOnLevelZero) {
+		this.value = value;
+		this.standardError = standardError;
+		this.isConverged = isConverged;
+		this.numberOfSamples = numberOfSamples;
+		this.variances = variances;
+		this.means = means;
+		this.computationTimes = computationTimes;
+		this.numberOfTimeStepsOnLevelZero = numberOfTimeStepsOnLevelZero;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getStandardError() {
+		return standardError;
+	}
+
+	/**
+	 * It returns false if the estimated bias was still above the target at the maximum level.
+	 */
+	public boolean isConverged() {
+		return isConverged;
+	}
+
+	public int getNumberOfLevels() {
+		return numberOfSamples.length;
+	}
+
+	public int getNumberOfTimeSteps(int level) {
+		return numberOfTimeStepsOnLevelZero << level;
+	}
+
+	public long getNumberOfSamples(int level) {
+		return numberOfSamples[level];
+	}
+
+	public double getMeanOfCorrection(int level) {
+		return means[level];
+	}
+
+	public double getVarianceOfCorrection(int level) {
+		return variances[level];
+	}
+
+	/**
+	 * It returns the time spent sampling the given level, in milliseconds.
+	 */
+	public double getComputationTime(int level) {
+		return computationTimes[level] / 1E6;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder("value " + value + ", standard error " + standardError
+				+ (isConverged ? "" : " (bias target not reached at the maximum level)"));
+		for(int level = 0; level < numberOfSamples.length; level++) {
+			report.append(String.format("%n  level %2d: %7d steps, %10d samples, mean %12.4e, variance %12.4e, %10.1f ms",
+					level, getNumberOfTimeSteps(level), numberOfSamples[level], means[level], variances[level], getComputationTime(level)));
+		}
+		return report.toString();
+	}
+}
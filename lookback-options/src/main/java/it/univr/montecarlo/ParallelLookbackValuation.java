@@ -0,0 +1,166 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.stochastic.RandomVariable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * It values the lookbacks of this package splitting the paths into chunks which are evaluated in parallel by an
+ * executor.
+ *
+ * Every chunk computes the extrema and the discounted payoff of its own paths. The chunks depend only on the
+ * chunk size, not on the number of threads, and their partial sums are added in chunk order: the results are
+ * therefore bit-for-bit identical for any executor and any number of threads.
+ *
+ * The simulated paths are read from the model on the calling thread before the chunks are submitted, so the
+ * tasks only read arrays that are already generated.
+ */
+public class ParallelLookbackValuation {
+
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	private final ExecutorService executor;
+	private final int chunkSize;
+
+	public ParallelLookbackValuation(ExecutorService executor, int chunkSize) {
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("The chunk size must be positive.");
+		}
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+	}
+
+	public ParallelLookbackValuation(ExecutorService executor) {
+		this(executor, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * It uses the common fork-join pool.
+	 */
+	public ParallelLookbackValuation() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * It returns the discounted payoff of the product path by path, as
+	 * {@link AbstractBuildMonitoring#getValue(double, AssetModelMonteCarloSimulationModel)} does.
+	 */
+	public RandomVariable getValue(double evaluationTime, AbstractBuildMonitoring product, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+
+		double[] values = new double[model.getNumberOfPaths()];
+		evaluate(evaluationTime, product, model, values);
+		return new RandomVariableFromDoubleArray(evaluationTime, values);
+	}
+
+	/**
+	 * It returns the value of the product at time zero, reducing the chunks in a fixed order.
+	 */
+	public double getValue(AbstractBuildMonitoring product, AssetModelMonteCarloSimulationModel model)
+			throws CalculationException {
+
+		double[] sumOfChunks = evaluate(0.0, product, model, new double[model.getNumberOfPaths()]);
+		double sum = 0.0;
+		for(double sumOfChunk : sumOfChunks) {
+			sum += sumOfChunk;
+		}
+		return sum / model.getNumberOfPaths();
+	}
+
+	/*
+	 * It writes the discounted payoffs in values and returns the sum of the payoffs of every chunk.
+	 */
+	private double[] evaluate(double evaluationTime, AbstractBuildMonitoring product, AssetModelMonteCarloSimulationModel model,
+			double[] values) throws CalculationException {
+
+		if(product.isBrownianBridgeSampling()) {
+			throw new IllegalArgumentException("Brownian bridge sampling is not supported by the parallel valuation.");
+		}
+
+		final double maturity = product.getMaturity();
+		final int underlyingIndex = product.getUnderlyingIndex();
+		final LookbackType type = product.getLookbackType();
+		final double strike = product.getStrike();
+		final double runningMaximum = product.getRunningMaximum();
+		final double runningMinimum = product.getRunningMinimum();
+
+		int[] monitoringTimeIndices = product.getMonitoringTimeIndices(model);
+		final RandomVariable[] realizations = new RandomVariable[monitoringTimeIndices.length];
+		for(int i = 0; i < monitoringTimeIndices.length; i++) {
+			realizations[i] = model.getAssetValue(monitoringTimeIndices[i], underlyingIndex);
+		}
+		final RandomVariable finalValue = model.getAssetValue(model.getTimeIndex(maturity), underlyingIndex);
+
+		final RandomVariable numeraireAtMaturity = model.getNumeraire(maturity);
+		final RandomVariable monteCarloWeights = model.getMonteCarloWeights(maturity);
+		final RandomVariable numeraireAtEvalTime = model.getNumeraire(evaluationTime);
+		final RandomVariable monteCarloWeightsAtEvalTime = model.getMonteCarloWeights(evaluationTime);
+
+		final int numberOfPaths = model.getNumberOfPaths();
+		final int numberOfChunks = (numberOfPaths + chunkSize - 1) / chunkSize;
+
+		List<Future<Double>> sumOfChunkFutures = new ArrayList<>(numberOfChunks);
+		for(int chunk = 0; chunk < numberOfChunks; chunk++) {
+			final int firstPath = chunk * chunkSize;
+			final int lastPath = Math.min(firstPath + chunkSize, numberOfPaths);
+			Callable<Double> chunkTask = () -> {
+				int chunkLength = lastPath - firstPath;
+				double[] maximum = new double[chunkLength];
+				double[] minimum = new double[chunkLength];
+				Arrays.fill(maximum, runningMaximum);
+				Arrays.fill(minimum, runningMinimum);
+				for(RandomVariable realizationAtCurrentTime : realizations) {
+					for(int path = firstPath; path < lastPath; path++) {
+						double value = realizationAtCurrentTime.get(path);
+						if(value > maximum[path - firstPath]) {
+							maximum[path - firstPath] = value;
+						}
+						if(value < minimum[path - firstPath]) {
+							minimum[path - firstPath] = value;
+						}
+					}
+				}
+
+				double sumOfChunk = 0.0;
+				for(int path = firstPath; path < lastPath; path++) {
+					double payoff = type.getPayoff(maximum[path - firstPath], minimum[path - firstPath], finalValue.get(path), strike);
+					double value = payoff / numeraireAtMaturity.get(path) * monteCarloWeights.get(path)
+							* numeraireAtEvalTime.get(path) / monteCarloWeightsAtEvalTime.get(path);
+					values[path] = value;
+					sumOfChunk += value;
+				}
+				return sumOfChunk;
+			};
+			sumOfChunkFutures.add(executor.submit(chunkTask));
+		}
+
+		double[] sumOfChunks = new double[numberOfChunks];
+		try {
+			for(int chunk = 0; chunk < numberOfChunks; chunk++) {
+				sumOfChunks[chunk] = sumOfChunkFutures.get(chunk).get();
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculationException(e);
+		}
+		catch(ExecutionException e) {
+			throw new CalculationException(e.getCause());
+		}
+		return sumOfChunks;
+	}
+}
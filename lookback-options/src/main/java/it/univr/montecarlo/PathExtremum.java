@@ -0,0 +1,82 @@
+package it.univr.montecarlo;
+
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * It holds, path by path, the running maximum and the running minimum of the underlying over the monitoring
+ * times of a lookback, together with the value of the underlying at maturity.
+ *
+ * The three arrays are filled in a single pass over the monitoring times, see
+ * {@link AbstractBuildMonitoring#getPathExtremum(double[], double, int, net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel)},
+ * so that every lookback payoff can be computed without scanning the paths again.
+ */
+public class PathExtremum {
+
+	private final double maturity;
+	private final double[] maximum;
+	private final double[] minimum;
+	private final double[] terminalValue;
+
+	public PathExtremum(double maturity, double[] maximum, double[] minimum, double[] terminalValue) {
+		this.maturity = maturity;
+		this.maximum = maximum;
+		this.minimum = minimum;
+		this.terminalValue = terminalValue;
+	}
+
+	public int getNumberOfPaths() {
+		return maximum.length;
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public double getMaximum(int path) {
+		return maximum[path];
+	}
+
+	public double getMinimum(int path) {
+		return minimum[path];
+	}
+
+	public double getTerminalValue(int path) {
+		return terminalValue[path];
+	}
+
+	/**
+	 * It combines, in place, the extrema with the ones observed before the first monitoring time of the paths,
+	 * as for a seasoned lookback.
+	 */
+	void applyRunningExtremum(double runningMaximum, double runningMinimum) {
+		if(runningMaximum == Double.NEGATIVE_INFINITY && runningMinimum == Double.POSITIVE_INFINITY) {
+			return;
+		}
+		for(int path = 0; path < maximum.length; path++) {
+			maximum[path] = Math.max(maximum[path], runningMaximum);
+			minimum[path] = Math.min(minimum[path], runningMinimum);
+		}
+	}
+
+	/**
+	 * It returns the running maximum as a random variable measurable at maturity. The realizations are not copied.
+	 */
+	public RandomVariable getMaximum() {
+		return new RandomVariableFromDoubleArray(maturity, maximum);
+	}
+
+	/**
+	 * It returns the running minimum as a random variable measurable at maturity. The realizations are not copied.
+	 */
+	public RandomVariable getMinimum() {
+		return new RandomVariableFromDoubleArray(maturity, minimum);
+	}
+
+	/**
+	 * It returns the value of the underlying at maturity. The realizations are not copied.
+	 */
+	public RandomVariable getTerminalValue() {
+		return new RandomVariableFromDoubleArray(maturity, terminalValue);
+	}
+}
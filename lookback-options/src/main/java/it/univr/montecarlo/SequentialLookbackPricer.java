@@ -0,0 +1,133 @@
+package it.univr.montecarlo;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * It prices the lookbacks of this package under Black-Scholes dynamics with as many paths as needed for a given
+ * accuracy, instead of a number of paths fixed in advance.
+ *
+ * The paths are simulated in batches by {@link StreamingBlackScholesLookbackPricer}, each batch with its own seed
+ * so that the batches are independent. The mean and the variance of the discounted payoffs are updated with every
+ * batch by Welford's algorithm, and the simulation stops as soon as the half-width of the confidence interval of
+ * the value is below the target, the time budget is spent or the maximum number of paths is reached.
+ *
+ * With pseudo-random numbers every path is a sample. The paths of a batch of the other path drivers are not
+ * independent, antithetic pairs or a randomized Sobol sequence, so there every batch mean is a sample and at least
+ * {@link #MINIMUM_NUMBER_OF_BATCH_MEANS} batches are simulated before the standard error is trusted.
+ */
+public class SequentialLookbackPricer {
+
+	public static final double DEFAULT_CONFIDENCE_LEVEL = 0.95;
+	public static final int MINIMUM_NUMBER_OF_BATCH_MEANS = 8;
+
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+	private final TimeDiscretization timeDiscretization;
+	private final int numberOfPathsPerBatch;
+	private final int seed;
+	private final LookbackPathDriverType pathDriverType;
+
+	public SequentialLookbackPricer(double initialValue, double riskFreeRate, double volatility,
+			TimeDiscretization timeDiscretization, int numberOfPathsPerBatch, int seed, LookbackPathDriverType pathDriverType) {
+		if(numberOfPathsPerBatch < 2) {
+			throw new IllegalArgumentException("A batch must have at least two paths.");
+		}
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfPathsPerBatch = numberOfPathsPerBatch;
+		this.seed = seed;
+		this.pathDriverType = pathDriverType;
+	}
+
+	/**
+	 * It uses pseudo-random numbers from a Mersenne twister.
+	 */
+	public SequentialLookbackPricer(double initialValue, double riskFreeRate, double volatility,
+			TimeDiscretization timeDiscretization, int numberOfPathsPerBatch, int seed) {
+		this(initialValue, riskFreeRate, volatility, timeDiscretization, numberOfPathsPerBatch, seed, LookbackPathDriverType.PSEUDO_RANDOM);
+	}
+
+	/**
+	 * It returns the value at time zero of the given lookback, simulating batches of paths until the half-width of
+	 * the confidence interval with the given level is below confidenceIntervalHalfWidth, the time budget is spent
+	 * or the number of paths reaches maximumNumberOfPaths, whatever comes first.
+	 */
+	public SequentialResult getValue(AbstractBuildMonitoring product, double confidenceIntervalHalfWidth,
+			double confidenceLevel, long timeBudgetInMilliseconds, long maximumNumberOfPaths) {
+
+		double quantile = NormalDistribution.inverseCumulativeDistribution(0.5 + 0.5 * confidenceLevel);
+		double maturity = product.getMaturity();
+		double discountFactor = Math.exp(-riskFreeRate * maturity);
+		boolean isBatchMeanSampling = pathDriverType != LookbackPathDriverType.PSEUDO_RANDOM;
+		long deadline = System.nanoTime() + timeBudgetInMilliseconds * 1000000L;
+
+		long numberOfSamples = 0;
+		double mean = 0.0;
+		double sumOfSquaredDeviations = 0.0;
+		long numberOfPaths = 0;
+		double standardError = Double.POSITIVE_INFINITY;
+		boolean isTargetReached = false;
+
+		for(int batch = 0; numberOfPaths + numberOfPathsPerBatch <= maximumNumberOfPaths; batch++) {
+			StreamingBlackScholesLookbackPricer pricer = new StreamingBlackScholesLookbackPricer(initialValue, riskFreeRate,
+					volatility, timeDiscretization, numberOfPathsPerBatch, seed + batch, pathDriverType);
+			PathExtremum pathExtremum = pricer.getPathExtremum(product);
+
+			double sumOfBatch = 0.0;
+			for(int path = 0; path < numberOfPathsPerBatch; path++) {
+				double discountedPayoff = discountFactor * product.getLookbackType().getPayoff(pathExtremum.getMaximum(path),
+						pathExtremum.getMinimum(path), pathExtremum.getTerminalValue(path), product.getStrike());
+				if(isBatchMeanSampling) {
+					sumOfBatch += discountedPayoff;
+					continue;
+				}
+				numberOfSamples++;
+				double deviation = discountedPayoff - mean;
+				mean += deviation / numberOfSamples;
+				sumOfSquaredDeviations += deviation * (discountedPayoff - mean);
+			}
+			if(isBatchMeanSampling) {
+				double batchMean = sumOfBatch / numberOfPathsPerBatch;
+				numberOfSamples++;
+				double deviation = batchMean - mean;
+				mean += deviation / numberOfSamples;
+				sumOfSquaredDeviations += deviation * (batchMean - mean);
+			}
+			numberOfPaths += numberOfPathsPerBatch;
+
+			if(numberOfSamples > 1) {
+				standardError = Math.sqrt(sumOfSquaredDeviations / (numberOfSamples - 1) / numberOfSamples);
+				boolean isStandardErrorReliable = !isBatchMeanSampling || numberOfSamples >= MINIMUM_NUMBER_OF_BATCH_MEANS;
+				if(isStandardErrorReliable && quantile * standardError <= confidenceIntervalHalfWidth) {
+					isTargetReached = true;
+					break;
+				}
+			}
+			if(System.nanoTime() >= deadline) {
+				break;
+			}
+		}
+
+		return new SequentialResult(mean, standardError, numberOfPaths, isTargetReached);
+	}
+
+	/**
+	 * It returns the value at time zero of the given lookback with a 95% confidence interval whose half-width is
+	 * below confidenceIntervalHalfWidth, unless the time budget is spent first.
+	 */
+	public SequentialResult getValue(AbstractBuildMonitoring product, double confidenceIntervalHalfWidth, long timeBudgetInMilliseconds) {
+		return getValue(product, confidenceIntervalHalfWidth, DEFAULT_CONFIDENCE_LEVEL, timeBudgetInMilliseconds, Long.MAX_VALUE);
+	}
+
+	public int getNumberOfPathsPerBatch() {
+		return numberOfPathsPerBatch;
+	}
+
+	public LookbackPathDriverType getPathDriverType() {
+		return pathDriverType;
+	}
+}
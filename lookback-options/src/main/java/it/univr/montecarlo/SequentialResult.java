@@ -0,0 +1,43 @@
+package it.univr.montecarlo;
+
+/**
+ * The result of a valuation by {@link SequentialLookbackPricer}: the value, its standard error, the number of
+ * paths simulated and whether the target accuracy was reached before the time budget or the maximum number of
+ * paths.
+ */
+public class SequentialResult {
+
+	private final double value;
+	private final double standardError;
+	private final long numberOfPaths;
+	private final boolean isTargetReached;
+
+	public SequentialResult(double value, double standardError, long numberOfPaths, boolean isTargetReached) {
+		this.value = value;
+		this.standardError = standardError;
+		this.numberOfPaths = numberOfPaths;
+		this.isTargetReached = isTargetReached;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getStandardError() {
+		return standardError;
+	}
+
+	public long getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public boolean isTargetReached() {
+		return isTargetReached;
+	}
+
+	@Override
+	public String toString() {
+		return "value " + value + ", standard error " + standardError + ", paths " + numberOfPaths
+				+ (isTargetReached ? "" : " (target not reached)");
+	}
+}
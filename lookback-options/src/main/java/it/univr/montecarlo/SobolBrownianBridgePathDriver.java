@@ -0,0 +1,151 @@
+package it.univr.montecarlo;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Brownian increments from a digitally shifted Sobol sequence through the Brownian bridge construction: the
+ * first coordinate gives the Brownian motion at the last time, the next ones the midpoints of the remaining
+ * intervals, so that the first, best distributed, coordinates carry most of the variance of the path.
+ *
+ * The Sobol sequence gives the first {@link SobolSequence#MAXIMUM_DIMENSION} coordinates; the others, which only
+ * refine the path on short intervals, come from a Mersenne twister. The twister of the digital shifts already
+ * takes the seed itself and the bridges of the extrema take the first output of SplitMix64 from the seed, see
+ * {@link BrownianBridgeExtremum#getBridgeSeed(long)}, so the fill-in twister takes the second one: the three
+ * streams are unrelated.
+ *
+ * Since the construction needs all the time steps of a path before the first increment is known, the paths of a
+ * block are kept in memory: the blocks have at most {@link #DEFAULT_MAXIMUM_BLOCK_SIZE} paths.
+ */
+public class SobolBrownianBridgePathDriver implements LookbackPathDriver {
+
+	public static final int DEFAULT_MAXIMUM_BLOCK_SIZE = 256;
+
+	private final int numberOfTimeSteps;
+	private final SobolSequence sobolSequence;
+	private final MersenneTwister mersenneTwister;
+
+	// the Brownian bridge construction
+	private final int[] bridgeIndex;
+	private final int[] leftIndex;
+	private final int[] rightIndex;
+	private final double[] leftWeight;
+	private final double[] rightWeight;
+	private final double[] standardDeviation;
+
+	private final double[] uniforms;
+	private final double[] brownianMotion;
+	private final double[][] brownianIncrementsOfBlock;
+	private int numberOfPathsInBlock;
+
+	public SobolBrownianBridgePathDriver(TimeDiscretization timeDiscretization, int seed) {
+		numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+		sobolSequence = new SobolSequence(Math.min(numberOfTimeSteps, SobolSequence.MAXIMUM_DIMENSION), seed);
+		mersenneTwister = new MersenneTwister(getFillInSeed(seed));
+
+		bridgeIndex = new int[numberOfTimeSteps];
+		leftIndex = new int[numberOfTimeSteps];
+		rightIndex = new int[numberOfTimeSteps];
+		leftWeight = new double[numberOfTimeSteps];
+		rightWeight = new double[numberOfTimeSteps];
+		standardDeviation = new double[numberOfTimeSteps];
+		buildBrownianBridge(timeDiscretization);
+
+		uniforms = new double[sobolSequence.getDimension()];
+		brownianMotion = new double[numberOfTimeSteps];
+		brownianIncrementsOfBlock = new double[numberOfTimeSteps][DEFAULT_MAXIMUM_BLOCK_SIZE];
+	}
+
+	/**
+	 * It returns the seed of the Mersenne twister of the coordinates beyond the dimension of the Sobol sequence:
+	 * the second output of SplitMix64 from the seed, the first being the bridge seed.
+	 */
+	public static int getFillInSeed(long seed) {
+		long mixedSeed = BrownianBridgeExtremum.mix(seed + 2 * 0x9E3779B97F4A7C15L);
+		return (int) (mixedSeed ^ (mixedSeed >>> 32));
+	}
+
+	@Override
+	public int getMaximumBlockSize() {
+		return DEFAULT_MAXIMUM_BLOCK_SIZE;
+	}
+
+	@Override
+	public void nextBlock(int numberOfPathsInBlock) {
+		this.numberOfPathsInBlock = numberOfPathsInBlock;
+		for(int path = 0; path < numberOfPathsInBlock; path++) {
+			sobolSequence.getNext(uniforms);
+
+			brownianMotion[numberOfTimeSteps - 1] = standardDeviation[0] * getStandardNormal(0);
+			for(int i = 1; i < numberOfTimeSteps; i++) {
+				int j = leftIndex[i];
+				int k = rightIndex[i];
+				int l = bridgeIndex[i];
+				double valueAtLeft = j != 0 ? leftWeight[i] * brownianMotion[j - 1] : 0.0;
+				brownianMotion[l] = valueAtLeft + rightWeight[i] * brownianMotion[k] + standardDeviation[i] * getStandardNormal(i);
+			}
+
+			brownianIncrementsOfBlock[0][path] = brownianMotion[0];
+			for(int timeIndex = 1; timeIndex < numberOfTimeSteps; timeIndex++) {
+				brownianIncrementsOfBlock[timeIndex][path] = brownianMotion[timeIndex] - brownianMotion[timeIndex - 1];
+			}
+		}
+	}
+
+	@Override
+	public void getBrownianIncrements(int timeIndex, double[] brownianIncrements) {
+		System.arraycopy(brownianIncrementsOfBlock[timeIndex], 0, brownianIncrements, 0, numberOfPathsInBlock);
+	}
+
+	private double getStandardNormal(int coordinate) {
+		double uniform = coordinate < uniforms.length ? uniforms[coordinate] : mersenneTwister.nextDouble();
+		return NormalDistribution.inverseCumulativeDistribution(uniform);
+	}
+
+	/*
+	 * The construction of P. Jaeckel, "Monte Carlo Methods in Finance", for an arbitrary time discretization:
+	 * brownianMotion[l] is the Brownian motion at time timeIndex l + 1.
+	 */
+	private void buildBrownianBridge(TimeDiscretization timeDiscretization) {
+		double[] times = new double[numberOfTimeSteps];
+		for(int i = 0; i < numberOfTimeSteps; i++) {
+			times[i] = timeDiscretization.getTime(i + 1) - timeDiscretization.getTime(0);
+		}
+
+		int[] map = new int[numberOfTimeSteps];
+		map[numberOfTimeSteps - 1] = 1;
+		bridgeIndex[0] = numberOfTimeSteps - 1;
+		standardDeviation[0] = Math.sqrt(times[numberOfTimeSteps - 1]);
+
+		int j = 0;
+		for(int i = 1; i < numberOfTimeSteps; i++) {
+			while(map[j] != 0) {
+				j++;
+			}
+			int k = j;
+			while(map[k] == 0) {
+				k++;
+			}
+			int l = j + ((k - 1 - j) >> 1);
+			map[l] = i;
+			bridgeIndex[i] = l;
+			leftIndex[i] = j;
+			rightIndex[i] = k;
+			if(j != 0) {
+				leftWeight[i] = (times[k] - times[l]) / (times[k] - times[j - 1]);
+				rightWeight[i] = (times[l] - times[j - 1]) / (times[k] - times[j - 1]);
+				standardDeviation[i] = Math.sqrt((times[l] - times[j - 1]) * (times[k] - times[l]) / (times[k] - times[j - 1]));
+			}
+			else {
+				leftWeight[i] = 0.0;
+				rightWeight[i] = times[l] / times[k];
+				standardDeviation[i] = Math.sqrt(times[l] * (times[k] - times[l]) / times[k]);
+			}
+			j = k + 1;
+			if(j >= numberOfTimeSteps) {
+				j = 0;
+			}
+		}
+	}
+}
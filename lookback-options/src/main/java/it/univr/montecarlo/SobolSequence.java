@@ -0,0 +1,109 @@
+package it.univr.montecarlo;
+
+import net.finmath.randomnumbers.MersenneTwister;
+
+/**
+ * A Sobol sequence of up to {@link #MAXIMUM_DIMENSION} dimensions with the direction numbers of Joe and Kuo
+ * (new-joe-kuo-6.21201), generated in Gray-code order and randomized by a digital shift: every coordinate is
+ * XORed with a random 32-bit integer drawn from the seed. Different seeds give independent randomizations, so
+ * the error of a quasi Monte Carlo estimate can be measured over seeds.
+ */
+public class SobolSequence {
+
+	/*
+	 * Degree, coefficients and initial direction numbers of the primitive polynomials of the dimensions 2, 3, ...
+	 * The first dimension is the van der Corput sequence.
+	 */
+	private static final int[] DEGREES = { 1, 2, 3, 3, 4, 4, 5, 5, 5, 5, 5, 5, 6, 6, 6, 6, 6, 6, 7, 7 };
+	private static final int[] COEFFICIENTS = { 0, 1, 1, 2, 1, 4, 2, 4, 7, 11, 13, 14, 1, 13, 16, 19, 22, 25, 1, 4 };
+	private static final int[][] INITIAL_DIRECTION_NUMBERS = {
+			{ 1 },
+			{ 1, 3 },
+			{ 1, 3, 1 },
+			{ 1, 1, 1 },
+			{ 1, 1, 3, 3 },
+			{ 1, 3, 5, 13 },
+			{ 1, 1, 5, 5, 17 },
+			{ 1, 1, 5, 5, 5 },
+			{ 1, 1, 7, 11, 19 },
+			{ 1, 1, 5, 1, 1 },
+			{ 1, 1, 1, 3, 11 },
+			{ 1, 3, 5, 5, 31 },
+			{ 1, 3, 3, 9, 7, 49 },
+			{ 1, 1, 1, 15, 21, 21 },
+			{ 1, 3, 1, 13, 27, 49 },
+			{ 1, 1, 1, 15, 7, 5 },
+			{ 1, 3, 1, 15, 13, 25 },
+			{ 1, 1, 5, 5, 19, 61 },
+			{ 1, 3, 7, 11, 23, 15, 103 },
+			{ 1, 3, 7, 13, 13, 15, 69 }
+	};
+
+	public static final int MAXIMUM_DIMENSION = DEGREES.length + 1;
+
+	private static final int NUMBER_OF_BITS = 32;
+	private static final double NORMALIZATION = 1.0 / 4294967296.0;
+
+	private final int dimension;
+	private final int[][] directionNumbers;
+	private final int[] shift;
+	private final int[] point;
+	private long index;
+
+	public SobolSequence(int dimension, int seed) {
+		if(dimension < 1 || dimension > MAXIMUM_DIMENSION) {
+			throw new IllegalArgumentException("The dimension must be between 1 and " + MAXIMUM_DIMENSION + ".");
+		}
+		this.dimension = dimension;
+
+		directionNumbers = new int[dimension][NUMBER_OF_BITS];
+		for(int bit = 0; bit < NUMBER_OF_BITS; bit++) {
+			directionNumbers[0][bit] = 1 << (NUMBER_OF_BITS - 1 - bit);
+		}
+		for(int coordinate = 1; coordinate < dimension; coordinate++) {
+			int degree = DEGREES[coordinate - 1];
+			int coefficients = COEFFICIENTS[coordinate - 1];
+			int[] initialDirectionNumbers = INITIAL_DIRECTION_NUMBERS[coordinate - 1];
+			int[] v = directionNumbers[coordinate];
+			for(int bit = 0; bit < degree; bit++) {
+				v[bit] = initialDirectionNumbers[bit] << (NUMBER_OF_BITS - 1 - bit);
+			}
+			for(int bit = degree; bit < NUMBER_OF_BITS; bit++) {
+				v[bit] = v[bit - degree] ^ (v[bit - degree] >>> degree);
+				for(int k = 1; k < degree; k++) {
+					if(((coefficients >>> (degree - 1 - k)) & 1) == 1) {
+						v[bit] ^= v[bit - k];
+					}
+				}
+			}
+		}
+
+		MersenneTwister mersenneTwister = new MersenneTwister(seed);
+		shift = new int[dimension];
+		for(int coordinate = 0; coordinate < dimension; coordinate++) {
+			shift[coordinate] = (int) (long) (mersenneTwister.nextDouble() * 4294967296.0);
+		}
+		point = new int[dimension];
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * It writes the next point of the sequence, with coordinates in the open interval (0,1).
+	 */
+	public void getNext(double[] uniforms) {
+		if(index > 0) {
+			// Gray code: the point changes in the direction of the lowest zero bit of index - 1
+			int bit = Long.numberOfTrailingZeros(~(index - 1));
+			for(int coordinate = 0; coordinate < dimension; coordinate++) {
+				point[coordinate] ^= directionNumbers[coordinate][bit];
+			}
+		}
+		index++;
+		for(int coordinate = 0; coordinate < dimension; coordinate++) {
+			uniforms[coordinate] = ((point[coordinate] ^ shift[coordinate]) & 0xFFFFFFFFL) * NORMALIZATION + 0.5 * NORMALIZATION;
+		}
+	}
+}
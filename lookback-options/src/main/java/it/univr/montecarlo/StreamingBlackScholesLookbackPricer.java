@@ -0,0 +1,369 @@
+package it.univr.montecarlo;
+
+import it.univr.instrumentation.LookbackInstrumentation;
+import it.univr.instrumentation.LookbackStage;
+import it.univr.instrumentation.LookbackValuationTimer;
+
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.time.TimeDiscretization;
+
+import java.util.Arrays;
+
+/**
+ * It prices the lookbacks of this package under Black-Scholes dynamics without storing the simulated paths.
+ *
+ * The Brownian increments are drawn time step by time step into a buffer of one value per path, the logarithm
+ * of the underlying is advanced in place and the running extrema are updated at the monitoring times. Memory
+ * is therefore O(paths) instead of the O(steps x paths) of a MonteCarloBlackScholesModel, which allows for
+ * millions of paths on fine time discretizations.
+ *
+ * The increments come from a {@link LookbackPathDriver} chosen by {@link LookbackPathDriverType}. The paths are
+ * simulated in blocks of at most {@link LookbackPathDriver#getMaximumBlockSize()} paths; with the default
+ * pseudo-random driver there is a single block and the uniform random numbers are consumed time step by time
+ * step and, inside a time step, path by path. BrownianMotionFromMersenneRandomNumbers consumes them path by path
+ * and, inside a path, time step by time step, which a streaming simulation cannot do without storing the paths, so
+ * with the same seed the two draw different paths and their values agree only within the Monte Carlo error.
+ *
+ * With {@link LookbackPathPrecision#FLOAT} the per-path state is held in single precision, which cuts the memory
+ * traffic of a monitored time step from about 64 to 40 bytes per path, the double precision increments included,
+ * at the price of a rounding error of the order of 1E-7 relative per time step on the logarithm of the underlying.
+ * getPathExtremum still returns the extrema in double precision, in three arrays allocated for them.
+ */
+public class StreamingBlackScholesLookbackPricer {
+
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+	private final TimeDiscretization timeDiscretization;
+	private final int numberOfPaths;
+	private final int seed;
+	private final LookbackPathDriverType pathDriverType;
+	private final LookbackPathPrecision pathPrecision;
+
+	public StreamingBlackScholesLookbackPricer(double initialValue, double riskFreeRate, double volatility,
+			TimeDiscretization timeDiscretization, int numberOfPaths, int seed, LookbackPathDriverType pathDriverType,
+			LookbackPathPrecision pathPrecision) {
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfPaths = numberOfPaths;
+		this.seed = seed;
+		this.pathDriverType = pathDriverType;
+		this.pathPrecision = pathPrecision;
+	}
+
+	/**
+	 * It holds the paths in double precision.
+	 */
+	public StreamingBlackScholesLookbackPricer(double initialValue, double riskFreeRate, double volatility,
+			TimeDiscretization timeDiscretization, int numberOfPaths, int seed, LookbackPathDriverType pathDriverType) {
+		this(initialValue, riskFreeRate, volatility, timeDiscretization, numberOfPaths, seed, pathDriverType, LookbackPathPrecision.DOUBLE);
+	}
+
+	/**
+	 * It uses pseudo-random numbers from a Mersenne twister.
+	 */
+	public StreamingBlackScholesLookbackPricer(double initialValue, double riskFreeRate, double volatility,
+			TimeDiscretization timeDiscretization, int numberOfPaths, int seed) {
+		this(initialValue, riskFreeRate, volatility, timeDiscretization, numberOfPaths, seed, LookbackPathDriverType.PSEUDO_RANDOM);
+	}
+
+	/**
+	 * It simulates the paths up to maturity and returns their extrema over the monitoring times given by the
+	 * number of fixings (zero meaning every time of the time discretization).
+	 */
+	public PathExtremum getPathExtremum(int numberOfFixings, double maturity) {
+		return getPathExtremum(numberOfFixings, maturity, false);
+	}
+
+	/**
+	 * It simulates the paths up to maturity and returns their extrema over the monitoring times given by the
+	 * number of fixings. With isBrownianBridgeSampling true, which requires numberOfFixings equal to zero, the
+	 * extrema of the Brownian bridge between the times of the time discretization are sampled as well, see
+	 * {@link BrownianBridgeExtremum}.
+	 */
+	public PathExtremum getPathExtremum(int numberOfFixings, double maturity, boolean isBrownianBridgeSampling) {
+		return getPathExtremum(numberOfFixings, 0, maturity, isBrownianBridgeSampling);
+	}
+
+	/**
+	 * It simulates the paths up to the maturity of the given lookback and returns their extrema over its
+	 * monitoring times, combined with the running extrema of a seasoned lookback.
+	 */
+	public PathExtremum getPathExtremum(AbstractBuildMonitoring product) {
+		PathExtremum pathExtremum = getPathExtremum(product.getNumberOfFixings(), product.getNumberOfElapsedFixings(),
+				product.getMaturity(), product.isBrownianBridgeSampling());
+		pathExtremum.applyRunningExtremum(product.getRunningMaximum(), product.getRunningMinimum());
+		return pathExtremum;
+	}
+
+	private PathExtremum getPathExtremum(int numberOfFixings, int numberOfElapsedFixings, double maturity, boolean isBrownianBridgeSampling) {
+
+		int maturityIndex = timeDiscretization.getTimeIndexNearestLessOrEqual(maturity);
+		boolean[] isMonitored = getMonitoringFlags(numberOfFixings, numberOfElapsedFixings, maturity, isBrownianBridgeSampling);
+
+		if(pathPrecision == LookbackPathPrecision.FLOAT) {
+			float[][] logReturnExtremum = getLogReturnExtremumInSinglePrecision(isMonitored, isBrownianBridgeSampling);
+			double[] maximum = new double[numberOfPaths];
+			double[] minimum = new double[numberOfPaths];
+			double[] terminalValue = new double[numberOfPaths];
+			for(int path = 0; path < numberOfPaths; path++) {
+				maximum[path] = initialValue * Math.exp(logReturnExtremum[1][path]);
+				minimum[path] = initialValue * Math.exp(logReturnExtremum[2][path]);
+				terminalValue[path] = initialValue * Math.exp(logReturnExtremum[0][path]);
+			}
+			return new PathExtremum(timeDiscretization.getTime(maturityIndex), maximum, minimum, terminalValue);
+		}
+
+		LookbackPathDriver pathDriver = pathDriverType.getPathDriver(timeDiscretization, seed);
+		int blockSize = Math.min(numberOfPaths, pathDriver.getMaximumBlockSize());
+
+		double[] logValue = new double[numberOfPaths];
+		double[] logMaximum = new double[numberOfPaths];
+		double[] logMinimum = new double[numberOfPaths];
+		double[] brownianIncrement = new double[blockSize];
+		Arrays.fill(logValue, Math.log(initialValue));
+		Arrays.fill(logMaximum, Double.NEGATIVE_INFINITY);
+		Arrays.fill(logMinimum, Double.POSITIVE_INFINITY);
+		if(isMonitored[0]) {
+			Arrays.fill(logMaximum, Math.log(initialValue));
+			Arrays.fill(logMinimum, Math.log(initialValue));
+		}
+
+		MersenneTwister mersenneTwisterForBrownianBridge = isBrownianBridgeSampling
+				? new MersenneTwister(BrownianBridgeExtremum.getBridgeSeed(seed)) : null;
+		// the increments are timed apart from the update of the paths and of their extrema
+		boolean isInstrumented = LookbackInstrumentation.isEnabled();
+		long startTime = LookbackInstrumentation.getStartTime();
+		long pathGenerationTime = 0L;
+		for(int firstPath = 0; firstPath < numberOfPaths; firstPath += blockSize) {
+			int lastPath = Math.min(firstPath + blockSize, numberOfPaths);
+			pathDriver.nextBlock(lastPath - firstPath);
+
+			for(int timeIndex = 1; timeIndex <= maturityIndex; timeIndex++) {
+				double timeStep = timeDiscretization.getTimeStep(timeIndex - 1);
+				double drift = (riskFreeRate - 0.5 * volatility * volatility) * timeStep;
+
+				long startOfIncrements = isInstrumented ? System.nanoTime() : 0L;
+				pathDriver.getBrownianIncrements(timeIndex - 1, brownianIncrement);
+				if(isInstrumented) {
+					pathGenerationTime += System.nanoTime() - startOfIncrements;
+				}
+
+				if(isBrownianBridgeSampling) {
+					double variance = volatility * volatility * timeStep;
+					for(int path = firstPath; path < lastPath; path++) {
+						double logStart = logValue[path];
+						double logEnd = logStart + drift + volatility * brownianIncrement[path - firstPath];
+						logMaximum[path] = Math.max(logMaximum[path], BrownianBridgeExtremum.sampleLogMaximum(
+								logStart, logEnd, variance, 1.0 - mersenneTwisterForBrownianBridge.nextDouble()));
+						logMinimum[path] = Math.min(logMinimum[path], BrownianBridgeExtremum.sampleLogMinimum(
+								logStart, logEnd, variance, 1.0 - mersenneTwisterForBrownianBridge.nextDouble()));
+						logValue[path] = logEnd;
+					}
+					continue;
+				}
+
+				for(int path = firstPath; path < lastPath; path++) {
+					logValue[path] += drift + volatility * brownianIncrement[path - firstPath];
+				}
+
+				if(isMonitored[timeIndex]) {
+					for(int path = firstPath; path < lastPath; path++) {
+						logMaximum[path] = Math.max(logMaximum[path], logValue[path]);
+						logMinimum[path] = Math.min(logMinimum[path], logValue[path]);
+					}
+				}
+			}
+		}
+
+		recordSimulation(startTime, pathGenerationTime);
+
+		// the buffers are reused for the extrema, which are only exponentiated once
+		for(int path = 0; path < numberOfPaths; path++) {
+			logMaximum[path] = Math.exp(logMaximum[path]);
+			logMinimum[path] = Math.exp(logMinimum[path]);
+			logValue[path] = Math.exp(logValue[path]);
+		}
+		return new PathExtremum(timeDiscretization.getTime(maturityIndex), logMaximum, logMinimum, logValue);
+	}
+
+	/*
+	 * It returns, for every time of the time discretization up to maturity, whether it is a monitoring time.
+	 */
+	private boolean[] getMonitoringFlags(int numberOfFixings, int numberOfElapsedFixings, double maturity, boolean isBrownianBridgeSampling) {
+
+		if(isBrownianBridgeSampling && numberOfFixings != 0) {
+			throw new IllegalArgumentException("Brownian bridge sampling is only available for continuous monitoring.");
+		}
+
+		long startTime = LookbackInstrumentation.getStartTime();
+		int maturityIndex = timeDiscretization.getTimeIndexNearestLessOrEqual(maturity);
+		boolean[] isMonitored = new boolean[maturityIndex + 1];
+		for(int timeIndex : AbstractBuildMonitoring.getMonitoringTimeIndices(timeDiscretization, numberOfFixings,
+				numberOfElapsedFixings, maturity)) {
+			isMonitored[timeIndex] = true;
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.MONITORING_TIMES, startTime);
+		return isMonitored;
+	}
+
+	/*
+	 * The simulation in single precision. It returns the logarithm of the underlying at maturity relative to its
+	 * initial value, and its maximum and minimum, path by path. The increments are added in double precision and
+	 * rounded once per time step.
+	 */
+	private float[][] getLogReturnExtremumInSinglePrecision(boolean[] isMonitored, boolean isBrownianBridgeSampling) {
+
+		int maturityIndex = isMonitored.length - 1;
+		LookbackPathDriver pathDriver = pathDriverType.getPathDriver(timeDiscretization, seed);
+		int blockSize = Math.min(numberOfPaths, pathDriver.getMaximumBlockSize());
+
+		float[] logReturn = new float[numberOfPaths];
+		float[] logMaximum = new float[numberOfPaths];
+		float[] logMinimum = new float[numberOfPaths];
+		double[] brownianIncrement = new double[blockSize];
+		Arrays.fill(logMaximum, isMonitored[0] ? 0.0f : Float.NEGATIVE_INFINITY);
+		Arrays.fill(logMinimum, isMonitored[0] ? 0.0f : Float.POSITIVE_INFINITY);
+
+		MersenneTwister mersenneTwisterForBrownianBridge = isBrownianBridgeSampling
+				? new MersenneTwister(BrownianBridgeExtremum.getBridgeSeed(seed)) : null;
+		// the increments are timed apart from the update of the paths and of their extrema
+		boolean isInstrumented = LookbackInstrumentation.isEnabled();
+		long startTime = LookbackInstrumentation.getStartTime();
+		long pathGenerationTime = 0L;
+		for(int firstPath = 0; firstPath < numberOfPaths; firstPath += blockSize) {
+			int lastPath = Math.min(firstPath + blockSize, numberOfPaths);
+			pathDriver.nextBlock(lastPath - firstPath);
+
+			for(int timeIndex = 1; timeIndex <= maturityIndex; timeIndex++) {
+				double timeStep = timeDiscretization.getTimeStep(timeIndex - 1);
+				double drift = (riskFreeRate - 0.5 * volatility * volatility) * timeStep;
+
+				long startOfIncrements = isInstrumented ? System.nanoTime() : 0L;
+				pathDriver.getBrownianIncrements(timeIndex - 1, brownianIncrement);
+				if(isInstrumented) {
+					pathGenerationTime += System.nanoTime() - startOfIncrements;
+				}
+
+				if(isBrownianBridgeSampling) {
+					double variance = volatility * volatility * timeStep;
+					for(int path = firstPath; path < lastPath; path++) {
+						double logStart = logReturn[path];
+						double logEnd = logStart + drift + volatility * brownianIncrement[path - firstPath];
+						logMaximum[path] = (float) Math.max(logMaximum[path], BrownianBridgeExtremum.sampleLogMaximum(
+								logStart, logEnd, variance, 1.0 - mersenneTwisterForBrownianBridge.nextDouble()));
+						logMinimum[path] = (float) Math.min(logMinimum[path], BrownianBridgeExtremum.sampleLogMinimum(
+								logStart, logEnd, variance, 1.0 - mersenneTwisterForBrownianBridge.nextDouble()));
+						logReturn[path] = (float) logEnd;
+					}
+					continue;
+				}
+
+				for(int path = firstPath; path < lastPath; path++) {
+					logReturn[path] = (float) (logReturn[path] + drift + volatility * brownianIncrement[path - firstPath]);
+				}
+
+				if(isMonitored[timeIndex]) {
+					for(int path = firstPath; path < lastPath; path++) {
+						logMaximum[path] = Math.max(logMaximum[path], logReturn[path]);
+						logMinimum[path] = Math.min(logMinimum[path], logReturn[path]);
+					}
+				}
+			}
+		}
+		recordSimulation(startTime, pathGenerationTime);
+		return new float[][] { logReturn, logMaximum, logMinimum };
+	}
+
+	private static void recordSimulation(long startTime, long pathGenerationTime) {
+		if(startTime != 0L) {
+			LookbackInstrumentation.recordStageDuration(LookbackStage.PATH_GENERATION, pathGenerationTime);
+			LookbackInstrumentation.recordStageDuration(LookbackStage.EXTREMUM, System.nanoTime() - startTime - pathGenerationTime);
+		}
+	}
+
+	/**
+	 * It returns the value at time zero of the given lookback.
+	 */
+	public double getValue(AbstractBuildMonitoring product) {
+
+		LookbackValuationTimer valuationTimer = LookbackInstrumentation.startValuation();
+		double maturity = product.getMaturity();
+		double sumOfPayoffs;
+		if(pathPrecision == LookbackPathPrecision.FLOAT) {
+			sumOfPayoffs = getSumOfPayoffsInSinglePrecision(product);
+		}
+		else {
+			PathExtremum pathExtremum = getPathExtremum(product);
+
+			long startTime = LookbackInstrumentation.getStartTime();
+			sumOfPayoffs = 0.0;
+			for(int path = 0; path < numberOfPaths; path++) {
+				sumOfPayoffs += product.getLookbackType().getPayoff(pathExtremum.getMaximum(path),
+						pathExtremum.getMinimum(path), pathExtremum.getTerminalValue(path), product.getStrike());
+			}
+			LookbackInstrumentation.recordStage(LookbackStage.PAYOFF, startTime);
+		}
+		double value = Math.exp(-riskFreeRate * maturity) * sumOfPayoffs / numberOfPaths;
+		if(valuationTimer != null) {
+			valuationTimer.stop(product.getClass().getSimpleName(), numberOfPaths);
+		}
+		return value;
+	}
+
+	/*
+	 * The payoffs are computed from the single precision paths without converting them to a PathExtremum.
+	 */
+	private double getSumOfPayoffsInSinglePrecision(AbstractBuildMonitoring product) {
+
+		boolean[] isMonitored = getMonitoringFlags(product.getNumberOfFixings(), product.getNumberOfElapsedFixings(),
+				product.getMaturity(), product.isBrownianBridgeSampling());
+		float[][] logReturnExtremum = getLogReturnExtremumInSinglePrecision(isMonitored, product.isBrownianBridgeSampling());
+		float[] logReturn = logReturnExtremum[0];
+		float[] logMaximum = logReturnExtremum[1];
+		float[] logMinimum = logReturnExtremum[2];
+
+		LookbackType lookbackType = product.getLookbackType();
+		double strike = product.getStrike();
+		double runningMaximum = product.getRunningMaximum();
+		double runningMinimum = product.getRunningMinimum();
+		long startTime = LookbackInstrumentation.getStartTime();
+		double sumOfPayoffs = 0.0;
+		for(int path = 0; path < numberOfPaths; path++) {
+			sumOfPayoffs += lookbackType.getPayoff(Math.max(initialValue * Math.exp(logMaximum[path]), runningMaximum),
+					Math.min(initialValue * Math.exp(logMinimum[path]), runningMinimum), initialValue * Math.exp(logReturn[path]), strike);
+		}
+		LookbackInstrumentation.recordStage(LookbackStage.PAYOFF, startTime);
+		return sumOfPayoffs;
+	}
+
+	public double getInitialValue() {
+		return initialValue;
+	}
+
+	public double getRiskFreeRate() {
+		return riskFreeRate;
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+
+	public TimeDiscretization getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public LookbackPathDriverType getPathDriverType() {
+		return pathDriverType;
+	}
+
+	public LookbackPathPrecision getPathPrecision() {
+		return pathPrecision;
+	}
+}
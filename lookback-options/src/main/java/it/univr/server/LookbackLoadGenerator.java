@@ -0,0 +1,229 @@
+package it.univr.server;
+
+import it.univr.montecarlo.LookbackType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A load generator for {@link LookbackPricingServer}: a number of clients, each sending its share of requests one
+ * after the other, over HTTP. It reports the percentiles of the latency and the throughput.
+ *
+ * Run without arguments, it starts a server on the loopback interface and loads it with analytic and Monte Carlo
+ * requests. The arguments are otherwise the URL of the /price endpoint, the number of clients and the number of
+ * requests.
+ */
+public class LookbackLoadGenerator {
+
+	private final URL url;
+	private final int numberOfClients;
+	private final boolean isBinary;
+
+	public LookbackLoadGenerator(URL url, int numberOfClients, boolean isBinary) {
+		this.url = url;
+		this.numberOfClients = numberOfClients;
+		this.isBinary = isBinary;
+	}
+
+	public LookbackLoadGenerator(URL url, int numberOfClients) {
+		this(url, numberOfClients, false);
+	}
+
+	/**
+	 * It returns the report of sending the requests, cycling through the given ones, spread among the clients.
+	 *
+	 * @throws IOException If a request fails or is not answered with the status 200.
+	 */
+	public LoadReport run(LookbackPricingRequest[] requests, int numberOfRequests) throws IOException {
+
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfClients);
+		long[] latencies = new long[numberOfRequests];
+		List<Future<Void>> clients = new ArrayList<>(numberOfClients);
+		long start = System.nanoTime();
+		for(int client = 0; client < numberOfClients; client++) {
+			final int firstRequest = client;
+			clients.add(executor.submit(() -> {
+				for(int i = firstRequest; i < numberOfRequests; i += numberOfClients) {
+					long startOfRequest = System.nanoTime();
+					send(requests[i % requests.length]);
+					latencies[i] = System.nanoTime() - startOfRequest;
+				}
+				return null;
+			}));
+		}
+		try {
+			for(Future<Void> client : clients) {
+				client.get();
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		catch(ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		long elapsedTime = System.nanoTime() - start;
+
+		return new LoadReport(latencies, elapsedTime);
+	}
+
+	/**
+	 * It returns the value the server answers for the request.
+	 */
+	public double send(LookbackPricingRequest request) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		byte[] body = isBinary ? request.toBinary() : request.toJson().getBytes(StandardCharsets.UTF_8);
+		connection.setRequestProperty("Content-Type", isBinary ? "application/octet-stream" : "application/json");
+		connection.setFixedLengthStreamingMode(body.length);
+		try(OutputStream requestBody = connection.getOutputStream()) {
+			requestBody.write(body);
+		}
+		int status = connection.getResponseCode();
+		if(status != 200) {
+			InputStream errorStream = connection.getErrorStream();
+			String error = errorStream == null ? "" : new String(readAll(errorStream), StandardCharsets.UTF_8);
+			throw new IOException("The server answered " + status + " " + error);
+		}
+		byte[] response;
+		try(InputStream responseBody = connection.getInputStream()) {
+			response = readAll(responseBody);
+		}
+		if(isBinary) {
+			return ByteBuffer.wrap(response).order(ByteOrder.LITTLE_ENDIAN).getDouble();
+		}
+		Object value = SimpleJson.parseObject(new String(response, StandardCharsets.UTF_8)).get("value");
+		if(!(value instanceof Double)) {
+			throw new IOException("The response has no value.");
+		}
+		return (Double) value;
+	}
+
+	private static byte[] readAll(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		byte[] buffer = new byte[256];
+		for(int length; (length = stream.read(buffer)) > 0;) {
+			bytes.write(buffer, 0, length);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * The latencies and the throughput of a run of the load generator.
+	 */
+	public static class LoadReport {
+
+		private final long[] sortedLatencies;
+		private final long elapsedTime;
+
+		LoadReport(long[] latencies, long elapsedTime) {
+			this.sortedLatencies = latencies.clone();
+			Arrays.sort(sortedLatencies);
+			this.elapsedTime = elapsedTime;
+		}
+
+		public int getNumberOfRequests() {
+			return sortedLatencies.length;
+		}
+
+		/**
+		 * It returns the latency, in milliseconds, below which the given fraction of the requests were answered.
+		 */
+		public double getLatencyPercentileInMilliseconds(double fraction) {
+			if(sortedLatencies.length == 0) {
+				return Double.NaN;
+			}
+			int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+			return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, index))] / 1E6;
+		}
+
+		public double getMedianLatencyInMilliseconds() {
+			return getLatencyPercentileInMilliseconds(0.5);
+		}
+
+		public double getP99LatencyInMilliseconds() {
+			return getLatencyPercentileInMilliseconds(0.99);
+		}
+
+		public double getRequestsPerSecond() {
+			return sortedLatencies.length / (elapsedTime / 1E9);
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%d requests, %.1f requests/s, p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+					getNumberOfRequests(), getRequestsPerSecond(), getMedianLatencyInMilliseconds(),
+					getP99LatencyInMilliseconds(), getLatencyPercentileInMilliseconds(1.0));
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int numberOfClients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		int numberOfRequests = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+		LookbackPricingServer server = null;
+		URL url;
+		if(args.length > 0) {
+			url = new URL(args[0]);
+		}
+		else {
+			// the embedded server answers keep-alive requests without waiting for the delayed acknowledgements
+			if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+				System.setProperty("sun.net.httpserver.nodelay", "true");
+			}
+			server = new LookbackPricingServer(0);
+			server.start();
+			url = new URL("http://127.0.0.1:" + server.getPort() + "/price");
+			System.out.println("Server on " + url + (server.isUsingVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+		}
+
+		try {
+			LookbackLoadGenerator loadGenerator = new LookbackLoadGenerator(url, numberOfClients);
+
+			LookbackPricingRequest[] analyticRequests = new LookbackPricingRequest[100];
+			for(int i = 0; i < analyticRequests.length; i++) {
+				analyticRequests[i] = new LookbackPricingRequest(LookbackPricingRequest.Method.ANALYTIC,
+						LookbackType.values()[i % 4], 100.0, 0.05, 0.3, 1.0, 90.0 + i % 25, i % 3 == 0 ? 0 : 12);
+			}
+			loadGenerator.run(analyticRequests, numberOfRequests / 10);
+			System.out.println("Analytic:    " + loadGenerator.run(analyticRequests, numberOfRequests));
+
+			LookbackPricingRequest[] monteCarloRequests = new LookbackPricingRequest[numberOfClients];
+			for(int i = 0; i < monteCarloRequests.length; i++) {
+				monteCarloRequests[i] = new LookbackPricingRequest(LookbackPricingRequest.Method.MONTE_CARLO,
+						LookbackType.values()[i % 4], 100.0, 0.05, 0.3, 1.0, 100.0 + i, Double.NEGATIVE_INFINITY,
+						Double.POSITIVE_INFINITY, 12, 10000, 50, 1897);
+			}
+			System.out.println("Monte Carlo: " + loadGenerator.run(monteCarloRequests, Math.max(numberOfClients, numberOfRequests / 20)));
+			if(server != null) {
+				System.out.println("Monte Carlo requests " + server.getNumberOfMonteCarloRequests() + ", simulations "
+						+ server.getNumberOfSimulations());
+			}
+		}
+		finally {
+			if(server != null) {
+				server.stop(0);
+			}
+		}
+	}
+}
@@ -0,0 +1,325 @@
+package it.univr.server;
+
+import it.univr.analyticprices.AnalyticPricesCache;
+import it.univr.montecarlo.LookbackSpecification;
+import it.univr.montecarlo.LookbackType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A request of {@link LookbackPricingServer}: a lookback of one of the four types, with continuous (zero fixings) or
+ * discrete monitoring, on an underlying with Black-Scholes dynamics, to be priced analytically or by Monte Carlo.
+ *
+ * A request is read from a flat JSON object, e.g.
+ * <pre>
+ * {"method": "MONTE_CARLO", "type": "CALL_FIXED_STRIKE", "spot": 100, "rate": 0.05, "volatility": 0.3,
+ *  "maturity": 1, "strike": 110, "fixings": 12, "paths": 100000, "steps": 100, "seed": 1897}
+ * </pre>
+ * where the strike is ignored for the floating strikes, "runningMaximum" and "runningMinimum" give the extrema of a
+ * seasoned lookback (analytic, continuous monitoring only) and "paths", "steps" and "seed" the simulation, or from
+ * the binary record of {@link #BINARY_SIZE} little-endian bytes written by {@link #toBinary()}.
+ */
+public class LookbackPricingRequest {
+
+	/**
+	 * The size of the binary record: the ordinals of the method and of the type, the spot price, the rate, the
+	 * volatility, the maturity, the strike, the running maximum and the running minimum, the number of fixings, of
+	 * paths and of time steps and the seed.
+	 */
+	public static final int BINARY_SIZE = 2 * 4 + 7 * 8 + 4 * 4;
+
+	public static final int DEFAULT_NUMBER_OF_PATHS = 100000;
+	public static final int DEFAULT_NUMBER_OF_TIME_STEPS = 100;
+	public static final int DEFAULT_SEED = 1897;
+
+	/**
+	 * How a request is priced.
+	 */
+	public enum Method {
+		ANALYTIC,
+		MONTE_CARLO
+	}
+
+	private final Method method;
+	private final LookbackType type;
+	private final double spotPrice;
+	private final double riskFreeRate;
+	private final double volatility;
+	private final double maturity;
+	private final double strike;
+	private final double runningMaximum;
+	private final double runningMinimum;
+	private final int numberOfFixings;
+	private final int numberOfPaths;
+	private final int numberOfTimeSteps;
+	private final int seed;
+
+	public LookbackPricingRequest(Method method, LookbackType type, double spotPrice, double riskFreeRate, double volatility,
+			double maturity, double strike, double runningMaximum, double runningMinimum, int numberOfFixings,
+			int numberOfPaths, int numberOfTimeSteps, int seed) {
+		this.method = method;
+		this.type = type;
+		this.spotPrice = spotPrice;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.maturity = maturity;
+		this.strike = type.isFixedStrike() ? strike : Double.NaN;
+		this.runningMaximum = runningMaximum;
+		this.runningMinimum = runningMinimum;
+		this.numberOfFixings = numberOfFixings;
+		this.numberOfPaths = numberOfPaths;
+		this.numberOfTimeSteps = numberOfTimeSteps;
+		this.seed = seed;
+		validate();
+	}
+
+	/**
+	 * It builds the request of a lookback starting today, simulated with the default paths, time steps and seed
+	 * when priced by Monte Carlo.
+	 */
+	public LookbackPricingRequest(Method method, LookbackType type, double spotPrice, double riskFreeRate, double volatility,
+			double maturity, double strike, int numberOfFixings) {
+		this(method, type, spotPrice, riskFreeRate, volatility, maturity, strike, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+				numberOfFixings, DEFAULT_NUMBER_OF_PATHS, DEFAULT_NUMBER_OF_TIME_STEPS, DEFAULT_SEED);
+	}
+
+	/**
+	 * It reads a request from the fields of a JSON object, see the description of the class.
+	 *
+	 * @throws IllegalArgumentException If a field is missing or invalid.
+	 */
+	public static LookbackPricingRequest fromJson(String json) {
+
+		Map<String, Object> fields = SimpleJson.parseObject(json);
+		LookbackType type = LookbackType.valueOf(getString(fields, "type", null));
+		return new LookbackPricingRequest(
+				Method.valueOf(getString(fields, "method", Method.ANALYTIC.name())),
+				type,
+				getNumber(fields, "spot", Double.NaN),
+				getNumber(fields, "rate", Double.NaN),
+				getNumber(fields, "volatility", Double.NaN),
+				getNumber(fields, "maturity", Double.NaN),
+				getNumber(fields, "strike", type.isFixedStrike() ? Double.NaN : 0.0),
+				getNumber(fields, "runningMaximum", Double.NEGATIVE_INFINITY),
+				getNumber(fields, "runningMinimum", Double.POSITIVE_INFINITY),
+				getInteger(fields, "fixings", 0),
+				getInteger(fields, "paths", DEFAULT_NUMBER_OF_PATHS),
+				getInteger(fields, "steps", DEFAULT_NUMBER_OF_TIME_STEPS),
+				getInteger(fields, "seed", DEFAULT_SEED));
+	}
+
+	/**
+	 * It reads a request from its binary record, see {@link #BINARY_SIZE}.
+	 *
+	 * @throws IllegalArgumentException If the record is too short or invalid.
+	 */
+	public static LookbackPricingRequest fromBinary(ByteBuffer buffer) {
+
+		if(buffer.remaining() < BINARY_SIZE) {
+			throw new IllegalArgumentException("A binary request has " + BINARY_SIZE + " bytes.");
+		}
+		buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		int methodOrdinal = buffer.getInt();
+		int typeOrdinal = buffer.getInt();
+		if(methodOrdinal < 0 || methodOrdinal >= Method.values().length || typeOrdinal < 0 || typeOrdinal >= LookbackType.values().length) {
+			throw new IllegalArgumentException("Unknown method or lookback type.");
+		}
+		return new LookbackPricingRequest(Method.values()[methodOrdinal], LookbackType.values()[typeOrdinal],
+				buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+				buffer.getDouble(), buffer.getDouble(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+	}
+
+	public String toJson() {
+		StringBuilder json = new StringBuilder(256);
+		json.append("{\"method\":\"").append(method.name()).append("\",\"type\":\"").append(type.name()).append('"');
+		json.append(",\"spot\":").append(spotPrice).append(",\"rate\":").append(riskFreeRate);
+		json.append(",\"volatility\":").append(volatility).append(",\"maturity\":").append(maturity);
+		if(type.isFixedStrike()) {
+			json.append(",\"strike\":").append(strike);
+		}
+		if(runningMaximum != Double.NEGATIVE_INFINITY) {
+			json.append(",\"runningMaximum\":").append(runningMaximum);
+		}
+		if(runningMinimum != Double.POSITIVE_INFINITY) {
+			json.append(",\"runningMinimum\":").append(runningMinimum);
+		}
+		json.append(",\"fixings\":").append(numberOfFixings);
+		json.append(",\"paths\":").append(numberOfPaths).append(",\"steps\":").append(numberOfTimeSteps).append(",\"seed\":").append(seed);
+		return json.append('}').toString();
+	}
+
+	public byte[] toBinary() {
+		ByteBuffer buffer = ByteBuffer.allocate(BINARY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(method.ordinal()).putInt(type.ordinal());
+		buffer.putDouble(spotPrice).putDouble(riskFreeRate).putDouble(volatility).putDouble(maturity).putDouble(strike);
+		buffer.putDouble(runningMaximum).putDouble(runningMinimum);
+		buffer.putInt(numberOfFixings).putInt(numberOfPaths).putInt(numberOfTimeSteps).putInt(seed);
+		return buffer.array();
+	}
+
+	/**
+	 * It returns the analytic price, the Broadie-Glasserman-Kou one for discrete monitoring, read from the given cache.
+	 */
+	public double getAnalyticValue(AnalyticPricesCache cache) {
+		if(numberOfFixings == 0) {
+			switch(type) {
+			case CALL_FIXED_STRIKE:
+				return cache.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, runningMaximum);
+			case PUT_FIXED_STRIKE:
+				return cache.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, runningMinimum);
+			case CALL_FLOATING_STRIKE:
+				return cache.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, runningMinimum);
+			case PUT_FLOATING_STRIKE:
+				return cache.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, runningMaximum);
+			default:
+				throw new IllegalStateException("Unknown lookback type " + type);
+			}
+		}
+		switch(type) {
+		case CALL_FIXED_STRIKE:
+			return cache.discretelyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings);
+		case PUT_FIXED_STRIKE:
+			return cache.discretelyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings);
+		case CALL_FLOATING_STRIKE:
+			return cache.discretelyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings);
+		case PUT_FLOATING_STRIKE:
+			return cache.discretelyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings);
+		default:
+			throw new IllegalStateException("Unknown lookback type " + type);
+		}
+	}
+
+	/**
+	 * It returns the lookback as a member of a {@link it.univr.montecarlo.LookbackPortfolio}.
+	 */
+	public LookbackSpecification getSpecification() {
+		return type.isFixedStrike() ? new LookbackSpecification(type, strike, numberOfFixings) : new LookbackSpecification(type, numberOfFixings);
+	}
+
+	/**
+	 * It returns the key of the simulation of a Monte Carlo request: the requests with equal keys are valued on
+	 * the same paths and can be coalesced.
+	 */
+	String getModelKey() {
+		return String.format(Locale.ROOT, "%a/%a/%a/%a/%d/%d/%d", spotPrice, riskFreeRate, volatility, maturity,
+				numberOfPaths, numberOfTimeSteps, seed);
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public LookbackType getType() {
+		return type;
+	}
+
+	public double getSpotPrice() {
+		return spotPrice;
+	}
+
+	public double getRiskFreeRate() {
+		return riskFreeRate;
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public double getStrike() {
+		return strike;
+	}
+
+	public double getRunningMaximum() {
+		return runningMaximum;
+	}
+
+	public double getRunningMinimum() {
+		return runningMinimum;
+	}
+
+	public int getNumberOfFixings() {
+		return numberOfFixings;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public int getNumberOfTimeSteps() {
+		return numberOfTimeSteps;
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+
+	@Override
+	public String toString() {
+		return "LookbackPricingRequest " + toJson();
+	}
+
+	private void validate() {
+		if(!(spotPrice > 0) || Double.isNaN(riskFreeRate) || !(volatility > 0) || !(maturity > 0)) {
+			throw new IllegalArgumentException("The spot price, the volatility and the maturity must be positive and the rate a number.");
+		}
+		if(type.isFixedStrike() && !(strike > 0)) {
+			throw new IllegalArgumentException("A fixed-strike lookback needs a positive strike.");
+		}
+		if(numberOfFixings < 0) {
+			throw new IllegalArgumentException("The number of fixings must not be negative.");
+		}
+		boolean isSeasoned = runningMaximum != Double.NEGATIVE_INFINITY || runningMinimum != Double.POSITIVE_INFINITY;
+		if(isSeasoned && (method != Method.ANALYTIC || numberOfFixings != 0)) {
+			throw new IllegalArgumentException("Running extrema are only supported by the analytic prices with continuous monitoring.");
+		}
+		if(method == Method.MONTE_CARLO && (numberOfPaths <= 0 || numberOfTimeSteps <= 0)) {
+			throw new IllegalArgumentException("A Monte Carlo request needs a positive number of paths and of time steps.");
+		}
+	}
+
+	private static String getString(Map<String, Object> fields, String name, String defaultValue) {
+		Object value = fields.get(name);
+		if(value == null) {
+			if(defaultValue == null) {
+				throw new IllegalArgumentException("The field \"" + name + "\" is missing.");
+			}
+			return defaultValue;
+		}
+		if(!(value instanceof String)) {
+			throw new IllegalArgumentException("The field \"" + name + "\" must be a string.");
+		}
+		return (String) value;
+	}
+
+	private static double getNumber(Map<String, Object> fields, String name, double defaultValue) {
+		Object value = fields.get(name);
+		if(value == null) {
+			if(Double.isNaN(defaultValue)) {
+				throw new IllegalArgumentException("The field \"" + name + "\" is missing.");
+			}
+			return defaultValue;
+		}
+		if(!(value instanceof Double)) {
+			throw new IllegalArgumentException("The field \"" + name + "\" must be a number.");
+		}
+		return (Double) value;
+	}
+
+	/*
+	 * A count or a seed is not cast from the number, which would turn 1e12 paths into Integer.MAX_VALUE.
+	 */
+	private static int getInteger(Map<String, Object> fields, String name, int defaultValue) {
+		double value = getNumber(fields, name, defaultValue);
+		if(value != Math.rint(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The field \"" + name + "\" must be an integer of 32 bits.");
+		}
+		return (int) value;
+	}
+}
@@ -0,0 +1,258 @@
+package it.univr.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import it.univr.analyticprices.AnalyticPricesCache;
+import net.finmath.exception.CalculationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An embeddable HTTP server pricing the lookbacks of {@link LookbackPricingRequest}, built on the HttpServer of the
+ * JDK.
+ *
+ * A request is POSTed to /price either as a JSON object, answered with {"value": ...}, or, with the content type
+ * application/octet-stream, as the binary record of LookbackPricingRequest, answered with the value as 8
+ * little-endian bytes. Invalid requests, and Monte Carlo requests of more paths times time steps than the budget of
+ * the server, are answered with the status 400 and {"error": ...}, bodies of more than
+ * {@link #MAXIMUM_BODY_SIZE} bytes with the status 413 before they are read further. GET /stats returns the counters of the server.
+ *
+ * The exchanges are handled on virtual threads when the JDK has them (Java 21 or later) and on a cached pool of
+ * platform threads otherwise. The analytic prices are read from an {@link AnalyticPricesCache}, the Monte Carlo
+ * requests of the same model arriving within the batching window are valued together on one simulation, see
+ * {@link MonteCarloRequestCoalescer}.
+ *
+ * The response headers and the body are written separately: with Nagle's algorithm on, a keep-alive client waits
+ * for the delayed acknowledgement, about 40 ms, on every request. The JDK turns it off for all its HTTP servers with
+ * the system property sun.net.httpserver.nodelay=true, which it reads once, when the first server is created; the
+ * server leaves this choice to the application embedding it.
+ */
+public class LookbackPricingServer {
+
+	public static final long DEFAULT_BATCHING_WINDOW_IN_MICROSECONDS = 2000;
+	public static final int DEFAULT_MAXIMUM_BATCH_SIZE = 64;
+	public static final int DEFAULT_CACHE_SIZE = 100000;
+	/**
+	 * The default budget of a Monte Carlo request: its number of paths times its number of time steps, 10^8 values
+	 * of the underlying.
+	 */
+	public static final long DEFAULT_MAXIMUM_NUMBER_OF_PATH_STEPS = 100000000L;
+	/**
+	 * The largest request body, in bytes: far above the binary record and any valid JSON request.
+	 */
+	public static final int MAXIMUM_BODY_SIZE = 64 * 1024;
+
+	private static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+	private static final String JSON_CONTENT_TYPE = "application/json";
+
+	private final InetSocketAddress address;
+	private final AnalyticPricesCache analyticPricesCache;
+	private final MonteCarloRequestCoalescer monteCarloRequestCoalescer;
+	private final long maximumNumberOfPathSteps;
+
+	private HttpServer httpServer;
+	private ExecutorService executor;
+	private boolean isUsingVirtualThreads;
+
+	public LookbackPricingServer(InetSocketAddress address, long batchingWindowInMicroseconds, int maximumBatchSize, int cacheSize,
+			long maximumNumberOfPathSteps) {
+		this.address = address;
+		this.analyticPricesCache = new AnalyticPricesCache(cacheSize);
+		this.monteCarloRequestCoalescer = new MonteCarloRequestCoalescer(batchingWindowInMicroseconds, maximumBatchSize);
+		this.maximumNumberOfPathSteps = maximumNumberOfPathSteps;
+	}
+
+	public LookbackPricingServer(InetSocketAddress address, long batchingWindowInMicroseconds, int maximumBatchSize, int cacheSize) {
+		this(address, batchingWindowInMicroseconds, maximumBatchSize, cacheSize, DEFAULT_MAXIMUM_NUMBER_OF_PATH_STEPS);
+	}
+
+	/**
+	 * It listens on the loopback interface on the given port, zero for any free one, with the default batching.
+	 */
+	public LookbackPricingServer(int port) {
+		this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), DEFAULT_BATCHING_WINDOW_IN_MICROSECONDS,
+				DEFAULT_MAXIMUM_BATCH_SIZE, DEFAULT_CACHE_SIZE);
+	}
+
+	public synchronized void start() throws IOException {
+		if(httpServer != null) {
+			throw new IllegalStateException("The server is already started.");
+		}
+		executor = getVirtualThreadExecutor();
+		isUsingVirtualThreads = executor != null;
+		if(executor == null) {
+			executor = Executors.newCachedThreadPool();
+		}
+		httpServer = HttpServer.create(address, 0);
+		httpServer.createContext("/price", this::handlePrice);
+		httpServer.createContext("/stats", this::handleStatistics);
+		httpServer.setExecutor(executor);
+		httpServer.start();
+	}
+
+	/**
+	 * It stops the server, waiting at most the given time for the exchanges in progress.
+	 */
+	public synchronized void stop(int delayInSeconds) {
+		if(httpServer != null) {
+			httpServer.stop(delayInSeconds);
+			executor.shutdown();
+			httpServer = null;
+		}
+	}
+
+	/**
+	 * It returns the port the server listens on, which is the one chosen by the system when started with port zero.
+	 */
+	public synchronized int getPort() {
+		if(httpServer == null) {
+			throw new IllegalStateException("The server is not started.");
+		}
+		return httpServer.getAddress().getPort();
+	}
+
+	public boolean isUsingVirtualThreads() {
+		return isUsingVirtualThreads;
+	}
+
+	public AnalyticPricesCache getAnalyticPricesCache() {
+		return analyticPricesCache;
+	}
+
+	public long getNumberOfMonteCarloRequests() {
+		return monteCarloRequestCoalescer.getNumberOfRequests();
+	}
+
+	/**
+	 * It returns the number of simulations run for the Monte Carlo requests, at most one per batch of requests.
+	 */
+	public long getNumberOfSimulations() {
+		return monteCarloRequestCoalescer.getNumberOfSimulations();
+	}
+
+	public long getMaximumNumberOfPathSteps() {
+		return maximumNumberOfPathSteps;
+	}
+
+	/**
+	 * It prices a single request in the calling thread, as the server does.
+	 *
+	 * @throws IllegalArgumentException If a Monte Carlo request has more paths times time steps than the budget.
+	 */
+	public double getValue(LookbackPricingRequest request) throws CalculationException {
+		if(request.getMethod() == LookbackPricingRequest.Method.ANALYTIC) {
+			return request.getAnalyticValue(analyticPricesCache);
+		}
+		if((long) request.getNumberOfPaths() * request.getNumberOfTimeSteps() > maximumNumberOfPathSteps) {
+			throw new IllegalArgumentException("A Monte Carlo request may have at most " + maximumNumberOfPathSteps
+					+ " paths times time steps.");
+		}
+		return monteCarloRequestCoalescer.getValue(request);
+	}
+
+	private void handlePrice(HttpExchange exchange) throws IOException {
+		try {
+			if(!"POST".equals(exchange.getRequestMethod())) {
+				sendJson(exchange, 405, "{\"error\":\"Use POST.\"}");
+				return;
+			}
+			String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+			boolean isBinary = contentType != null && contentType.startsWith(BINARY_CONTENT_TYPE);
+			byte[] body = readBody(exchange.getRequestBody());
+			if(body == null) {
+				sendJson(exchange, 413, "{\"error\":\"The request body exceeds " + MAXIMUM_BODY_SIZE + " bytes.\"}");
+				return;
+			}
+
+			LookbackPricingRequest request;
+			double value;
+			try {
+				request = isBinary ? LookbackPricingRequest.fromBinary(ByteBuffer.wrap(body))
+						: LookbackPricingRequest.fromJson(new String(body, StandardCharsets.UTF_8));
+				value = getValue(request);
+			}
+			catch(IllegalArgumentException e) {
+				sendJson(exchange, 400, "{\"error\":" + SimpleJson.quote(String.valueOf(e.getMessage())) + "}");
+				return;
+			}
+			catch(CalculationException | RuntimeException e) {
+				sendJson(exchange, 500, "{\"error\":" + SimpleJson.quote(String.valueOf(e.getMessage())) + "}");
+				return;
+			}
+
+			if(isBinary) {
+				byte[] response = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putDouble(value).array();
+				exchange.getResponseHeaders().set("Content-Type", BINARY_CONTENT_TYPE);
+				send(exchange, 200, response);
+			}
+			else {
+				sendJson(exchange, 200, "{\"value\":" + value + "}");
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	private void handleStatistics(HttpExchange exchange) throws IOException {
+		try {
+			sendJson(exchange, 200, "{\"virtualThreads\":" + isUsingVirtualThreads
+					+ ",\"monteCarloRequests\":" + getNumberOfMonteCarloRequests()
+					+ ",\"simulations\":" + getNumberOfSimulations()
+					+ ",\"analyticCacheHits\":" + analyticPricesCache.getHitCount()
+					+ ",\"analyticCacheMisses\":" + analyticPricesCache.getMissCount() + "}");
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+		send(exchange, status, json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void send(HttpExchange exchange, int status, byte[] response) throws IOException {
+		exchange.sendResponseHeaders(status, response.length);
+		try(OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(response);
+		}
+	}
+
+	/*
+	 * It returns null as soon as the body exceeds MAXIMUM_BODY_SIZE, without reading the rest.
+	 */
+	private static byte[] readBody(InputStream requestBody) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+		byte[] buffer = new byte[1024];
+		for(int length; (length = requestBody.read(buffer)) > 0;) {
+			if(body.size() + length > MAXIMUM_BODY_SIZE) {
+				return null;
+			}
+			body.write(buffer, 0, length);
+		}
+		return body.toByteArray();
+	}
+
+	/*
+	 * Executors.newVirtualThreadPerTaskExecutor only exists from Java 21 on, the module is compiled for older ones.
+	 */
+	private static ExecutorService getVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch(ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
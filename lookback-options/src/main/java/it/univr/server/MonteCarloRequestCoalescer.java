@@ -0,0 +1,173 @@
+package it.univr.server;
+
+import it.univr.montecarlo.LookbackPortfolio;
+import it.univr.montecarlo.LookbackSpecification;
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * It coalesces the concurrent Monte Carlo requests with the same model, i.e., the same market data, maturity and
+ * simulation, into one {@link LookbackPortfolio} valued on a single simulation.
+ *
+ * The first request of a model opens a batch and becomes its leader: it waits for the batching window, or until
+ * the batch is full, closes the batch and values it on its own thread, while the other requests of the batch wait
+ * for their value. The paths only depend on the model, so a request has the same value whether it is coalesced
+ * or not.
+ *
+ * The batches are guarded by a ReentrantLock rather than by a monitor, so that a waiting virtual thread does not
+ * pin its carrier thread.
+ */
+class MonteCarloRequestCoalescer {
+
+	private final long batchingWindowInNanoseconds;
+	private final int maximumBatchSize;
+
+	private final Map<String, Batch> openBatches = new HashMap<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition batchClosed = lock.newCondition();
+
+	private final LongAdder numberOfRequests = new LongAdder();
+	private final LongAdder numberOfSimulations = new LongAdder();
+
+	MonteCarloRequestCoalescer(long batchingWindowInMicroseconds, int maximumBatchSize) {
+		this.batchingWindowInNanoseconds = batchingWindowInMicroseconds * 1000L;
+		this.maximumBatchSize = maximumBatchSize;
+	}
+
+	/**
+	 * It returns the value of the request, valued together with the concurrent requests of the same model.
+	 */
+	double getValue(LookbackPricingRequest request) throws CalculationException {
+
+		numberOfRequests.increment();
+		String modelKey = request.getModelKey();
+		Batch batch;
+		CompletableFuture<Double> value = new CompletableFuture<>();
+		boolean isLeader = false;
+		lock.lock();
+		try {
+			batch = openBatches.get(modelKey);
+			if(batch == null) {
+				batch = new Batch(request);
+				openBatches.put(modelKey, batch);
+				isLeader = true;
+			}
+			batch.requests.add(request);
+			batch.values.add(value);
+			if(batch.requests.size() >= maximumBatchSize) {
+				openBatches.remove(modelKey, batch);
+				batchClosed.signalAll();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+
+		if(isLeader) {
+			long remaining = batchingWindowInNanoseconds;
+			lock.lock();
+			try {
+				while(openBatches.get(modelKey) == batch && remaining > 0) {
+					remaining = batchClosed.awaitNanos(remaining);
+				}
+				openBatches.remove(modelKey, batch);
+			}
+			catch(InterruptedException e) {
+				openBatches.remove(modelKey, batch);
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				lock.unlock();
+			}
+			batch.value();
+		}
+
+		try {
+			return value.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculationException(e);
+		}
+		catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new CalculationException(e.getCause());
+		}
+	}
+
+	long getNumberOfRequests() {
+		return numberOfRequests.sum();
+	}
+
+	long getNumberOfSimulations() {
+		return numberOfSimulations.sum();
+	}
+
+	/*
+	 * The requests of a model waiting to be valued. They are only modified under the lock, and read by the leader
+	 * after the batch is closed.
+	 */
+	private final class Batch {
+
+		private final LookbackPricingRequest model;
+		private final List<LookbackPricingRequest> requests = new ArrayList<>();
+		private final List<CompletableFuture<Double>> values = new ArrayList<>();
+
+		Batch(LookbackPricingRequest model) {
+			this.model = model;
+		}
+
+		void value() {
+			List<LookbackPricingRequest> requestsOfBatch;
+			List<CompletableFuture<Double>> valuesOfBatch;
+			lock.lock();
+			try {
+				requestsOfBatch = new ArrayList<>(requests);
+				valuesOfBatch = new ArrayList<>(values);
+			}
+			finally {
+				lock.unlock();
+			}
+			try {
+				List<LookbackSpecification> specifications = new ArrayList<>(requestsOfBatch.size());
+				for(LookbackPricingRequest request : requestsOfBatch) {
+					specifications.add(request.getSpecification());
+				}
+				double maturity = model.getMaturity();
+				int numberOfTimeSteps = model.getNumberOfTimeSteps();
+				MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(model.getSpotPrice(),
+						model.getRiskFreeRate(), model.getVolatility(), new BrownianMotionFromMersenneRandomNumbers(
+								new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps), 1,
+								model.getNumberOfPaths(), model.getSeed()));
+				double[] valuesOfPortfolio = new LookbackPortfolio(maturity, specifications).getValues(blackScholesProcess);
+				numberOfSimulations.increment();
+				for(int i = 0; i < valuesOfBatch.size(); i++) {
+					valuesOfBatch.get(i).complete(valuesOfPortfolio[i]);
+				}
+			}
+			catch(Throwable e) {
+				// every request of the batch waits for its value, so they all fail, also on an Error
+				for(CompletableFuture<Double> value : valuesOfBatch) {
+					value.completeExceptionally(e);
+				}
+				if(e instanceof Error) {
+					throw (Error) e;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package it.univr.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A reader of the flat JSON objects of the requests of {@link LookbackPricingServer}: the values are strings,
+ * returned as String, numbers, returned as Double, booleans, returned as Boolean, or null. Nested objects and
+ * arrays are not supported.
+ */
+final class SimpleJson {
+
+	private final String json;
+	private int position;
+
+	private SimpleJson(String json) {
+		this.json = json;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the text is not a flat JSON object.
+	 */
+	static Map<String, Object> parseObject(String json) {
+		SimpleJson parser = new SimpleJson(json);
+		Map<String, Object> fields = parser.readObject();
+		parser.skipWhitespace();
+		if(parser.position != json.length()) {
+			throw parser.error("end of the text");
+		}
+		return fields;
+	}
+
+	/**
+	 * It returns the text of the string as a JSON string, with quotes and escapes.
+	 */
+	static String quote(String text) {
+		StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+		for(int i = 0; i < text.length(); i++) {
+			char character = text.charAt(i);
+			if(character == '"' || character == '\\') {
+				quoted.append('\\').append(character);
+			}
+			else if(character < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) character));
+			}
+			else {
+				quoted.append(character);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> fields = new HashMap<>();
+		expect('{');
+		skipWhitespace();
+		if(peek() == '}') {
+			position++;
+			return fields;
+		}
+		while(true) {
+			skipWhitespace();
+			String name = readString();
+			skipWhitespace();
+			expect(':');
+			skipWhitespace();
+			fields.put(name, readValue());
+			skipWhitespace();
+			char separator = next();
+			if(separator == '}') {
+				return fields;
+			}
+			if(separator != ',') {
+				position--;
+				throw error("',' or '}'");
+			}
+		}
+	}
+
+	private Object readValue() {
+		char first = peek();
+		if(first == '"') {
+			return readString();
+		}
+		if(json.startsWith("true", position)) {
+			position += 4;
+			return Boolean.TRUE;
+		}
+		if(json.startsWith("false", position)) {
+			position += 5;
+			return Boolean.FALSE;
+		}
+		if(json.startsWith("null", position)) {
+			position += 4;
+			return null;
+		}
+		int start = position;
+		while(position < json.length() && "+-0123456789.eE".indexOf(json.charAt(position)) >= 0) {
+			position++;
+		}
+		if(start == position) {
+			throw error("a value");
+		}
+		try {
+			return Double.valueOf(json.substring(start, position));
+		}
+		catch(NumberFormatException e) {
+			position = start;
+			throw error("a number");
+		}
+	}
+
+	private String readString() {
+		expect('"');
+		StringBuilder text = new StringBuilder();
+		while(true) {
+			char character = next();
+			if(character == '"') {
+				return text.toString();
+			}
+			if(character != '\\') {
+				text.append(character);
+				continue;
+			}
+			char escaped = next();
+			switch(escaped) {
+			case 'n':
+				text.append('\n');
+				break;
+			case 't':
+				text.append('\t');
+				break;
+			case 'r':
+				text.append('\r');
+				break;
+			case 'b':
+				text.append('\b');
+				break;
+			case 'f':
+				text.append('\f');
+				break;
+			case 'u':
+				if(position + 4 > json.length()) {
+					throw error("four hexadecimal digits");
+				}
+				int codeUnit = 0;
+				for(int i = 0; i < 4; i++) {
+					int digit = Character.digit(json.charAt(position), 16);
+					if(digit < 0) {
+						throw error("four hexadecimal digits");
+					}
+					codeUnit = 16 * codeUnit + digit;
+					position++;
+				}
+				text.append((char) codeUnit);
+				break;
+			default:
+				text.append(escaped);
+			}
+		}
+	}
+
+	private void skipWhitespace() {
+		while(position < json.length() && Character.isWhitespace(json.charAt(position))) {
+			position++;
+		}
+	}
+
+	private void expect(char expected) {
+		if(next() != expected) {
+			position--;
+			throw error("'" + expected + "'");
+		}
+	}
+
+	private char peek() {
+		if(position >= json.length()) {
+			throw error("more text");
+		}
+		return json.charAt(position);
+	}
+
+	private char next() {
+		char character = peek();
+		position++;
+		return character;
+	}
+
+	private IllegalArgumentException error(String expected) {
+		return new IllegalArgumentException("Invalid JSON at position " + position + ": expected " + expected + ".");
+	}
+}
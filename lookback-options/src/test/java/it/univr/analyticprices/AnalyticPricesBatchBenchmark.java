@@ -0,0 +1,111 @@
+package it.univr.analyticprices;
+
+import java.util.Random;
+
+/**
+ * It compares the scalar and the batch methods of AnalyticPrices on a grid of random scenarios: it checks that
+ * they give the same prices, also for the discrete monitoring, and prints the throughput of both in prices per
+ * second.
+ *
+ * Usage: AnalyticPricesBatchBenchmark [numberOfScenarios]
+ */
+public class AnalyticPricesBatchBenchmark {
+
+	public static void main(String[] args) {
+		int numberOfScenarios = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int numberOfRepetitions = 10;
+
+		Random random = new Random(1897);
+		double[] spotPrice = new double[numberOfScenarios];
+		double[] riskFreeRate = new double[numberOfScenarios];
+		double[] volatility = new double[numberOfScenarios];
+		double[] maturity = new double[numberOfScenarios];
+		double[] strike = new double[numberOfScenarios];
+		for(int i = 0; i < numberOfScenarios; i++) {
+			spotPrice[i] = 80.0 + 40.0 * random.nextDouble();
+			riskFreeRate[i] = 0.1 * random.nextDouble();
+			volatility[i] = 0.1 + 0.4 * random.nextDouble();
+			maturity[i] = 0.25 + 2.0 * random.nextDouble();
+			strike[i] = 100.0;
+		}
+
+		double[] scalarValues = new double[numberOfScenarios];
+		double[] batchValues = new double[numberOfScenarios];
+		double[] putValues = new double[numberOfScenarios];
+
+		long bestScalarTime = Long.MAX_VALUE;
+		long bestBatchTime = Long.MAX_VALUE;
+		long bestFusedTime = Long.MAX_VALUE;
+		for(int repetition = 0; repetition < numberOfRepetitions; repetition++) {
+			long start = System.nanoTime();
+			for(int i = 0; i < numberOfScenarios; i++) {
+				scalarValues[i] = AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]);
+			}
+			bestScalarTime = Math.min(bestScalarTime, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, batchValues);
+			bestBatchTime = Math.min(bestBatchTime, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			AnalyticPrices.continuouslyMonitoredLookbackFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, batchValues, putValues);
+			bestFusedTime = Math.min(bestFusedTime, System.nanoTime() - start);
+		}
+
+		int numberOfDifferences = 0;
+		int numberOfPutDifferences = 0;
+		for(int i = 0; i < numberOfScenarios; i++) {
+			if(scalarValues[i] != batchValues[i]) {
+				numberOfDifferences++;
+			}
+			if(AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]) != putValues[i]) {
+				numberOfPutDifferences++;
+			}
+		}
+
+		System.out.println("Scenarios: " + numberOfScenarios + ", differences between scalar and batch: " + numberOfDifferences
+				+ " for the call, " + numberOfPutDifferences + " for the put");
+		System.out.println("Scalar call floating:       " + numberOfScenarios / (bestScalarTime / 1E9) + " prices/s");
+		System.out.println("Batch call floating:        " + numberOfScenarios / (bestBatchTime / 1E9) + " prices/s");
+		System.out.println("Batch call and put floating: " + 2 * numberOfScenarios / (bestFusedTime / 1E9) + " prices/s");
+
+		long startFixed = System.nanoTime();
+		AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, batchValues);
+		long timeFixed = System.nanoTime() - startFixed;
+		System.out.println("Batch call fixed:           " + numberOfScenarios / (timeFixed / 1E9) + " prices/s");
+
+		// the discrete monitoring, on 1 to 250 fixings
+		int[] numberOfFixings = new int[numberOfScenarios];
+		for(int i = 0; i < numberOfScenarios; i++) {
+			numberOfFixings[i] = 1 + random.nextInt(250);
+		}
+		int numberOfDiscreteDifferences = 0;
+		for(int type = 0; type < 4; type++) {
+			if(type == 0) {
+				AnalyticPrices.discretelyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings, batchValues);
+			}
+			else if(type == 1) {
+				AnalyticPrices.discretelyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings, batchValues);
+			}
+			else if(type == 2) {
+				AnalyticPrices.discretelyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings, batchValues);
+			}
+			else {
+				AnalyticPrices.discretelyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings, batchValues);
+			}
+			for(int i = 0; i < numberOfScenarios; i++) {
+				double scalarValue = type == 0
+						? AnalyticPrices.discretelyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings[i])
+						: type == 1
+						? AnalyticPrices.discretelyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings[i])
+						: type == 2
+						? AnalyticPrices.discretelyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings[i])
+						: AnalyticPrices.discretelyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings[i]);
+				if(scalarValue != batchValues[i]) {
+					numberOfDiscreteDifferences++;
+				}
+			}
+		}
+		System.out.println("Differences between scalar and batch discrete monitoring: " + numberOfDiscreteDifferences);
+	}
+}
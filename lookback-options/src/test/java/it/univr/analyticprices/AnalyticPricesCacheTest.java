@@ -0,0 +1,118 @@
+package it.univr.analyticprices;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * It checks that AnalyticPricesCache returns the prices of AnalyticPrices, that the fixed-strike quotes share the
+ * floating-strike legs, that the entries are bounded and expire, and it prints the time of a hot quote and the
+ * counters after many threads asked for the same quotes.
+ */
+public class AnalyticPricesCacheTest {
+
+	public static void main(String[] args) throws Exception {
+		//market data
+		int numberOfQuotes = 1000;
+		int numberOfFixings = 12;
+		Random random = new Random(1897);
+		double[] spotPrice = new double[numberOfQuotes];
+		double[] riskFreeRate = new double[numberOfQuotes];
+		double[] volatility = new double[numberOfQuotes];
+		double[] maturity = new double[numberOfQuotes];
+		double[] strike = new double[numberOfQuotes];
+		for(int i = 0; i < numberOfQuotes; i++) {
+			spotPrice[i] = 80.0 + 40.0 * random.nextDouble();
+			riskFreeRate[i] = 0.1 * random.nextDouble();
+			volatility[i] = 0.1 + 0.4 * random.nextDouble();
+			maturity[i] = 0.25 + 2.0 * random.nextDouble();
+			strike[i] = 90.0 + 20.0 * random.nextDouble();
+		}
+
+		AnalyticPricesCache cache = new AnalyticPricesCache(100000);
+		double largestDifference = 0.0;
+		for(int pass = 0; pass < 2; pass++) {
+			for(int i = 0; i < numberOfQuotes; i++) {
+				double[] cachedPrices = {
+						cache.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]),
+						cache.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]),
+						cache.continuouslyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]),
+						cache.continuouslyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]),
+						cache.discretelyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings),
+						cache.discretelyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings),
+						cache.discretelyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings),
+						cache.discretelyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings)
+				};
+				double[] prices = {
+						AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]),
+						AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]),
+						AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]),
+						AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]),
+						AnalyticPrices.discretelyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings),
+						AnalyticPrices.discretelyMonitoredLookbackPutFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], numberOfFixings),
+						AnalyticPrices.discretelyMonitoredLookbackCallFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings),
+						AnalyticPrices.discretelyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i], numberOfFixings)
+				};
+				for(int j = 0; j < prices.length; j++) {
+					largestDifference = Math.max(largestDifference, Math.abs(cachedPrices[j] - prices[j]));
+				}
+			}
+			System.out.println("Pass " + pass + ": largest difference from AnalyticPrices " + largestDifference + ", " + cache);
+		}
+		System.out.println();
+
+		AnalyticPricesCache boundedCache = new AnalyticPricesCache(160);
+		for(int i = 0; i < numberOfQuotes; i++) {
+			boundedCache.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i]);
+		}
+		System.out.println("Bounded to 160 prices: " + boundedCache);
+
+		AnalyticPricesCache expiringCache = new AnalyticPricesCache(1000, 50);
+		expiringCache.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[0], riskFreeRate[0], volatility[0], maturity[0]);
+		expiringCache.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[0], riskFreeRate[0], volatility[0], maturity[0]);
+		Thread.sleep(100);
+		expiringCache.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice[0], riskFreeRate[0], volatility[0], maturity[0]);
+		System.out.println("Time to live 50 ms, asked twice, then after 100 ms: " + expiringCache);
+		System.out.println();
+
+		int numberOfRepetitions = 10000000;
+		double sum = 0.0;
+		for(int warmUp = 0; warmUp < 2; warmUp++) {
+			long start = System.nanoTime();
+			for(int repetition = 0; repetition < numberOfRepetitions; repetition++) {
+				sum += cache.continuouslyMonitoredLookbackCallFixedStrike(spotPrice[0], riskFreeRate[0], volatility[0], maturity[0], strike[0]);
+			}
+			double cachedTime = (double) (System.nanoTime() - start) / numberOfRepetitions;
+			start = System.nanoTime();
+			for(int repetition = 0; repetition < numberOfRepetitions; repetition++) {
+				sum += AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice[0], riskFreeRate[0], volatility[0], maturity[0], strike[0] + repetition * 1E-12);
+			}
+			double computedTime = (double) (System.nanoTime() - start) / numberOfRepetitions;
+			System.out.println("Hot fixed-strike quote: cached " + cachedTime + " ns, computed " + computedTime + " ns");
+		}
+
+		int numberOfThreads = 8;
+		AnalyticPricesCache sharedCache = new AnalyticPricesCache(100000);
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		List<Future<Double>> futures = new ArrayList<>();
+		for(int thread = 0; thread < numberOfThreads; thread++) {
+			futures.add(executor.submit(() -> {
+				double sumOfThread = 0.0;
+				for(int repetition = 0; repetition < 100; repetition++) {
+					for(int i = 0; i < numberOfQuotes; i++) {
+						sumOfThread += sharedCache.continuouslyMonitoredLookbackPutFixedStrike(spotPrice[i], riskFreeRate[i], volatility[i], maturity[i], strike[i]);
+					}
+				}
+				return sumOfThread;
+			}));
+		}
+		for(Future<Double> future : futures) {
+			sum += future.get();
+		}
+		executor.shutdown();
+		System.out.println(numberOfThreads + " threads asking for the same " + numberOfQuotes + " quotes: " + sharedCache + " (" + (sum > 0) + ")");
+	}
+}
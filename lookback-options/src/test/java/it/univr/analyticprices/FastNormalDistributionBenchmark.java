@@ -0,0 +1,63 @@
+package it.univr.analyticprices;
+
+import java.util.Random;
+
+import net.finmath.functions.NormalDistribution;
+
+/**
+ * It compares FastNormalDistribution with the normal distribution of finmath: maximum absolute difference over
+ * [-8, 8], which contains the arguments the lookback formulas take for realistic data, and evaluations per
+ * second of the scalar and of the array versions.
+ *
+ * Usage: FastNormalDistributionBenchmark [numberOfArguments]
+ */
+public class FastNormalDistributionBenchmark {
+
+	public static void main(String[] args) {
+		int numberOfArguments = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int numberOfRepetitions = 10;
+
+		Random random = new Random(1897);
+		double[] x = new double[numberOfArguments];
+		for(int i = 0; i < numberOfArguments; i++) {
+			x[i] = -8.0 + 16.0 * random.nextDouble();
+		}
+
+		double[] finmathValues = new double[numberOfArguments];
+		double[] scalarValues = new double[numberOfArguments];
+		double[] arrayValues = new double[numberOfArguments];
+
+		long bestFinmathTime = Long.MAX_VALUE;
+		long bestScalarTime = Long.MAX_VALUE;
+		long bestArrayTime = Long.MAX_VALUE;
+		for(int repetition = 0; repetition < numberOfRepetitions; repetition++) {
+			long start = System.nanoTime();
+			for(int i = 0; i < numberOfArguments; i++) {
+				finmathValues[i] = NormalDistribution.cumulativeDistribution(x[i]);
+			}
+			bestFinmathTime = Math.min(bestFinmathTime, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for(int i = 0; i < numberOfArguments; i++) {
+				scalarValues[i] = FastNormalDistribution.cumulativeDistribution(x[i]);
+			}
+			bestScalarTime = Math.min(bestScalarTime, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			FastNormalDistribution.cumulativeDistribution(x, arrayValues);
+			bestArrayTime = Math.min(bestArrayTime, System.nanoTime() - start);
+		}
+
+		double maximumDifferenceScalar = 0.0;
+		double maximumDifferenceArray = 0.0;
+		for(int i = 0; i < numberOfArguments; i++) {
+			maximumDifferenceScalar = Math.max(maximumDifferenceScalar, Math.abs(scalarValues[i] - finmathValues[i]));
+			maximumDifferenceArray = Math.max(maximumDifferenceArray, Math.abs(arrayValues[i] - finmathValues[i]));
+		}
+
+		System.out.println("Maximum absolute difference to finmath, scalar: " + maximumDifferenceScalar + ", array: " + maximumDifferenceArray);
+		System.out.println("finmath: " + numberOfArguments / (bestFinmathTime / 1E9) + " evaluations/s");
+		System.out.println("scalar:  " + numberOfArguments / (bestScalarTime / 1E9) + " evaluations/s");
+		System.out.println("array:   " + numberOfArguments / (bestArrayTime / 1E9) + " evaluations/s");
+	}
+}
@@ -0,0 +1,95 @@
+package it.univr.analyticprices;
+
+import it.univr.montecarlo.AbstractBuildMonitoring;
+import it.univr.montecarlo.ExactExtremumLookbackPricer;
+import it.univr.montecarlo.ExactExtremumResult;
+import it.univr.montecarlo.LookbackCallFixedStrike;
+import it.univr.montecarlo.LookbackPutFixedStrike;
+
+import java.util.Arrays;
+
+/**
+ * It pins the analytic prices of the continuously monitored fixed-strike lookbacks starting today, for strikes
+ * below, at and above the spot, against the values of the lookback parity with the running extremum max(S, K) or
+ * min(S, K) and the spot S. It checks that the batch methods and the seasoned methods with the running extremum at
+ * the spot give the same prices, and that the exact sampling of the extrema agrees with them.
+ *
+ * The original methods passed max(S, K) or min(S, K) as the spot of a floating-strike lookback starting today,
+ * which is right only for K = S: for S = 100, r = 0.05, sigma = 0.3, T = 1 they gave 13.8133 for the call with
+ * strike 120 and -4.8709 for the put with strike 80.
+ */
+public class FixedStrikePricesTest {
+
+	private static final double TOLERANCE = 1E-10;
+
+	public static void main(String[] args) {
+		//market data
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+		double maturity = 1.0;
+
+		//simulation parameters
+		int numberOfPaths = 1000000;
+		int seed = 1897;
+		double numberOfStandardErrors = 4.0;
+
+		double[] strikes = { 80.0, 100.0, 120.0 };
+		double[] pinnedCallPrices = { 47.202376786630836, 28.177788296616555, 13.693732427391637 };
+		double[] pinnedPutPrices = { 5.163744950704427, 18.911378951752226, 37.93596744176651 };
+
+		double[] callPrices = new double[strikes.length];
+		double[] putPrices = new double[strikes.length];
+		int n = strikes.length;
+		AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(filled(n, spotPrice), filled(n, riskFreeRate), filled(n, volatility),
+				filled(n, maturity), strikes, callPrices);
+		AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(filled(n, spotPrice), filled(n, riskFreeRate), filled(n, volatility),
+				filled(n, maturity), strikes, putPrices);
+
+		ExactExtremumLookbackPricer pricer = new ExactExtremumLookbackPricer(spotPrice, riskFreeRate, volatility, numberOfPaths, seed);
+		for(int i = 0; i < strikes.length; i++) {
+			double strike = strikes[i];
+			double callPrice = AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike);
+			double putPrice = AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike);
+
+			check(Math.abs(callPrice - pinnedCallPrices[i]) < TOLERANCE, "Call with strike " + strike + ": " + callPrice
+					+ " instead of " + pinnedCallPrices[i]);
+			check(Math.abs(putPrice - pinnedPutPrices[i]) < TOLERANCE, "Put with strike " + strike + ": " + putPrice
+					+ " instead of " + pinnedPutPrices[i]);
+			check(callPrices[i] == callPrice, "Batch call with strike " + strike + ": " + callPrices[i] + " instead of " + callPrice);
+			check(putPrices[i] == putPrice, "Batch put with strike " + strike + ": " + putPrices[i] + " instead of " + putPrice);
+			check(AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike,
+					spotPrice) == callPrice, "Seasoned call with strike " + strike + " and running maximum at the spot");
+			check(AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike,
+					spotPrice) == putPrice, "Seasoned put with strike " + strike + " and running minimum at the spot");
+
+			printComparison(new LookbackCallFixedStrike(maturity, strike), pricer, callPrice, numberOfStandardErrors);
+			printComparison(new LookbackPutFixedStrike(maturity, strike), pricer, putPrice, numberOfStandardErrors);
+		}
+		System.out.println("The fixed-strike prices are the pinned ones");
+	}
+
+	private static void printComparison(AbstractBuildMonitoring product, ExactExtremumLookbackPricer pricer, double analyticPrice,
+			double numberOfStandardErrors) {
+		ExactExtremumResult result = pricer.getResult(product);
+		double value = result.getValue();
+		double standardError = result.getStandardError();
+		double differenceInStandardErrors = (value - analyticPrice) / standardError;
+		System.out.println("  " + product.getLookbackType() + " strike " + product.getStrike() + ": analytic " + analyticPrice
+				+ ", exact sampling " + value + " +/- " + standardError + ", difference in standard errors " + differenceInStandardErrors);
+		check(Math.abs(differenceInStandardErrors) < numberOfStandardErrors, "The exact sampling of " + product.getLookbackType()
+				+ " with strike " + product.getStrike() + " is off by " + differenceInStandardErrors + " standard errors");
+	}
+
+	private static double[] filled(int length, double value) {
+		double[] values = new double[length];
+		Arrays.fill(values, value);
+		return values;
+	}
+
+	private static void check(boolean condition, String message) {
+		if(!condition) {
+			throw new AssertionError(message);
+		}
+	}
+}
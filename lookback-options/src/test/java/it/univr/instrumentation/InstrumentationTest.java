@@ -0,0 +1,121 @@
+package it.univr.instrumentation;
+
+import it.univr.analyticprices.AnalyticPrices;
+import it.univr.analyticprices.AnalyticPricesCache;
+import it.univr.montecarlo.AbstractBuildMonitoring;
+import it.univr.montecarlo.LookbackCallFixedStrike;
+import it.univr.montecarlo.LookbackPutFloatingStrike;
+import it.univr.montecarlo.StreamingBlackScholesLookbackPricer;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It checks that the instrumentation does not change the values, prints the metrics of a few valuations with the
+ * finmath model, the streaming pricer and the analytic cache, checks that every call of AnalyticPrices is timed
+ * once, also when its formulas are composed, and prints the time of a valuation with the instrumentation disabled
+ * and enabled. The JFR events are checked by the module lookback-options-jfr.
+ */
+public class InstrumentationTest {
+
+	public static void main(String[] args) throws Exception {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfTimeSteps = 100;
+		int numberOfPaths = 50000;
+		int seed = 1897;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackPutFloatingStrike(maturity)
+		};
+		StreamingBlackScholesLookbackPricer pricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate, volatility,
+				times, numberOfPaths, seed);
+
+		double[] valuesWithoutInstrumentation = getValues(products, pricer, spotPrice, riskFreeRate, volatility, times, numberOfPaths, seed);
+
+		SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+		LookbackInstrumentation.setRegistry(registry);
+		double[] valuesWithInstrumentation = getValues(products, pricer, spotPrice, riskFreeRate, volatility, times, numberOfPaths, seed);
+		AnalyticPricesCache cache = new AnalyticPricesCache(1000);
+		for(int i = 0; i < 100; i++) {
+			cache.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike + i % 10);
+		}
+		LookbackInstrumentation.setRegistry(null);
+
+		double largestDifference = 0.0;
+		for(int i = 0; i < valuesWithInstrumentation.length; i++) {
+			largestDifference = Math.max(largestDifference, Math.abs(valuesWithInstrumentation[i] - valuesWithoutInstrumentation[i]));
+		}
+		System.out.println("Largest difference of the values with the instrumentation enabled: " + largestDifference);
+		System.out.println();
+		System.out.println("Metrics");
+		System.out.print(registry);
+		System.out.println();
+
+		registry.reset();
+		LookbackInstrumentation.setRegistry(registry);
+		AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike);
+		AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, 90.0);
+		AnalyticPrices.discretelyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings);
+		AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(new double[] { spotPrice, spotPrice },
+				new double[] { riskFreeRate, riskFreeRate }, new double[] { volatility, volatility }, new double[] { maturity, maturity },
+				new double[] { strike, strike + 10.0 }, new double[2]);
+		cache.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity);
+		cache.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity);
+		LookbackInstrumentation.setRegistry(null);
+		long numberOfAnalyticFormulas = registry.getStageCount(LookbackStage.ANALYTIC_FORMULA);
+		System.out.println("Analytic formulas timed for three prices, one batch and a cache miss and hit: " + numberOfAnalyticFormulas);
+		if(numberOfAnalyticFormulas != 5) {
+			throw new AssertionError("The analytic formulas were timed " + numberOfAnalyticFormulas + " times instead of 5");
+		}
+		System.out.println();
+
+		int numberOfRepetitions = 20;
+		AbstractBuildMonitoring product = products[0];
+		for(int pass = 0; pass < 2; pass++) {
+			LookbackInstrumentation.setRegistry(null);
+			long start = System.nanoTime();
+			for(int i = 0; i < numberOfRepetitions; i++) {
+				pricer.getValue(product);
+			}
+			double timeWithoutInstrumentation = (System.nanoTime() - start) / 1E6 / numberOfRepetitions;
+
+			LookbackInstrumentation.setRegistry(new SimpleMetricsRegistry());
+			start = System.nanoTime();
+			for(int i = 0; i < numberOfRepetitions; i++) {
+				pricer.getValue(product);
+			}
+			double timeWithInstrumentation = (System.nanoTime() - start) / 1E6 / numberOfRepetitions;
+			LookbackInstrumentation.setRegistry(null);
+
+			if(pass == 1) {
+				System.out.println("Streaming valuation: " + timeWithoutInstrumentation + " ms disabled, " + timeWithInstrumentation
+						+ " ms enabled");
+			}
+		}
+	}
+
+	private static double[] getValues(AbstractBuildMonitoring[] products, StreamingBlackScholesLookbackPricer pricer, double spotPrice,
+			double riskFreeRate, double volatility, TimeDiscretization times, int numberOfPaths, int seed) throws Exception {
+		double[] values = new double[2 * products.length];
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility,
+				new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed));
+		for(int i = 0; i < products.length; i++) {
+			values[2 * i] = products[i].getValue(blackScholesProcess);
+			values[2 * i + 1] = pricer.getValue(products[i]);
+		}
+		return values;
+	}
+}
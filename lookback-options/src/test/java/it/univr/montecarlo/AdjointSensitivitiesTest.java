@@ -0,0 +1,85 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It compares the adjoint sensitivities with central finite differences of getValue on bumped models driven by
+ * the same Brownian motion, and prints the bucketed vegas aggregated by quarter.
+ */
+public class AdjointSensitivitiesTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixingsForDiscretelyMonitoredLookbacks = 12;
+
+		//time discretization parameters
+		int numberOfTimeSteps = 252;
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		//simulation parameters
+		int numberOfPaths = 50000;
+		int seed = 1897;
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+
+		//bumps
+		double spotShift = 1.0;
+		double rateShift = 0.001;
+		double volatilityShift = 0.01;
+
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+		MonteCarloBlackScholesModel spotUp = new MonteCarloBlackScholesModel(spotPrice + spotShift, riskFreeRate, volatility, ourDriver);
+		MonteCarloBlackScholesModel spotDown = new MonteCarloBlackScholesModel(spotPrice - spotShift, riskFreeRate, volatility, ourDriver);
+		MonteCarloBlackScholesModel rateUp = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate + rateShift, volatility, ourDriver);
+		MonteCarloBlackScholesModel rateDown = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate - rateShift, volatility, ourDriver);
+		MonteCarloBlackScholesModel volatilityUp = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility + volatilityShift, ourDriver);
+		MonteCarloBlackScholesModel volatilityDown = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility - volatilityShift, ourDriver);
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackCallFloatingStrike(maturity),
+				new LookbackPutFloatingStrike(maturity)
+		};
+
+		for(AbstractBuildMonitoring product : products) {
+			long start = System.nanoTime();
+			double value = product.getValue(blackScholesProcess);
+			long valueTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			LookbackAdjointSensitivities sensitivities = product.getAdjointSensitivities(blackScholesProcess);
+			long adjointTime = System.nanoTime() - start;
+
+			System.out.println(product.getLookbackType() + " fixings " + product.getNumberOfFixings());
+			System.out.println("  adjoint:          " + sensitivities + " [" + adjointTime / 1000000 + " ms, valuation "
+					+ valueTime / 1000000 + " ms]");
+			System.out.println("  bump and reprice: value " + value
+					+ ", delta " + (product.getValue(spotUp) - product.getValue(spotDown)) / (2 * spotShift)
+					+ ", rho " + (product.getValue(rateUp) - product.getValue(rateDown)) / (2 * rateShift)
+					+ ", vega " + (product.getValue(volatilityUp) - product.getValue(volatilityDown)) / (2 * volatilityShift));
+
+			StringBuilder quarterlyVegas = new StringBuilder("  quarterly vegas: ");
+			int bucketsPerQuarter = sensitivities.getNumberOfBuckets() / 4;
+			for(int quarter = 0; quarter < 4; quarter++) {
+				double vega = 0.0;
+				for(int timeIndex = quarter * bucketsPerQuarter; timeIndex < (quarter + 1) * bucketsPerQuarter; timeIndex++) {
+					vega += sensitivities.getBucketedVega(timeIndex);
+				}
+				quarterlyVegas.append(vega).append(" ");
+			}
+			System.out.println(quarterlyVegas);
+		}
+	}
+}
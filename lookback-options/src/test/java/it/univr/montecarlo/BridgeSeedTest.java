@@ -0,0 +1,81 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It checks that the uniforms of the Brownian bridges follow the seed of the paths: two models with different
+ * seeds, and the streaming pricer with two different seeds, draw different bridge uniforms, the same model draws
+ * the same ones, and a bridge seed differs from the seed of the paths it is derived from, also for the seed
+ * 3141 the bridges used to have whatever the paths.
+ */
+public class BridgeSeedTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//simulation parameters
+		double maturity = 1.0;
+		int numberOfTimeSteps = 50;
+		int numberOfPaths = 10000;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		double[] discretizedTimes = new double[numberOfTimeSteps + 1];
+		for(int timeIndex = 0; timeIndex <= numberOfTimeSteps; timeIndex++) {
+			discretizedTimes[timeIndex] = times.getTime(timeIndex);
+		}
+
+		int[] seeds = { 1897, 1898, 3141 };
+		int[] bridgeSeeds = new int[seeds.length];
+		double[] maximaOfFirstPath = new double[seeds.length];
+		for(int i = 0; i < seeds.length; i++) {
+			MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility,
+					new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seeds[i]));
+			bridgeSeeds[i] = BrownianBridgeExtremum.getBridgeSeed(blackScholesProcess, 0);
+			maximaOfFirstPath[i] = BrownianBridgeExtremum.getPathExtremum(discretizedTimes, maturity, 0, blackScholesProcess, volatility)
+					.getMaximum(0);
+
+			check(BrownianBridgeExtremum.getBridgeSeed(blackScholesProcess, 0) == bridgeSeeds[i],
+					"The bridge seed of the model with seed " + seeds[i] + " is not reproducible");
+			check(bridgeSeeds[i] != seeds[i], "The bridge seed of the model is its seed " + seeds[i]);
+			System.out.println("Model seed " + seeds[i] + ": bridge seed " + bridgeSeeds[i] + ", first uniform "
+					+ new MersenneTwister(bridgeSeeds[i]).nextDouble() + ", maximum of the first path " + maximaOfFirstPath[i]);
+		}
+		for(int i = 0; i < seeds.length; i++) {
+			for(int j = i + 1; j < seeds.length; j++) {
+				check(bridgeSeeds[i] != bridgeSeeds[j], "The models with seeds " + seeds[i] + " and " + seeds[j] + " share the bridge seed");
+				check(new MersenneTwister(bridgeSeeds[i]).nextDouble() != new MersenneTwister(bridgeSeeds[j]).nextDouble(),
+						"The models with seeds " + seeds[i] + " and " + seeds[j] + " draw the same bridge uniforms");
+			}
+		}
+
+		LookbackCallFloatingStrike product = new LookbackCallFloatingStrike(maturity, true);
+		double[] streamingValues = new double[seeds.length];
+		for(int i = 0; i < seeds.length; i++) {
+			int streamingBridgeSeed = BrownianBridgeExtremum.getBridgeSeed(seeds[i]);
+			check(streamingBridgeSeed != seeds[i], "The streaming bridge seed is the seed " + seeds[i]);
+			int fillInSeed = SobolBrownianBridgePathDriver.getFillInSeed(seeds[i]);
+			check(fillInSeed != seeds[i] && fillInSeed != streamingBridgeSeed,
+					"The Sobol fill-in seed of seed " + seeds[i] + " is the shift or the bridge seed");
+			streamingValues[i] = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate, volatility, times, numberOfPaths,
+					seeds[i]).getValue(product);
+			System.out.println("Streaming seed " + seeds[i] + ": bridge seed " + streamingBridgeSeed + ", value " + streamingValues[i]);
+		}
+		check(BrownianBridgeExtremum.getBridgeSeed(seeds[0]) != BrownianBridgeExtremum.getBridgeSeed(seeds[1]),
+				"Consecutive streaming seeds share the bridge seed");
+		System.out.println("Bridge seeds follow the seeds of the paths");
+	}
+
+	private static void check(boolean condition, String message) {
+		if(!condition) {
+			throw new AssertionError(message);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package it.univr.montecarlo;
+
+import it.univr.analyticprices.AnalyticPrices;
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+public class BrownianBridgeTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+
+		//simulation parameters
+		int numberOfPaths = 100000;
+		int seed = 1897;
+
+		double[] analyticPrices = {
+				AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike),
+				AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike),
+				AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity),
+				AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity)
+		};
+		String[] names = {"call fixed", "put fixed", "call floating", "put floating"};
+
+		for(int numberOfTimeSteps : new int[] {20, 50, 200}) {
+			TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+			BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+			MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+
+			AbstractAssetMonteCarloProduct[] sampledOnTheTimes = {
+					new LookbackCallFixedStrike(maturity, strike),
+					new LookbackPutFixedStrike(maturity, strike),
+					new LookbackCallFloatingStrike(maturity),
+					new LookbackPutFloatingStrike(maturity)
+			};
+			AbstractAssetMonteCarloProduct[] sampledWithBrownianBridge = {
+					new LookbackCallFixedStrike(maturity, strike, true),
+					new LookbackPutFixedStrike(maturity, strike, true),
+					new LookbackCallFloatingStrike(maturity, true),
+					new LookbackPutFloatingStrike(maturity, true)
+			};
+
+			System.out.println("Time steps: " + numberOfTimeSteps);
+			for(int i = 0; i < names.length; i++) {
+				double withoutBridge = sampledOnTheTimes[i].getValue(blackScholesProcess);
+				double withBridge = sampledWithBrownianBridge[i].getValue(blackScholesProcess);
+				System.out.println("  " + names[i] + ": analytic " + analyticPrices[i]
+						+ ", MC on the times " + withoutBridge + ", MC with Brownian bridge " + withBridge);
+			}
+		}
+	}
+}
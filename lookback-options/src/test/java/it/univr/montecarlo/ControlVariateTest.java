@@ -0,0 +1,49 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+public class ControlVariateTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+		int numberOfFixingsForDiscretelyMonitoredLookbacks = 100;
+
+		//time discretization parameters
+		int numberOfTimeSteps = 1000;
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		//simulation parameters
+		int numberOfPaths = 10000;
+		int seed = 1897;
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackPutFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackCallFixedStrike(maturity, strike),
+				new LookbackCallFixedStrike(maturity, strike, true)
+		};
+
+		for(AbstractBuildMonitoring product : products) {
+			System.out.println(product.getLookbackType() + " fixings " + product.getNumberOfFixings()
+					+ (product.isBrownianBridgeSampling() ? " (Brownian bridge)" : ""));
+			System.out.println("  plain MC:        " + product.getValue(blackScholesProcess));
+			System.out.println("  control variate: " + product.getValueWithControlVariate(blackScholesProcess));
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package it.univr.montecarlo;
+
+import it.univr.analyticprices.AnalyticPrices;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It compares the values of the exact extremum sampling with AnalyticPrices for continuous monitoring, fresh and
+ * seasoned, and for discrete monitoring with the streaming pricer on a time discretization containing the fixing
+ * dates, and prints the time against the streaming pricer on a fine time discretization.
+ */
+public class ExactExtremumTest {
+
+	public static void main(String[] args) {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfPaths = 1000000;
+		int seed = 1897;
+
+		ExactExtremumLookbackPricer pricer = new ExactExtremumLookbackPricer(spotPrice, riskFreeRate, volatility, numberOfPaths, seed);
+
+		AbstractBuildMonitoring[] continuousProducts = {
+				new LookbackCallFixedStrike(maturity, strike),
+				new LookbackPutFixedStrike(maturity, strike),
+				new LookbackCallFloatingStrike(maturity),
+				new LookbackPutFloatingStrike(maturity)
+		};
+		double[] analyticPrices = {
+				AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike),
+				AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike),
+				AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity),
+				AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity)
+		};
+		System.out.println("Continuous monitoring, one step per path, against AnalyticPrices");
+		for(int i = 0; i < continuousProducts.length; i++) {
+			printComparison(continuousProducts[i], pricer, analyticPrices[i]);
+		}
+		System.out.println();
+
+		double runningMaximum = 125.0;
+		double runningMinimum = 85.0;
+		double remainingMaturity = 0.5;
+		System.out.println("Seasoned continuous monitoring, running maximum " + runningMaximum + ", running minimum " + runningMinimum
+				+ ", remaining maturity " + remainingMaturity);
+		for(AbstractBuildMonitoring product : continuousProducts) {
+			AbstractBuildMonitoring seasonedProduct = product.getCloneWithElapsedTime(maturity - remainingMaturity, runningMaximum, runningMinimum);
+			double analyticPrice = product.getLookbackType().getContinuouslyMonitoredAnalyticValue(spotPrice, riskFreeRate, volatility,
+					remainingMaturity, product.getStrike(), runningMaximum, runningMinimum);
+			printComparison(seasonedProduct, pricer, analyticPrice);
+		}
+		System.out.println();
+
+		AbstractBuildMonitoring[] discreteProducts = {
+				new LookbackCallFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixings),
+				new LookbackPutFloatingStrike(maturity, numberOfFixings)
+		};
+		int numberOfTimeSteps = 10 * numberOfFixings;
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		StreamingBlackScholesLookbackPricer streamingPricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate, volatility,
+				times, numberOfPaths, seed + 1);
+		System.out.println(numberOfFixings + " fixings, one step per fixing, against the streaming pricer with " + numberOfTimeSteps
+				+ " time steps on independent paths");
+		for(AbstractBuildMonitoring discreteProduct : discreteProducts) {
+			printComparison(discreteProduct, pricer, streamingPricer.getValue(discreteProduct));
+		}
+		System.out.println();
+
+		AbstractBuildMonitoring product = continuousProducts[0];
+		TimeDiscretization fineTimes = new TimeDiscretizationFromArray(0.0, 1000, maturity / 1000);
+		StreamingBlackScholesLookbackPricer fineStreamingPricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate,
+				volatility, fineTimes, 100000, seed);
+		ExactExtremumLookbackPricer smallPricer = new ExactExtremumLookbackPricer(spotPrice, riskFreeRate, volatility, 100000, seed);
+		for(int pass = 0; pass < 2; pass++) {
+			long start = System.nanoTime();
+			double exactValue = smallPricer.getValue(product);
+			double timeExact = (System.nanoTime() - start) / 1E6;
+
+			start = System.nanoTime();
+			double streamingValue = fineStreamingPricer.getValue(product);
+			double timeStreaming = (System.nanoTime() - start) / 1E6;
+
+			if(pass == 1) {
+				System.out.println("100000 paths: exact " + exactValue + " in " + timeExact + " ms, streaming with 1000 time steps "
+						+ streamingValue + " in " + timeStreaming + " ms, analytic " + analyticPrices[0]);
+			}
+		}
+	}
+
+	private static void printComparison(AbstractBuildMonitoring product, ExactExtremumLookbackPricer pricer, double referenceValue) {
+		ExactExtremumResult result = pricer.getResult(product);
+		double value = result.getValue();
+		double standardError = result.getStandardError();
+		System.out.println("  " + product.getLookbackType() + ": " + value + " +/- " + standardError + " reference " + referenceValue
+				+ " difference in standard errors " + (value - referenceValue) / standardError);
+	}
+}
@@ -0,0 +1,113 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It checks that the fused payoff and discounting of AbstractBuildMonitoring gives the values of the payoff and of
+ * the discounting computed operation by operation on random variables, at time zero and at a later evaluation
+ * time, and that the scalar value is their average. It prints the time of both.
+ */
+public class FusedDiscountingTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfTimeSteps = 100;
+		int numberOfPaths = 200000;
+		int seed = 1897;
+
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility,
+				new BrownianMotionFromMersenneRandomNumbers(new TimeDiscretizationFromArray(0.0, numberOfTimeSteps,
+						maturity / numberOfTimeSteps), 1, numberOfPaths, seed));
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackPutFixedStrike(maturity, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixings),
+				new LookbackPutFloatingStrike(maturity)
+		};
+
+		System.out.println("Fused against operation by operation");
+		for(AbstractBuildMonitoring product : products) {
+			for(double evaluationTime : new double[] { 0.0, 0.5 }) {
+				RandomVariable fusedValues = product.getValue(evaluationTime, blackScholesProcess);
+				RandomVariable values = getValuesOperationByOperation(product, evaluationTime, blackScholesProcess);
+				double largestDifference = 0.0;
+				for(int path = 0; path < numberOfPaths; path++) {
+					largestDifference = Math.max(largestDifference, Math.abs(fusedValues.get(path) - values.get(path)));
+				}
+				System.out.println("  " + product.getLookbackType() + " fixings " + product.getNumberOfFixings() + " evaluation time "
+						+ evaluationTime + ": largest difference " + largestDifference);
+			}
+			double scalarValue = product.getValue(blackScholesProcess);
+			double averageValue = product.getValue(0.0, blackScholesProcess).getAverage();
+			System.out.println("  " + product.getLookbackType() + " value " + scalarValue + ", average of the values " + averageValue
+					+ ", difference " + (scalarValue - averageValue));
+		}
+		System.out.println();
+
+		int numberOfRepetitions = 20;
+		for(int pass = 0; pass < 2; pass++) {
+			long start = System.nanoTime();
+			for(int i = 0; i < numberOfRepetitions; i++) {
+				getValuesOperationByOperation(products[0], 0.0, blackScholesProcess).getAverage();
+			}
+			double timeOperationByOperation = (System.nanoTime() - start) / 1E6 / numberOfRepetitions;
+
+			start = System.nanoTime();
+			for(int i = 0; i < numberOfRepetitions; i++) {
+				products[0].getValue(0.0, blackScholesProcess).getAverage();
+			}
+			double timeFused = (System.nanoTime() - start) / 1E6 / numberOfRepetitions;
+
+			start = System.nanoTime();
+			for(int i = 0; i < numberOfRepetitions; i++) {
+				products[0].getValue(blackScholesProcess);
+			}
+			double timeScalar = (System.nanoTime() - start) / 1E6 / numberOfRepetitions;
+
+			if(pass == 1) {
+				System.out.println(numberOfPaths + " paths: operation by operation " + timeOperationByOperation + " ms, fused "
+						+ timeFused + " ms, scalar " + timeScalar + " ms");
+			}
+		}
+	}
+
+	/*
+	 * The payoff and the discounting as the products computed them before they were fused.
+	 */
+	private static RandomVariable getValuesOperationByOperation(AbstractBuildMonitoring product, double evaluationTime,
+			MonteCarloBlackScholesModel model) throws CalculationException {
+		PathExtremum pathExtremum = product.getPathExtremum(model);
+		RandomVariable strike = model.getRandomVariableForConstant(product.getStrike());
+		RandomVariable values;
+		switch(product.getLookbackType()) {
+		case CALL_FIXED_STRIKE:
+			values = pathExtremum.getMaximum().sub(strike).floor(0.0);
+			break;
+		case PUT_FIXED_STRIKE:
+			values = strike.sub(pathExtremum.getMinimum()).floor(0.0);
+			break;
+		case CALL_FLOATING_STRIKE:
+			values = pathExtremum.getTerminalValue().sub(pathExtremum.getMinimum()).floor(0.0);
+			break;
+		default:
+			values = pathExtremum.getMaximum().sub(pathExtremum.getTerminalValue()).floor(0.0);
+		}
+		double maturity = product.getMaturity();
+		values = values.div(model.getNumeraire(maturity)).mult(model.getMonteCarloWeights(maturity));
+		return values.mult(model.getNumeraire(evaluationTime)).div(model.getMonteCarloWeights(evaluationTime));
+	}
+}
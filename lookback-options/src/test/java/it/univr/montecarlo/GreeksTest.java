@@ -0,0 +1,77 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It compares the Greeks estimated in a single simulation with central finite differences of getValue on models
+ * with bumped spot price and volatility, all driven by the same Brownian motion.
+ */
+public class GreeksTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixingsForDiscretelyMonitoredLookbacks = 12;
+
+		//time discretization parameters
+		int numberOfTimeSteps = 250;
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		//simulation parameters
+		int numberOfPaths = 100000;
+		int seed = 1897;
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+
+		//bumps
+		double spotShift = 1.0;
+		double volatilityShift = 0.01;
+
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+		MonteCarloBlackScholesModel spotUp = new MonteCarloBlackScholesModel(spotPrice + spotShift, riskFreeRate, volatility, ourDriver);
+		MonteCarloBlackScholesModel spotDown = new MonteCarloBlackScholesModel(spotPrice - spotShift, riskFreeRate, volatility, ourDriver);
+		MonteCarloBlackScholesModel volatilityUp = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility + volatilityShift, ourDriver);
+		MonteCarloBlackScholesModel volatilityDown = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility - volatilityShift, ourDriver);
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackPutFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackCallFixedStrike(maturity, 90.0),
+				new LookbackPutFixedStrike(maturity, 90.0)
+		};
+
+		for(AbstractBuildMonitoring product : products) {
+			long start = System.currentTimeMillis();
+			LookbackGreeks greeks = product.getGreeks(blackScholesProcess);
+			long greeksTime = System.currentTimeMillis() - start;
+
+			start = System.currentTimeMillis();
+			double value = product.getValue(blackScholesProcess);
+			double valueSpotUp = product.getValue(spotUp);
+			double valueSpotDown = product.getValue(spotDown);
+			double valueVolatilityUp = product.getValue(volatilityUp);
+			double valueVolatilityDown = product.getValue(volatilityDown);
+			long bumpTime = System.currentTimeMillis() - start;
+
+			System.out.println(product.getLookbackType() + " strike " + product.getStrike() + " fixings " + product.getNumberOfFixings());
+			System.out.println("  single simulation: " + greeks + " [" + greeksTime + " ms]");
+			System.out.println("  bump and reprice:  value " + value
+					+ ", delta " + (valueSpotUp - valueSpotDown) / (2 * spotShift)
+					+ ", gamma " + (valueSpotUp - 2 * value + valueSpotDown) / (spotShift * spotShift)
+					+ ", vega " + (valueVolatilityUp - valueVolatilityDown) / (2 * volatilityShift)
+					+ " [" + bumpTime + " ms, paths generated in the first run]");
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloMultiAssetBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+import java.util.Arrays;
+
+/**
+ * It values fixed-strike lookback calls on every underlying of a multi-asset Black-Scholes model from a single
+ * scan and one by one, and lookbacks on the best-of and on the worst-of the underlyings.
+ */
+public class MultiUnderlyingTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		int numberOfUnderlyings = 20;
+		double riskFreeRate = 0.1;
+		double correlation = 0.5;
+		double[] initialValues = new double[numberOfUnderlyings];
+		double[] volatilities = new double[numberOfUnderlyings];
+		double[][] correlations = new double[numberOfUnderlyings][numberOfUnderlyings];
+		int[] underlyingIndices = new int[numberOfUnderlyings];
+		for(int i = 0; i < numberOfUnderlyings; i++) {
+			initialValues[i] = 100.0;
+			volatilities[i] = 0.2 + 0.01 * i;
+			underlyingIndices[i] = i;
+			for(int j = 0; j < numberOfUnderlyings; j++) {
+				correlations[i][j] = i == j ? 1.0 : correlation;
+			}
+		}
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+		int numberOfFixings = 12;
+		double[] strikes = new double[numberOfUnderlyings];
+		Arrays.fill(strikes, strike);
+
+		//time discretization parameters
+		int numberOfTimeSteps = 252;
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		//simulation parameters
+		int numberOfPaths = 10000;
+		int seed = 1897;
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, numberOfUnderlyings, numberOfPaths, seed);
+		MonteCarloMultiAssetBlackScholesModel model = new MonteCarloMultiAssetBlackScholesModel(ourDriver, initialValues,
+				riskFreeRate, volatilities, correlations);
+
+		// generates the paths
+		model.getAssetValue(numberOfTimeSteps, numberOfUnderlyings - 1);
+
+		double[] values = null;
+		long singleScanTime = 0;
+		long oneByOneTime = 0;
+		double maximumDifference = 0.0;
+		// the first rounds warm up the JIT
+		for(int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			values = new MultiUnderlyingLookbackValuation(maturity, numberOfFixings, underlyingIndices)
+					.getValues(LookbackType.CALL_FIXED_STRIKE, strikes, model);
+			singleScanTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			maximumDifference = 0.0;
+			for(int i = 0; i < numberOfUnderlyings; i++) {
+				double value = new LookbackCallFixedStrike(maturity, i, numberOfFixings, strike).getValue(model);
+				maximumDifference = Math.max(maximumDifference, Math.abs(value - values[i]));
+			}
+			oneByOneTime = System.nanoTime() - start;
+		}
+
+		System.out.println("Fixed-strike calls on " + numberOfUnderlyings + " underlyings: first " + values[0] + ", last " + values[numberOfUnderlyings - 1]);
+		System.out.println("  single scan " + singleScanTime / 1000000 + " ms, one by one " + oneByOneTime / 1000000
+				+ " ms, maximum difference " + maximumDifference);
+
+		for(BestOrWorstOfLookback.BasketType basketType : BestOrWorstOfLookback.BasketType.values()) {
+			System.out.println(basketType + ": fixed-strike call " + new BestOrWorstOfLookback(maturity, numberOfFixings,
+					underlyingIndices, basketType, LookbackType.CALL_FIXED_STRIKE, strike).getValue(model)
+					+ ", floating-strike call " + new BestOrWorstOfLookback(maturity, numberOfFixings,
+							underlyingIndices, basketType, LookbackType.CALL_FLOATING_STRIKE).getValue(model));
+		}
+
+		// on a single underlying the best-of and the worst-of are the underlying itself
+		System.out.println("Best-of on the first underlying only: " + new BestOrWorstOfLookback(maturity, numberOfFixings,
+				new int[] { 0 }, BestOrWorstOfLookback.BasketType.BEST_OF, LookbackType.CALL_FIXED_STRIKE, strike).getValue(model)
+				+ ", lookback on it " + values[0]);
+	}
+}
@@ -0,0 +1,49 @@
+package it.univr.montecarlo;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It prices a discretely monitored lookback by multilevel Monte Carlo for decreasing root mean square errors and
+ * compares the value with the one of the exact simulation on the fixing dates by the streaming pricer.
+ */
+public class MultilevelTest {
+
+	public static void main(String[] args) {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+		int numberOfFixings = 100;
+
+		//simulation parameters
+		int seed = 1897;
+
+		AbstractBuildMonitoring product = new LookbackCallFixedStrike(maturity, numberOfFixings, strike);
+
+		// the log-Euler scheme is exact on the fixing dates
+		TimeDiscretization fixingDates = new TimeDiscretizationFromArray(0.0, numberOfFixings, maturity / numberOfFixings);
+		StreamingBlackScholesLookbackPricer exactPricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate,
+				volatility, fixingDates, 2000000, seed);
+		System.out.println("Exact simulation on the fixing dates: " + exactPricer.getValue(product));
+
+		MultilevelLookbackPricer multilevelPricer = new MultilevelLookbackPricer(spotPrice, riskFreeRate, volatility, seed);
+		for(double rootMeanSquareError : new double[] { 0.1, 0.05, 0.025 }) {
+			long start = System.currentTimeMillis();
+			MultilevelResult result = multilevelPricer.getValue(product, rootMeanSquareError);
+			long time = System.currentTimeMillis() - start;
+
+			System.out.println("\nRMSE " + rootMeanSquareError + " [" + time + " ms]");
+			System.out.println(result);
+		}
+
+		// the bias of the discrete monitoring of a continuously monitored lookback only decays like the square root of the time step
+		System.out.println("\nContinuously monitored floating strike call, RMSE 0.05, analytic value "
+				+ LookbackType.CALL_FLOATING_STRIKE.getContinuouslyMonitoredAnalyticValue(spotPrice, riskFreeRate, volatility, maturity, Double.NaN));
+		System.out.println(multilevelPricer.getValue(new LookbackCallFloatingStrike(maturity), 0.05));
+	}
+}
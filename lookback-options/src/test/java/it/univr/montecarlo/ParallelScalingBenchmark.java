@@ -0,0 +1,79 @@
+package it.univr.montecarlo;
+
+import java.util.concurrent.ForkJoinPool;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It times ParallelLookbackValuation with 1, 2, 4, ... up to the number of available processors and checks
+ * that the value does not depend on the number of threads.
+ *
+ * Usage: ParallelScalingBenchmark [numberOfPaths] [numberOfTimeSteps]
+ */
+public class ParallelScalingBenchmark {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+
+		//simulation parameters
+		int numberOfPaths = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		int numberOfTimeSteps = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+		int seed = 1897;
+		int numberOfRepetitions = 5;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+
+		AbstractBuildMonitoring product = new LookbackCallFixedStrike(maturity, strike);
+
+		// the paths are generated once, outside of the timings
+		double sequentialValue = product.getValue(blackScholesProcess);
+		System.out.println("Sequential value: " + sequentialValue);
+
+		int maximumNumberOfThreads = Runtime.getRuntime().availableProcessors();
+		double referenceValue = Double.NaN;
+		double referenceTime = Double.NaN;
+		for(int numberOfThreads = 1; numberOfThreads <= maximumNumberOfThreads; numberOfThreads = nextNumberOfThreads(numberOfThreads, maximumNumberOfThreads)) {
+			ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+			ParallelLookbackValuation valuation = new ParallelLookbackValuation(pool);
+
+			double value = Double.NaN;
+			long bestTime = Long.MAX_VALUE;
+			for(int repetition = 0; repetition < numberOfRepetitions; repetition++) {
+				long start = System.nanoTime();
+				value = valuation.getValue(product, blackScholesProcess);
+				bestTime = Math.min(bestTime, System.nanoTime() - start);
+			}
+			pool.shutdown();
+
+			double timeInMilliseconds = bestTime / 1E6;
+			if(numberOfThreads == 1) {
+				referenceValue = value;
+				referenceTime = timeInMilliseconds;
+			}
+			System.out.println("threads " + numberOfThreads + ": " + timeInMilliseconds + " ms, speed-up "
+					+ (referenceTime / timeInMilliseconds) + ", value " + value
+					+ (Double.doubleToLongBits(value) == Double.doubleToLongBits(referenceValue) ? " (identical)" : " (DIFFERENT)"));
+		}
+	}
+
+	private static int nextNumberOfThreads(int numberOfThreads, int maximumNumberOfThreads) {
+		if(numberOfThreads == maximumNumberOfThreads) {
+			return numberOfThreads + 1;
+		}
+		return Math.min(2 * numberOfThreads, maximumNumberOfThreads);
+	}
+}
@@ -0,0 +1,59 @@
+package it.univr.montecarlo;
+
+import it.univr.analyticprices.AnalyticPrices;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It compares the path drivers of StreamingBlackScholesLookbackPricer: for an increasing number of paths it
+ * prints the root mean squared error against the analytic price of the continuously monitored lookback, over
+ * independent seeds, and the average time of a valuation.
+ *
+ * The lookbacks sample the Brownian bridge, so that a coarse time discretization has no monitoring bias and the
+ * error is the Monte Carlo error only.
+ */
+public class PathDriverConvergenceBenchmark {
+
+	public static void main(String[] args) {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+
+		//simulation parameters
+		int numberOfTimeSteps = 16;
+		int numberOfSeeds = 20;
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, strike, true),
+				new LookbackCallFloatingStrike(maturity, true)
+		};
+		double[] analyticPrices = {
+				AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike),
+				AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity)
+		};
+
+		for(int productIndex = 0; productIndex < products.length; productIndex++) {
+			System.out.println(products[productIndex].getLookbackType() + ", analytic price " + analyticPrices[productIndex]);
+			for(LookbackPathDriverType pathDriverType : LookbackPathDriverType.values()) {
+				System.out.println("  " + pathDriverType);
+				for(int numberOfPaths = 1024; numberOfPaths <= 65536; numberOfPaths *= 4) {
+					double sumOfSquaredErrors = 0.0;
+					long startTime = System.nanoTime();
+					for(int seed = 1; seed <= numberOfSeeds; seed++) {
+						double value = products[productIndex].getValue(spotPrice, riskFreeRate, volatility, times, numberOfPaths, seed, pathDriverType);
+						sumOfSquaredErrors += (value - analyticPrices[productIndex]) * (value - analyticPrices[productIndex]);
+					}
+					double timePerValuationInMilliseconds = (System.nanoTime() - startTime) / 1E6 / numberOfSeeds;
+					System.out.println("    paths " + numberOfPaths + ": RMSE " + Math.sqrt(sumOfSquaredErrors / numberOfSeeds)
+							+ ", time " + timePerValuationInMilliseconds + " ms");
+				}
+			}
+		}
+	}
+}
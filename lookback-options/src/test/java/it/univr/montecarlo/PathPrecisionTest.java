@@ -0,0 +1,75 @@
+package it.univr.montecarlo;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It quantifies the error of the single precision paths of StreamingBlackScholesLookbackPricer: for the four
+ * continuously monitored lookbacks, which sample the Brownian bridge and so have no monitoring bias, it prints the
+ * difference between the single and the double precision values on the same random numbers, which is the rounding
+ * error alone, and the error of both against the analytic prices, in units of the Monte Carlo standard error.
+ */
+public class PathPrecisionTest {
+
+	public static void main(String[] args) {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+
+		//simulation parameters
+		int numberOfPaths = 100000;
+		int seed = 1897;
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, strike, true),
+				new LookbackPutFixedStrike(maturity, strike, true),
+				new LookbackCallFloatingStrike(maturity, true),
+				new LookbackPutFloatingStrike(maturity, true)
+		};
+
+		for(int numberOfTimeSteps : new int[] { 50, 500 }) {
+			TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+			System.out.println("Time steps " + numberOfTimeSteps + ", paths " + numberOfPaths);
+
+			for(AbstractBuildMonitoring product : products) {
+				StreamingBlackScholesLookbackPricer pricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate, volatility,
+						times, numberOfPaths, seed, LookbackPathDriverType.PSEUDO_RANDOM, LookbackPathPrecision.DOUBLE);
+				PathExtremum pathExtremum = pricer.getPathExtremum(product);
+				double sumOfPayoffs = 0.0;
+				double sumOfSquaredPayoffs = 0.0;
+				for(int path = 0; path < numberOfPaths; path++) {
+					double payoff = product.getLookbackType().getPayoff(pathExtremum.getMaximum(path), pathExtremum.getMinimum(path),
+							pathExtremum.getTerminalValue(path), product.getStrike());
+					sumOfPayoffs += payoff;
+					sumOfSquaredPayoffs += payoff * payoff;
+				}
+				double discountFactor = Math.exp(-riskFreeRate * maturity);
+				double meanOfPayoffs = sumOfPayoffs / numberOfPaths;
+				double standardError = discountFactor * Math.sqrt((sumOfSquaredPayoffs / numberOfPaths - meanOfPayoffs * meanOfPayoffs) / numberOfPaths);
+
+				long start = System.nanoTime();
+				double doubleValue = product.getValue(spotPrice, riskFreeRate, volatility, times, numberOfPaths, seed,
+						LookbackPathDriverType.PSEUDO_RANDOM, LookbackPathPrecision.DOUBLE);
+				double doubleTime = (System.nanoTime() - start) / 1E6;
+				start = System.nanoTime();
+				double floatValue = product.getValue(spotPrice, riskFreeRate, volatility, times, numberOfPaths, seed,
+						LookbackPathDriverType.PSEUDO_RANDOM, LookbackPathPrecision.FLOAT);
+				double floatTime = (System.nanoTime() - start) / 1E6;
+				double analyticValue = product.getLookbackType().getContinuouslyMonitoredAnalyticValue(spotPrice, riskFreeRate,
+						volatility, maturity, product.getStrike());
+
+				System.out.println("  " + product.getLookbackType() + ": analytic " + analyticValue
+						+ ", double " + doubleValue + " [" + doubleTime + " ms], float " + floatValue + " [" + floatTime + " ms]");
+				System.out.println("    float - double " + (floatValue - doubleValue)
+						+ ", relative " + Math.abs(floatValue - doubleValue) / doubleValue
+						+ ", (double - analytic)/SE " + (doubleValue - analyticValue) / standardError
+						+ ", (float - analytic)/SE " + (floatValue - analyticValue) / standardError);
+			}
+		}
+	}
+}
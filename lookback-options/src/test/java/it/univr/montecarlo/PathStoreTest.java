@@ -0,0 +1,83 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * It writes the paths of a simulation to a path store, checks that the lookbacks priced from the store, also after
+ * opening it again, have the values of the simulation, and compares the time of a revaluation from the store with
+ * the one of a new simulation.
+ */
+public class PathStoreTest {
+
+	public static void main(String[] args) throws CalculationException, IOException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfTimeSteps = 250;
+		int numberOfPaths = 100000;
+		int seed = 1897;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixings),
+				new LookbackPutFloatingStrike(maturity, numberOfFixings),
+				new LookbackCallFixedStrike(maturity, strike),
+				new LookbackPutFloatingStrike(maturity, true),
+				new LookbackCallFloatingStrike(maturity, true).getCloneWithRunningExtremum(Double.NEGATIVE_INFINITY, 90.0, 0)
+		};
+
+		long start = System.currentTimeMillis();
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+		double[] simulatedValues = new double[products.length];
+		for(int i = 0; i < products.length; i++) {
+			simulatedValues[i] = products[i].getValue(blackScholesProcess);
+		}
+		long simulationTime = System.currentTimeMillis() - start;
+
+		Path file = Files.createTempFile("lookback-paths", ".bin");
+		start = System.currentTimeMillis();
+		try(LookbackPathStore pathStore = LookbackPathStore.write(file, blackScholesProcess, products)) {
+			System.out.println("Stored " + pathStore.getNumberOfGrids() + " grids of " + pathStore.getNumberOfPaths()
+					+ " paths in " + Files.size(file) + " bytes [" + (System.currentTimeMillis() - start) + " ms]");
+		}
+
+		start = System.currentTimeMillis();
+		try(LookbackPathStore pathStore = LookbackPathStore.open(file)) {
+			double[] storedValues = pathStore.getValues(products);
+			long revaluationTime = System.currentTimeMillis() - start;
+
+			for(int i = 0; i < products.length; i++) {
+				System.out.println(products[i].getLookbackType() + " fixings " + products[i].getNumberOfFixings()
+						+ (products[i].isBrownianBridgeSampling() ? " (Brownian bridge)" : "")
+						+ (products[i].isSeasoned() ? " (seasoned)" : "")
+						+ ": simulated " + simulatedValues[i] + " stored " + storedValues[i]
+						+ " difference " + Math.abs(simulatedValues[i] - storedValues[i]));
+			}
+			System.out.println("Simulation and valuation: " + simulationTime + " ms, revaluation from the store: " + revaluationTime + " ms");
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package it.univr.montecarlo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+public class PortfolioTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+		int numberOfFixingsForDiscretelyMonitoredLookbacks = 100;
+
+		//time discretization parameters
+		int numberOfTimeSteps = 1000;
+		double initialTime = 0.0;
+		double timeStep = maturity / numberOfTimeSteps;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(initialTime, numberOfTimeSteps, timeStep);
+
+		//simulation parameters
+		int numberOfPaths = 10000;
+		int seed = 1897;
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+
+		// the eight lookbacks of SecondTest, valued one by one...
+		AbstractAssetMonteCarloProduct[] products = {
+				new LookbackCallFixedStrike(maturity, strike),
+				new LookbackCallFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackPutFixedStrike(maturity, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackCallFloatingStrike(maturity),
+				new LookbackCallFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackPutFloatingStrike(maturity),
+				new LookbackPutFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks)
+		};
+
+		// ...and as a portfolio, from a single scan
+		List<LookbackSpecification> specifications = Arrays.asList(
+				new LookbackSpecification(LookbackType.CALL_FIXED_STRIKE, strike, 0),
+				new LookbackSpecification(LookbackType.CALL_FIXED_STRIKE, strike, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackSpecification(LookbackType.PUT_FIXED_STRIKE, strike, 0),
+				new LookbackSpecification(LookbackType.PUT_FIXED_STRIKE, strike, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackSpecification(LookbackType.CALL_FLOATING_STRIKE, 0),
+				new LookbackSpecification(LookbackType.CALL_FLOATING_STRIKE, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackSpecification(LookbackType.PUT_FLOATING_STRIKE, 0),
+				new LookbackSpecification(LookbackType.PUT_FLOATING_STRIKE, numberOfFixingsForDiscretelyMonitoredLookbacks));
+
+		LookbackPortfolio portfolio = new LookbackPortfolio(maturity, specifications);
+		double[] portfolioValues = portfolio.getValues(blackScholesProcess);
+
+		for(int i = 0; i < products.length; i++) {
+			double productValue = products[i].getValue(blackScholesProcess);
+			System.out.println(specifications.get(i) + ": product " + productValue + ", portfolio " + portfolioValues[i]
+					+ ", difference " + (productValue - portfolioValues[i]));
+		}
+		System.out.println("Portfolio value: " + portfolio.getValue(blackScholesProcess));
+	}
+}
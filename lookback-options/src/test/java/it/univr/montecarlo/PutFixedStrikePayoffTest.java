@@ -0,0 +1,54 @@
+package it.univr.montecarlo;
+
+import it.univr.analyticprices.AnalyticPrices;
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It pins the payoff of LookbackPutFixedStrike to max(strike - minimum, 0): for strikes below, at and above the
+ * spot it checks that no path has a negative value, and prints the Monte Carlo value against AnalyticPrices and
+ * against the value of the payoff strike - minimum without the floor, which the product paid before.
+ */
+public class PutFixedStrikePayoffTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+
+		//simulation parameters
+		int numberOfTimeSteps = 100;
+		int numberOfPaths = 200000;
+		int seed = 1897;
+
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility,
+				new BrownianMotionFromMersenneRandomNumbers(new TimeDiscretizationFromArray(0.0, numberOfTimeSteps,
+						maturity / numberOfTimeSteps), 1, numberOfPaths, seed));
+
+		for(double strike : new double[] { 70.0, 90.0, 100.0, 110.0 }) {
+			LookbackPutFixedStrike product = new LookbackPutFixedStrike(maturity, strike, true);
+			RandomVariable values = product.getValue(0.0, blackScholesProcess);
+			if(values.getMin() < 0.0) {
+				throw new AssertionError("Negative value " + values.getMin() + " of the put with strike " + strike);
+			}
+
+			PathExtremum pathExtremum = product.getPathExtremum(blackScholesProcess);
+			double sumOfUnflooredPayoffs = 0.0;
+			for(int path = 0; path < numberOfPaths; path++) {
+				sumOfUnflooredPayoffs += strike - pathExtremum.getMinimum(path);
+			}
+			double unflooredValue = Math.exp(-riskFreeRate * maturity) * sumOfUnflooredPayoffs / numberOfPaths;
+
+			System.out.println("Strike " + strike + ": Monte Carlo " + values.getAverage() + " analytic "
+					+ AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike)
+					+ " without the floor " + unflooredValue);
+		}
+	}
+}
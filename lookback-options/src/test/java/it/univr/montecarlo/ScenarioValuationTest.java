@@ -0,0 +1,103 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * It checks that the scenario valuation gives the values of the streaming pricer on the same random numbers,
+ * prints the profit and loss of a small book under a few shocks, and the time of a valuation of many scenarios for
+ * an increasing number of threads.
+ */
+public class ScenarioValuationTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfTimeSteps = 100;
+		int numberOfPaths = 20000;
+		int seed = 1897;
+		int numberOfScenarios = 200;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackPutFixedStrike(maturity, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixings),
+				new LookbackPutFloatingStrike(maturity)
+		};
+		double[] quantities = { 10.0, -5.0, 3.0, 1.0 };
+
+		LookbackScenario baseScenario = new LookbackScenario(spotPrice, riskFreeRate, volatility);
+		LookbackScenario[] shocks = {
+				baseScenario.getShiftedScenario(1.01, 0.0, 1.0),
+				baseScenario.getShiftedScenario(0.99, 0.0, 1.0),
+				baseScenario.getShiftedScenario(1.0, 0.0, 1.1),
+				baseScenario.getShiftedScenario(1.0, 0.01, 1.0),
+				baseScenario.getShiftedScenario(0.9, 0.0, 1.3)
+		};
+
+		LookbackScenarioValuation valuation = new LookbackScenarioValuation(times, numberOfPaths, seed);
+		System.out.println("Scenario valuation against the streaming pricer on the same random numbers");
+		for(LookbackScenario scenario : new LookbackScenario[] { baseScenario, shocks[4] }) {
+			StreamingBlackScholesLookbackPricer pricer = new StreamingBlackScholesLookbackPricer(scenario.getInitialValue(),
+					scenario.getRiskFreeRate(), scenario.getVolatility(), times, numberOfPaths, seed);
+			for(AbstractBuildMonitoring product : products) {
+				double scenarioValue = valuation.getValues(product, new LookbackScenario[] { scenario })[0];
+				double streamingValue = pricer.getValue(product);
+				System.out.println("  " + scenario + " " + product.getLookbackType() + " fixings " + product.getNumberOfFixings()
+						+ ": " + scenarioValue + " streaming " + streamingValue + " difference " + (scenarioValue - streamingValue));
+			}
+		}
+		System.out.println();
+
+		double[] profitAndLoss = valuation.getProfitAndLoss(products, quantities, baseScenario, shocks);
+		System.out.println("Profit and loss of the book");
+		for(int i = 0; i < shocks.length; i++) {
+			System.out.println("  " + shocks[i] + ": " + profitAndLoss[i]);
+		}
+		System.out.println();
+
+		LookbackScenario[] scenarios = new LookbackScenario[numberOfScenarios];
+		for(int i = 0; i < numberOfScenarios; i++) {
+			scenarios[i] = baseScenario.getShiftedScenario(0.8 + 0.4 * i / numberOfScenarios, 0.0, 0.8 + 0.4 * (i % 10) / 10.0);
+		}
+		int numberOfProcessors = Runtime.getRuntime().availableProcessors();
+		double[] valuesWithOneThread = null;
+		System.out.println(numberOfScenarios + " scenarios, " + numberOfPaths + " paths, " + numberOfTimeSteps + " time steps, "
+				+ numberOfProcessors + " processors");
+		for(int numberOfThreads = 1; numberOfThreads <= Math.max(numberOfProcessors, 4); numberOfThreads *= 2) {
+			ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+			LookbackScenarioValuation parallelValuation = new LookbackScenarioValuation(times, numberOfPaths, seed,
+					LookbackPathDriverType.PSEUDO_RANDOM, executor);
+			parallelValuation.getValues(products, quantities, scenarios);
+
+			long start = System.nanoTime();
+			double[] values = parallelValuation.getValues(products, quantities, scenarios);
+			double time = (System.nanoTime() - start) / 1E6;
+			executor.shutdown();
+
+			if(valuesWithOneThread == null) {
+				valuesWithOneThread = values;
+			}
+			double largestDifference = 0.0;
+			for(int i = 0; i < numberOfScenarios; i++) {
+				largestDifference = Math.max(largestDifference, Math.abs(values[i] - valuesWithOneThread[i]));
+			}
+			System.out.println("  threads " + numberOfThreads + ": " + time + " ms, " + (numberOfScenarios / time * 1000.0)
+					+ " scenarios per second, largest difference from one thread " + largestDifference);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package it.univr.montecarlo;
+
+import it.univr.analyticprices.AnalyticPrices;
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It checks the seasoned lookbacks: the analytic prices with running extrema equal to the spot price against the
+ * ones of the lookbacks starting today, the Monte Carlo prices of seasoned continuously monitored lookbacks against
+ * the analytic ones, and a discretely monitored lookback moved forward fixing by fixing.
+ */
+public class SeasonedLookbackTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double remainingMaturity = 0.5;
+		double strike = 110.0;
+		double runningMaximum = 120.0;
+		double runningMinimum = 85.0;
+		int numberOfFixings = 4;
+
+		//simulation parameters
+		int numberOfTimeSteps = 100;
+		int numberOfPaths = 100000;
+		int seed = 1897;
+
+		System.out.println("Analytic prices with running extrema equal to the spot price");
+		System.out.println("Call floating strike: " + AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity)
+				+ " seasoned: " + AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, spotPrice));
+		System.out.println("Put floating strike:  " + AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity)
+				+ " seasoned: " + AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, spotPrice));
+		System.out.println();
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		BrownianMotion ourDriver = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed);
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, ourDriver);
+
+		System.out.println("Fixed-strike lookbacks starting today, strike " + strike);
+		AbstractBuildMonitoring[] fixedStrikeProducts = {
+				new LookbackCallFixedStrike(maturity, strike, true),
+				new LookbackPutFixedStrike(maturity, strike, true)
+		};
+		for(AbstractBuildMonitoring product : fixedStrikeProducts) {
+			System.out.println(product.getLookbackType() + " Monte Carlo: " + product.getValue(blackScholesProcess)
+					+ " analytic: " + product.getLookbackType().getContinuouslyMonitoredAnalyticValue(spotPrice, riskFreeRate, volatility, maturity, strike));
+		}
+		System.out.println();
+
+		TimeDiscretization remainingTimes = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps / 2, remainingMaturity / (numberOfTimeSteps / 2));
+		BrownianMotion remainingDriver = new BrownianMotionFromMersenneRandomNumbers(remainingTimes, 1, numberOfPaths, seed);
+		MonteCarloBlackScholesModel remainingProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility, remainingDriver);
+
+		System.out.println("Seasoned lookbacks with running maximum " + runningMaximum + ", running minimum " + runningMinimum
+				+ " and remaining maturity " + remainingMaturity);
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(remainingMaturity, strike, true),
+				new LookbackPutFixedStrike(remainingMaturity, strike, true),
+				new LookbackCallFloatingStrike(remainingMaturity, true),
+				new LookbackPutFloatingStrike(remainingMaturity, true)
+		};
+		for(AbstractBuildMonitoring product : products) {
+			AbstractBuildMonitoring seasonedProduct = product.getCloneWithRunningExtremum(runningMaximum, runningMinimum, 0);
+			double analyticValue = seasonedProduct.getLookbackType().getContinuouslyMonitoredAnalyticValue(spotPrice, riskFreeRate, volatility,
+					remainingMaturity, seasonedProduct.getStrike(), runningMaximum, runningMinimum);
+			System.out.println(seasonedProduct.getLookbackType() + " Monte Carlo: " + seasonedProduct.getValue(remainingProcess)
+					+ " analytic: " + analyticValue);
+		}
+		System.out.println();
+
+		System.out.println("Discretely monitored floating-strike call with " + numberOfFixings + " fixings after inception");
+		AbstractBuildMonitoring product = new LookbackCallFloatingStrike(maturity, numberOfFixings);
+		AbstractBuildMonitoring afterInception = product.getCloneWithNewFixing(spotPrice);
+		System.out.println("Value: " + product.getValue(blackScholesProcess)
+				+ " after the fixing at inception: " + afterInception.getValue(blackScholesProcess));
+
+		double[] fixings = { 92.0, 97.0, 104.0 };
+		AbstractBuildMonitoring seasonedProduct = afterInception;
+		for(double fixing : fixings) {
+			seasonedProduct = seasonedProduct.getCloneWithNewFixing(fixing);
+			double timeStep = seasonedProduct.getMaturity() / numberOfTimeSteps;
+			TimeDiscretization seasonedTimes = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, timeStep);
+			BrownianMotion seasonedDriver = new BrownianMotionFromMersenneRandomNumbers(seasonedTimes, 1, numberOfPaths, seed);
+			MonteCarloBlackScholesModel seasonedProcess = new MonteCarloBlackScholesModel(fixing, riskFreeRate, volatility, seasonedDriver);
+			System.out.println("After the fixing " + fixing + ": remaining maturity " + seasonedProduct.getMaturity()
+					+ ", running minimum " + seasonedProduct.getRunningMinimum()
+					+ ", elapsed fixings " + seasonedProduct.getNumberOfElapsedFixings()
+					+ ", value " + seasonedProduct.getValue(seasonedProcess));
+		}
+	}
+}
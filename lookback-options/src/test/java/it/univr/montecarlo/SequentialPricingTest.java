@@ -0,0 +1,51 @@
+package it.univr.montecarlo;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It prices the four lookbacks to the same confidence interval with the sequential pricer and prints how many
+ * paths every one of them needs, with pseudo-random numbers and with the Sobol driver.
+ */
+public class SequentialPricingTest {
+
+	public static void main(String[] args) {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.1;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 100.0;
+		int numberOfFixingsForDiscretelyMonitoredLookbacks = 100;
+
+		//time discretization parameters
+		int numberOfTimeSteps = 100;
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		//simulation parameters
+		int numberOfPathsPerBatch = 5000;
+		int seed = 1897;
+		double confidenceIntervalHalfWidth = 0.05;
+		long timeBudgetInMilliseconds = 10000;
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks),
+				new LookbackPutFloatingStrike(maturity, numberOfFixingsForDiscretelyMonitoredLookbacks)
+		};
+
+		for(LookbackPathDriverType pathDriverType : new LookbackPathDriverType[] { LookbackPathDriverType.PSEUDO_RANDOM, LookbackPathDriverType.SOBOL_BROWNIAN_BRIDGE }) {
+			SequentialLookbackPricer pricer = new SequentialLookbackPricer(spotPrice, riskFreeRate, volatility, times,
+					numberOfPathsPerBatch, seed, pathDriverType);
+			System.out.println(pathDriverType + ", 95% confidence interval half-width " + confidenceIntervalHalfWidth);
+			for(AbstractBuildMonitoring product : products) {
+				long start = System.currentTimeMillis();
+				SequentialResult result = pricer.getValue(product, confidenceIntervalHalfWidth, timeBudgetInMilliseconds);
+				System.out.println("  " + product.getLookbackType() + ": " + result + " [" + (System.currentTimeMillis() - start) + " ms]");
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package it.univr.montecarlo;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * It checks the values of StreamingBlackScholesLookbackPricer against those of the products on a
+ * MonteCarloBlackScholesModel with the same time discretization, for the four lookbacks monitored at every time
+ * and at a few fixings. The two draw different paths from the same seed, so the values must agree within a few
+ * standard errors of their difference rather than exactly.
+ */
+public class StreamingPricerTest {
+
+	public static void main(String[] args) throws CalculationException {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfTimeSteps = 120;
+		int numberOfPaths = 100000;
+		int seed = 1897;
+		double numberOfStandardErrors = 4.0;
+
+		TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility,
+				new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, seed));
+		StreamingBlackScholesLookbackPricer pricer = new StreamingBlackScholesLookbackPricer(spotPrice, riskFreeRate, volatility,
+				times, numberOfPaths, seed);
+
+		AbstractBuildMonitoring[] products = {
+				new LookbackCallFixedStrike(maturity, strike),
+				new LookbackPutFixedStrike(maturity, strike),
+				new LookbackCallFloatingStrike(maturity),
+				new LookbackPutFloatingStrike(maturity),
+				new LookbackCallFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackPutFixedStrike(maturity, numberOfFixings, strike),
+				new LookbackCallFloatingStrike(maturity, numberOfFixings),
+				new LookbackPutFloatingStrike(maturity, numberOfFixings)
+		};
+
+		double discountFactor = Math.exp(-riskFreeRate * maturity);
+		for(AbstractBuildMonitoring product : products) {
+			RandomVariable values = product.getValue(0.0, blackScholesProcess);
+			double value = values.getAverage();
+			double standardError = values.getStandardError();
+
+			PathExtremum pathExtremum = pricer.getPathExtremum(product);
+			double sumOfPayoffs = 0.0;
+			double sumOfSquaredPayoffs = 0.0;
+			for(int path = 0; path < numberOfPaths; path++) {
+				double payoff = discountFactor * product.getLookbackType().getPayoff(pathExtremum.getMaximum(path),
+						pathExtremum.getMinimum(path), pathExtremum.getTerminalValue(path), product.getStrike());
+				sumOfPayoffs += payoff;
+				sumOfSquaredPayoffs += payoff * payoff;
+			}
+			double streamingValue = sumOfPayoffs / numberOfPaths;
+			double streamingStandardError = Math.sqrt(Math.max(sumOfSquaredPayoffs / numberOfPaths - streamingValue * streamingValue, 0.0)
+					/ numberOfPaths);
+
+			double differenceInStandardErrors = (streamingValue - value)
+					/ Math.sqrt(standardError * standardError + streamingStandardError * streamingStandardError);
+			System.out.println("  " + product.getLookbackType() + " fixings " + product.getNumberOfFixings() + ": model " + value
+					+ " +/- " + standardError + ", streaming " + streamingValue + " +/- " + streamingStandardError
+					+ ", difference in standard errors " + differenceInStandardErrors);
+			if(Math.abs(differenceInStandardErrors) > numberOfStandardErrors) {
+				throw new AssertionError("The streaming value of " + product.getLookbackType() + " is off by "
+						+ differenceInStandardErrors + " standard errors");
+			}
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package it.univr.server;
+
+import it.univr.analyticprices.AnalyticPrices;
+import it.univr.montecarlo.LookbackPortfolio;
+import it.univr.montecarlo.LookbackSpecification;
+import it.univr.montecarlo.LookbackType;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * It starts a pricing server on the loopback interface and checks that the analytic answers, in JSON and binary,
+ * are the prices of AnalyticPrices, that invalid requests, also malformed JSON and Monte Carlo requests beyond the
+ * budget of paths times time steps, are refused with 400, that oversized bodies are refused with 413, that concurrent Monte Carlo requests of the same model
+ * are coalesced into fewer simulations and have the values of the portfolio valued directly, and it prints the
+ * latency and the throughput measured by the load generator.
+ */
+public class PricingServerTest {
+
+	public static void main(String[] args) throws Exception {
+		//model parameters
+		double spotPrice = 100.0;
+		double riskFreeRate = 0.05;
+		double volatility = 0.3;
+
+		//option parameters
+		double maturity = 1.0;
+		double strike = 110.0;
+		int numberOfFixings = 12;
+
+		//simulation parameters
+		int numberOfTimeSteps = 50;
+		int numberOfPaths = 10000;
+		int seed = 1897;
+
+		// the server leaves Nagle's algorithm to its embedder, the latencies below are measured without it
+		if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		LookbackPricingServer server = new LookbackPricingServer(0);
+		server.start();
+		URL url = new URL("http://127.0.0.1:" + server.getPort() + "/price");
+		System.out.println("Server on " + url + (server.isUsingVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+		try {
+			LookbackLoadGenerator jsonClient = new LookbackLoadGenerator(url, 1);
+			LookbackLoadGenerator binaryClient = new LookbackLoadGenerator(url, 1, true);
+
+			double[] analyticPrices = {
+					AnalyticPrices.continuouslyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike),
+					AnalyticPrices.continuouslyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike),
+					AnalyticPrices.continuouslyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity),
+					AnalyticPrices.continuouslyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity),
+					AnalyticPrices.discretelyMonitoredLookbackCallFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings),
+					AnalyticPrices.discretelyMonitoredLookbackPutFixedStrike(spotPrice, riskFreeRate, volatility, maturity, strike, numberOfFixings),
+					AnalyticPrices.discretelyMonitoredLookbackCallFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings),
+					AnalyticPrices.discretelyMonitoredLookbackPutFloatingStrike(spotPrice, riskFreeRate, volatility, maturity, numberOfFixings)
+			};
+			System.out.println("Analytic answers against AnalyticPrices");
+			for(int i = 0; i < analyticPrices.length; i++) {
+				LookbackType type = LookbackType.values()[i % 4];
+				int fixings = i < 4 ? 0 : numberOfFixings;
+				LookbackPricingRequest request = new LookbackPricingRequest(LookbackPricingRequest.Method.ANALYTIC, type,
+						spotPrice, riskFreeRate, volatility, maturity, strike, fixings);
+				double jsonValue = jsonClient.send(request);
+				double binaryValue = binaryClient.send(request);
+				LookbackPricingRequest readRequest = LookbackPricingRequest.fromJson(request.toJson());
+				System.out.println("  " + type + " fixings " + fixings + ": json " + jsonValue + " binary " + binaryValue
+						+ " AnalyticPrices " + analyticPrices[i] + " difference " + Math.max(Math.abs(jsonValue - analyticPrices[i]),
+								Math.abs(binaryValue - analyticPrices[i]))
+						+ ", JSON round trip " + (readRequest.toJson().equals(request.toJson()) ? "equal" : "DIFFERENT"));
+			}
+			System.out.println();
+
+			System.out.println("Invalid requests");
+			String[] invalidRequests = {
+					"{\"type\": \"CALL_FIXED_STRIKE\", \"spot\": 100}",
+					"{\"type\": \"CALL_SOMETHING\", \"spot\": 100, \"rate\": 0.05, \"volatility\": 0.3, \"maturity\": 1, \"strike\": 110}",
+					"not JSON",
+					"{\"type\": \"CALL_FIXED_STRIKE\", \"spot\": 100, \"rate\": 0.05, \"volatility\": 0.3, \"maturity\": 1, \"strike\": 110, "
+							+ "\"note\": \"\\u12G4\"}",
+					"{\"method\": \"MONTE_CARLO\", \"type\": \"CALL_FIXED_STRIKE\", \"spot\": 100, \"rate\": 0.05, \"volatility\": 0.3, "
+							+ "\"maturity\": 1, \"strike\": 110, \"paths\": 1e12}",
+					"{\"method\": \"MONTE_CARLO\", \"type\": \"CALL_FIXED_STRIKE\", \"spot\": 100, \"rate\": 0.05, \"volatility\": 0.3, "
+							+ "\"maturity\": 1, \"strike\": 110, \"paths\": 1000000, \"steps\": 1000}",
+					"{\"method\": \"MONTE_CARLO\", \"type\": \"CALL_FIXED_STRIKE\", \"spot\": 100, \"rate\": 0.05, \"volatility\": 0.3, "
+							+ "\"maturity\": 1, \"strike\": 110, \"paths\": 1000.5}"
+			};
+			for(String invalidRequest : invalidRequests) {
+				HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+				connection.setRequestMethod("POST");
+				connection.setDoOutput(true);
+				connection.getOutputStream().write(invalidRequest.getBytes("UTF-8"));
+				int status = connection.getResponseCode();
+				System.out.println("  " + invalidRequest + ": " + status);
+				connection.disconnect();
+				if(status != 400) {
+					throw new AssertionError("The invalid request " + invalidRequest + " is answered with " + status + " instead of 400");
+				}
+			}
+
+			byte[] oversizedRequest = new byte[LookbackPricingServer.MAXIMUM_BODY_SIZE + 1];
+			Arrays.fill(oversizedRequest, (byte) ' ');
+			HttpURLConnection oversizedConnection = (HttpURLConnection) url.openConnection();
+			oversizedConnection.setRequestMethod("POST");
+			oversizedConnection.setDoOutput(true);
+			oversizedConnection.setFixedLengthStreamingMode(oversizedRequest.length);
+			oversizedConnection.getOutputStream().write(oversizedRequest);
+			int oversizedStatus = oversizedConnection.getResponseCode();
+			System.out.println("  body of " + oversizedRequest.length + " bytes: " + oversizedStatus);
+			oversizedConnection.disconnect();
+			if(oversizedStatus != 413) {
+				throw new AssertionError("The body of " + oversizedRequest.length + " bytes is answered with " + oversizedStatus + " instead of 413");
+			}
+			System.out.println();
+
+			//concurrent Monte Carlo requests on the same model
+			int numberOfRequests = 16;
+			List<LookbackPricingRequest> monteCarloRequests = new ArrayList<>();
+			List<LookbackSpecification> specifications = new ArrayList<>();
+			for(int i = 0; i < numberOfRequests; i++) {
+				LookbackPricingRequest request = new LookbackPricingRequest(LookbackPricingRequest.Method.MONTE_CARLO,
+						LookbackType.values()[i % 4], spotPrice, riskFreeRate, volatility, maturity, 95.0 + 2.0 * i,
+						Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, i % 2 == 0 ? numberOfFixings : 0,
+						numberOfPaths, numberOfTimeSteps, seed);
+				monteCarloRequests.add(request);
+				specifications.add(request.getSpecification());
+			}
+			MonteCarloBlackScholesModel blackScholesProcess = new MonteCarloBlackScholesModel(spotPrice, riskFreeRate, volatility,
+					new BrownianMotionFromMersenneRandomNumbers(
+							new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps), 1, numberOfPaths, seed));
+			double[] directValues = new LookbackPortfolio(maturity, specifications).getValues(blackScholesProcess);
+
+			ExecutorService clients = Executors.newFixedThreadPool(numberOfRequests);
+			List<Future<Double>> values = new ArrayList<>();
+			for(LookbackPricingRequest request : monteCarloRequests) {
+				values.add(clients.submit(() -> jsonClient.send(request)));
+			}
+			double largestDifference = 0.0;
+			for(int i = 0; i < numberOfRequests; i++) {
+				largestDifference = Math.max(largestDifference, Math.abs(values.get(i).get() - directValues[i]));
+			}
+			clients.shutdown();
+			System.out.println("Concurrent Monte Carlo requests " + server.getNumberOfMonteCarloRequests() + ", simulations "
+					+ server.getNumberOfSimulations() + ", largest difference from the portfolio " + largestDifference);
+			System.out.println();
+
+			LookbackPricingRequest[] loadRequests = new LookbackPricingRequest[100];
+			for(int i = 0; i < loadRequests.length; i++) {
+				loadRequests[i] = new LookbackPricingRequest(LookbackPricingRequest.Method.ANALYTIC, LookbackType.values()[i % 4],
+						spotPrice, riskFreeRate, volatility, maturity, 90.0 + i % 25, i % 3 == 0 ? 0 : numberOfFixings);
+			}
+			for(int numberOfClients : new int[] { 1, 8, 32 }) {
+				LookbackLoadGenerator loadGenerator = new LookbackLoadGenerator(url, numberOfClients);
+				loadGenerator.run(loadRequests, 200);
+				System.out.println("Analytic load, clients " + numberOfClients + ": " + loadGenerator.run(loadRequests, 2000));
+			}
+		}
+		finally {
+			server.stop(0);
+		}
+	}
+}